@@ -17,6 +17,17 @@
 // //console.log("location.host : "+location.host)
 let locationHost = window.__CONFIG__.API_BASE_URL.replace(/^https?:\/\//, '').replace(/:\d+$/, '');
 let participants = {};
+// 방의 미디어 구성 : mesh => 참여자마다 영상을 받음, composite => 서버에서 합쳐진 영상 하나를 '나'의 연결로 받음
+let roomLayout = 'mesh';
+let compositeView = null;
+
+// 화면에 보이는 참여자만 영상을 받음 : 보이는 타일 목록을 서버에 subscribeVideo 로 알림
+let visibleSenders = new Set();
+let subscribeTimer = null;
+const SUBSCRIBE_DEBOUNCE_MS = 300;
+const tileObserver = ('IntersectionObserver' in window)
+    ? new IntersectionObserver(onTileVisibilityChanged, { threshold: 0.1 })
+    : null;
 
 let userId = null;
 let nickName = null;
@@ -193,12 +204,21 @@ ws.onmessage = function (message) {
         case 'receiveVideoAnswer':
             receiveVideoResponse(parsedMessage);
             break;
+        case 'videoReleased':
+            onVideoReleased(parsedMessage);
+            break;
+        case 'layoutChanged':
+            onLayoutChanged(parsedMessage);
+            break;
+        case 'reconnectMedia': // 미디어 서버 재연결 후 방 재입장 없이 peer 만 다시 연결
+            onReconnectMedia(parsedMessage);
+            break;
         case 'iceCandidate':
-            participants[parsedMessage.name].rtcPeer.addIceCandidate(parsedMessage.candidate, function (error) {
-                if (error) {
-                    console.error("Error adding candidate: " + error);
-                    return;
-                }
+            addRemoteCandidate(parsedMessage.name, parsedMessage.candidate);
+            break;
+        case 'iceCandidates': // 서버가 짧은 시간 동안 찾은 candidate 를 모아서 보낸 메시지
+            parsedMessage.candidates.forEach(function (entry) {
+                addRemoteCandidate(entry.name, entry.candidate);
             });
             break;
         case 'ConnectionFail': // 연결 실패 메시지 처리
@@ -220,6 +240,18 @@ ws.onmessage = function (message) {
     }
 }
 
+function addRemoteCandidate(name, candidate) {
+    if (!participants[name] || !participants[name].rtcPeer) {
+        // composite 전환 또는 구독 해제로 이미 정리된 연결
+        return;
+    }
+    participants[name].rtcPeer.addIceCandidate(candidate, function (error) {
+        if (error) {
+            console.error("Error adding candidate: " + error);
+        }
+    });
+}
+
 function register() {
     // kurentoroom.html 진입 시 서버에서 방/유저 정보 조회
     let kurentoRoomInfo = null;
@@ -261,11 +293,70 @@ function register() {
 }
 
 function onNewParticipant(request) {
+    // composite 방에서는 새로운 참여자의 영상이 합쳐진 영상에 포함되어 들어옴
+    if (roomLayout === 'composite') {
+        return;
+    }
     let newParticipant = request.data;
     receiveVideo(newParticipant);
 }
 
+/**
+ * 방이 composite 로 전환되면 다른 참여자와의 연결을 정리하고 합쳐진 영상을 보여줌
+ * 합쳐진 영상은 이미 연결된 '나'의 peer 로 들어오기 때문에 다시 offer 를 보내지 않음
+ */
+function onLayoutChanged(msg) {
+    if (msg.layout !== 'composite' || roomLayout === 'composite') {
+        return;
+    }
+    roomLayout = 'composite';
+
+    Object.keys(participants).forEach(function (key) {
+        if (key !== userId) {
+            unobserveTile(participants[key]);
+            participants[key].dispose();
+            delete participants[key];
+        }
+    });
+    showCompositeView();
+}
+
+/**
+ * '나'의 peer 로 들어오는 합쳐진 영상을 composite 타일에 연결
+ */
+function showCompositeView() {
+    let self = participants[userId];
+    if (compositeView || !self || !self.rtcPeer) {
+        return;
+    }
+
+    compositeView = new Participant('composite', roomName, roomId);
+    let video = compositeView.getVideoElement();
+    let audio = compositeView.getAudioElement();
+    let peerConnection = self.rtcPeer.peerConnection;
+
+    let attach = function (stream) {
+        video.srcObject = stream;
+        audio.srcObject = stream;
+    };
+
+    let tracks = peerConnection.getReceivers()
+        .map(function (receiver) { return receiver.track; })
+        .filter(function (track) { return !!track; });
+    if (tracks.length > 0) {
+        attach(new MediaStream(tracks));
+    }
+    peerConnection.addEventListener('track', function (event) {
+        if (event.streams && event.streams[0]) {
+            attach(event.streams[0]);
+        }
+    });
+}
+
 function receiveVideoResponse(result) {
+    if (!participants[result.name] || !participants[result.name].rtcPeer) {
+        return;
+    }
     participants[result.name].rtcPeer.processAnswer(result.sdpAnswer, function (error) {
         if (error) return console.error(error);
     });
@@ -283,50 +374,22 @@ function callResponse(message) {
 }
 
 function onExistingParticipants(msg) {
+    roomLayout = msg.layout || 'mesh';
     var participant = new Participant(userId, nickName, roomId);
     participants[userId] = participant;
     dataChannel.initDataChannelUser(participant);
-    var video = participant.getVideoElement();
-    var audio = participant.getAudioElement();
 
     function handleSuccess(stream) {
-        var hasVideo = constraints.video && stream.getVideoTracks().length > 0
-
-        var options = {
-            localVideo: hasVideo ? video : null,
-            localAudio: audio,
-            mediaStream: stream,
-            mediaConstraints: constraints,
-            onicecandidate: participant.onIceCandidate.bind(participant),
-            dataChannels : true, // dataChannel 사용 여부
-            dataChannelConfig: { // dataChannel event 설정
-                id : dataChannel.getChannelName,
-                // onopen : dataChannel.handleDataChannelOpen,
-                // onclose : dataChannel.handleDataChannelClose,
-                onmessage : dataChannel.handleDataChannelMessageReceived,
-                onerror : dataChannel.handleDataChannelError
-            },
-            configuration: {
-                iceServers: [
-                    {
-                        urls: turnUrl,
-                        username: turnUser,
-                        credential: turnPwd
-                    }
-                ]
-            }
-        };
-
-        participant.rtcPeer = new kurentoUtils.WebRtcPeer.WebRtcPeerSendrecv(options,
-            function(error) {
-                if (error) {
-                    return console.error(error);
-                }
+        connectSender(participant, stream, function () {
+            mediaDevice.init(); // video 와 audio 장비를 모두 가져온 후 mediaDvice 장비 영역 세팅
+        });
 
-                this.generateOffer(participant.offerToReceiveVideo.bind(participant));
-                mediaDevice.init(); // video 와 audio 장비를 모두 가져온 후 mediaDvice 장비 영역 세팅
-            });
-        msg.data.forEach(receiveVideo)
+        // composite 방이면 다른 참여자의 영상을 따로 받지 않고 합쳐진 영상만 보여줌
+        if (roomLayout === 'composite') {
+            showCompositeView();
+        } else {
+            msg.data.forEach(receiveVideo);
+        }
     }
 
     // 오디오 권한 체크 후 getUserMedia 호출
@@ -350,9 +413,183 @@ function onExistingParticipants(msg) {
     initializeUserMedia();
 }
 
+/**
+ * '나'의 영상을 보내는 peer 생성 후 offer 전송
+ */
+function connectSender(participant, stream, onReady) {
+    var video = participant.getVideoElement();
+    var audio = participant.getAudioElement();
+    var hasVideo = constraints.video && stream.getVideoTracks().length > 0
+
+    var options = {
+        localVideo: hasVideo ? video : null,
+        localAudio: audio,
+        mediaStream: stream,
+        mediaConstraints: constraints,
+        onicecandidate: participant.onIceCandidate.bind(participant),
+        dataChannels : true, // dataChannel 사용 여부
+        dataChannelConfig: { // dataChannel event 설정
+            id : dataChannel.getChannelName,
+            // onopen : dataChannel.handleDataChannelOpen,
+            // onclose : dataChannel.handleDataChannelClose,
+            onmessage : dataChannel.handleDataChannelMessageReceived,
+            onerror : dataChannel.handleDataChannelError
+        },
+        configuration: {
+            iceServers: [
+                {
+                    urls: turnUrl,
+                    username: turnUser,
+                    credential: turnPwd
+                }
+            ]
+        }
+    };
+
+    participant.rtcPeer = new kurentoUtils.WebRtcPeer.WebRtcPeerSendrecv(options,
+        function(error) {
+            if (error) {
+                return console.error(error);
+            }
+
+            this.generateOffer(participant.offerToReceiveVideo.bind(participant));
+            if (onReady) {
+                onReady();
+            }
+        });
+}
+
+/**
+ * 미디어 서버 연결이 끊겨서 서버가 방의 endpoint 를 새로 만든 경우
+ * 타일은 그대로 두고 '나'의 peer 와 화면에 보이는 참여자의 peer 만 다시 연결
+ * peer 를 dispose 하면 local stream 도 멈추기 때문에 getUserMedia 를 다시 호출
+ */
+function onReconnectMedia(msg) {
+    let self = participants[userId];
+    if (!self) {
+        return;
+    }
+
+    if (msg.layout === 'composite') {
+        onLayoutChanged(msg);
+        if (compositeView) {
+            compositeView.dispose();
+            compositeView = null;
+        }
+    }
+
+    Object.keys(participants).forEach(function (key) {
+        if (participants[key].rtcPeer) {
+            participants[key].rtcPeer.dispose();
+            participants[key].rtcPeer = null;
+        }
+    });
+
+    navigator.mediaDevices.getUserMedia(constraints).then(function (stream) {
+        connectSender(self, stream);
+
+        if (roomLayout === 'composite') {
+            showCompositeView();
+            return;
+        }
+        Object.keys(participants).forEach(function (key) {
+            if (key !== userId && (!tileObserver || visibleSenders.has(key))) {
+                connectReceiver(participants[key]);
+            }
+        });
+        // 서버의 구독 상태도 새로 만들어졌기 때문에 다시 전달
+        scheduleSubscribe();
+    }).catch(function (error) {
+        console.error('getUserMedia failed:', error);
+        showAudioErrorModal(classifyMediaError(error), error);
+    });
+}
+
 function receiveVideo(sender) {
     var participant = new Participant(sender.userId, sender.nickName, roomId);
     participants[sender.userId] = participant;
+    // 타일이 화면에 보일 때 연결
+    observeTile(participant);
+}
+
+/**
+ * 참여자 타일을 화면 감시 대상으로 등록
+ * IntersectionObserver 를 지원하지 않으면 바로 연결
+ */
+function observeTile(participant) {
+    if (!tileObserver) {
+        connectReceiver(participant);
+        return;
+    }
+    tileObserver.observe(participant.getElement());
+}
+
+function unobserveTile(participant) {
+    visibleSenders.delete(participant.userId);
+    if (tileObserver) {
+        tileObserver.unobserve(participant.getElement());
+    }
+}
+
+/**
+ * 타일이 화면에 들어오면 연결이 없는 경우 새로 연결하고, 보이는 타일 목록을 서버에 알림
+ * 화면에서 사라진 타일은 서버가 잠시 기다린 후 영상 전송을 멈춤
+ */
+function onTileVisibilityChanged(entries) {
+    entries.forEach(function (entry) {
+        let senderId = entry.target.id;
+        let participant = participants[senderId];
+        if (!participant || senderId === userId) {
+            return;
+        }
+
+        if (entry.isIntersecting) {
+            visibleSenders.add(senderId);
+            if (!participant.rtcPeer) {
+                connectReceiver(participant);
+            }
+        } else {
+            visibleSenders.delete(senderId);
+        }
+    });
+    scheduleSubscribe();
+}
+
+function scheduleSubscribe() {
+    if (roomLayout === 'composite') {
+        return;
+    }
+    clearTimeout(subscribeTimer);
+    subscribeTimer = setTimeout(function () {
+        sendMessageToServer({
+            id: 'subscribeVideo',
+            roomId: roomId,
+            senders: Array.from(visibleSenders)
+        });
+    }, SUBSCRIBE_DEBOUNCE_MS);
+}
+
+/**
+ * 서버가 오래 보이지 않은 참여자의 endpoint 를 release 한 경우
+ * 연결을 정리하고, 그 사이 다시 화면에 보이게 됐다면 새로 연결
+ */
+function onVideoReleased(msg) {
+    let participant = participants[msg.name];
+    if (!participant || !participant.rtcPeer) {
+        return;
+    }
+    participant.rtcPeer.dispose();
+    participant.rtcPeer = null;
+
+    if (visibleSenders.has(msg.name)) {
+        connectReceiver(participant);
+    }
+}
+
+/**
+ * 참여자의 영상을 받기 위한 peer 생성 후 offer 전송
+ */
+function connectReceiver(participant) {
     var video = participant.getVideoElement();
     var audio = participant.getAudioElement();
 
@@ -436,6 +673,11 @@ function onParticipantLeft(request) {
 
     var participant = participants[request.name];
     //console.log('Participant ' + request.name + ' left');
+    if (!participant) {
+        // composite 방에서는 다른 참여자의 타일이 없음
+        return;
+    }
+    unobserveTile(participant);
     participant.dispose();
     delete participants[request.name];
 }
@@ -159,7 +159,8 @@ const ParticipantUtils = {
 
 			// 볼륨 조절 적용
 			ParticipantUtils.updateAudioState(targetUserId, true, volumeLevel);
-			participants[targetUserId].setVolume(volumeLevel);
+			// composite 타일은 participants 에 포함되지 않음
+			(participants[targetUserId] || compositeView).setVolume(volumeLevel);
 
 			// 모달 내 슬라이더와 동기화
 			const modalSlider = document.querySelector('#participantsList #volumeControl_' + targetUserId);
@@ -331,7 +332,9 @@ function Participant(userId, nickName, roomId) {
 	 */
 	this.dispose = function() {
 		//console.log('Disposing participant ' + this.userId);
-		this.rtcPeer.dispose();
+		if (this.rtcPeer) {
+			this.rtcPeer.dispose();
+		}
 		container.parentNode.removeChild(container);
 	};
 
@@ -449,7 +452,8 @@ $('#userSetting').on('click', function (e) {
 
 			// 볼륨 조절 적용
 			ParticipantUtils.updateAudioState(targetUserId, true, volumeLevel);
-			participants[targetUserId].setVolume(volumeLevel);
+			// composite 타일은 participants 에 포함되지 않음
+			(participants[targetUserId] || compositeView).setVolume(volumeLevel);
 
 			// 메인 화면의 볼륨 슬라이더와 동기화
 			let mainVolumeSlider = document.getElementById('volumeControl_' + targetUserId);
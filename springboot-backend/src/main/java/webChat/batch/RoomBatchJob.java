@@ -7,6 +7,8 @@ import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import webChat.controller.ExceptionController;
 import webChat.entity.DailyInfo;
+import webChat.model.redis.VersionedData;
+import webChat.model.room.ChatRoom;
 import webChat.model.room.KurentoRoom;
 import webChat.repository.DailyInfoRepository;
 import webChat.service.analysis.AnalysisService;
@@ -37,12 +39,33 @@ public class RoomBatchJob {
         AtomicInteger rtcRoomCnt = new AtomicInteger();
 
         try {
-            List<KurentoRoom> chatRoomListForDelete = redisService.getChatRoomListForDelete(SEARCH_COUNT);
-            for (KurentoRoom kurentoRoom : chatRoomListForDelete) {
-                chatRoomService.delChatRoom(kurentoRoom);
-                rtcRoomCnt.incrementAndGet();
-                totalDelRoomCnt.incrementAndGet();
-            }
+            // 삭제된 방은 삭제 대상 목록에서 빠지기 때문에 삭제하지 못하고 남은 방의 수만큼만 cursor 를 이동
+            int cursor = 0;
+            List<String> roomIdsForDelete;
+            do {
+                roomIdsForDelete = redisService.getChatRoomIdsForDelete(cursor, SEARCH_COUNT);
+                int deletedCnt = 0;
+                for (String roomId : roomIdsForDelete) {
+                    // 삭제 대상 목록과 같은 기준으로 판단하도록 방 정보도 master 에서 조회
+                    VersionedData<ChatRoom> chatRoom = redisService.getChatRoomForUpdate(roomId);
+                    if (chatRoom == null || !(chatRoom.data() instanceof KurentoRoom kurentoRoom)) {
+                        // 방 정보가 이미 없는 경우 남은 데이터만 정리
+                        if (redisService.deleteAllChatRoomData(roomId)) {
+                            deletedCnt++;
+                        }
+                        continue;
+                    }
+                    try {
+                        chatRoomService.delChatRoom(kurentoRoom);
+                        rtcRoomCnt.incrementAndGet();
+                        totalDelRoomCnt.incrementAndGet();
+                        deletedCnt++;
+                    } catch (ExceptionController.DelRoomException e) {
+                        log.error("Fail to delete room {} ::: {}", roomId, e.getMessage());
+                    }
+                }
+                cursor += roomIdsForDelete.size() - deletedCnt;
+            } while (roomIdsForDelete.size() == SEARCH_COUNT);
         } catch (BadRequestException e) {
             throw new RuntimeException("Batch Job Failed", e);
         }
@@ -1,28 +1,65 @@
 package webChat.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.kurento.client.KurentoClient;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+import webChat.service.kurento.KurentoClientPool;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
+@Slf4j
 @Configuration
 public class KurentoConfig {
     // kms.url 를 application.properties 에 저장 후 사용
     @Value("${kms.url}")
     private String kmsUrl;
 
+    // 여러 KMS 를 사용하는 경우 ',' 로 구분해서 등록, 없으면 kms.url 하나만 사용
+    @Value("${kms.urls:}")
+    private String kmsUrls;
+
+    // 새로운 방을 배치할 서버 선택 기준 : endpoints, cpu
+    @Value("${chatforyou.kurento.placement:endpoints}")
+    private String placement;
+
     // Kurento Media Server 를 사용하기 위한 Bean 설정
-    // 환경변수가 들어오면 환경변수를 KMS_URL 로 설정 or
-    // 환경변수에 아무것도 안들어오면 application.properties 에 등록된 kms.url 을 가져와서 사용함
+    // 환경변수 KMS_URLS / KMS_URL 이 들어오면 환경변수를 사용 or
+    // 환경변수에 아무것도 안들어오면 application.properties 에 등록된 kms.urls / kms.url 을 가져와서 사용함
     @Bean
-    public KurentoClient kurentoClient() {
-        String envKmsUrl = System.getenv("KMS_URL");
-        if(Objects.isNull(envKmsUrl) || envKmsUrl.isEmpty()){
-            return KurentoClient.create(kmsUrl);
+    public KurentoClientPool kurentoClientPool(KurentoParticipantService participantService) {
+        KurentoClientPool pool = new KurentoClientPool(participantService,
+                KurentoClientPool.PlacementStrategy.valueOf(placement.toUpperCase()));
+
+        for (String url : this.getKmsUrls()) {
+            pool.connect(url, listener -> KurentoClient.create(url, listener));
+        }
+
+        if (pool.getServers().isEmpty()) {
+            throw new IllegalStateException("Could not connect to any Kurento Media Server");
+        }
+        log.info("Kurento Media Servers : {}", pool.getServers().size());
+        return pool;
+    }
+
+    private List<String> getKmsUrls() {
+        String urls = System.getenv("KMS_URLS");
+        if (Objects.isNull(urls) || urls.isEmpty()) {
+            urls = kmsUrls;
+        }
+        if (Objects.isNull(urls) || urls.isEmpty()) {
+            String envKmsUrl = System.getenv("KMS_URL");
+            urls = Objects.isNull(envKmsUrl) || envKmsUrl.isEmpty() ? kmsUrl : envKmsUrl;
         }
 
-        return KurentoClient.create(envKmsUrl);
+        return Arrays.stream(urls.split(","))
+                .map(String::trim)
+                .filter(url -> !url.isEmpty())
+                .distinct()
+                .toList();
     }
 }
@@ -5,6 +5,9 @@ import io.github.dengliming.redismodule.redisearch.index.schema.Field;
 import io.github.dengliming.redismodule.redisearch.index.schema.FieldType;
 import io.github.dengliming.redismodule.redisearch.index.schema.Schema;
 import io.github.dengliming.redismodule.redisearch.index.schema.TextField;
+import io.lettuce.core.ReadFrom;
+import io.lettuce.core.cluster.ClusterClientOptions;
+import io.lettuce.core.cluster.ClusterTopologyRefreshOptions;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.redisson.config.Config;
@@ -14,19 +17,33 @@ import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.connection.RedisClusterConfiguration;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 import webChat.model.redis.RedisIndex;
+import webChat.service.redis.ChatRoomRedisSerializer;
+import webChat.service.redis.RediSearchShards;
 import webChat.utils.StringUtil;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 /**
  * redis 를 master - slave 구조로 사용
  * master : 쓰기 작업 수행
  * slave : 읽기 작업 수행
+ * cluster 모드 : chatforyou.redis.cluster.enabled 가 true 면 cluster 로 연결
+ *  - master 연결은 master node 에서, slave 연결은 replica 에서 우선적으로 읽음
+ *  - 한 방의 key 는 hash tag 로 같은 slot 에 저장 (RedisServiceImpl 참고)
  */
 @Configuration
 @EnableCaching
@@ -44,6 +61,17 @@ public class RedisConfig {
     @Value("${spring.data.redis.password}")
     private String password;
 
+    @Value("${chatforyou.redis.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    // cluster 모드에서 사용할 node 목록 : host:port,host:port
+    @Value("${chatforyou.redis.cluster.nodes:}")
+    private String clusterNodes;
+
+    // chatroom hash 값 저장 형식 : json, smile
+    @Value("${chatforyou.redis.room_serializer:json}")
+    private String roomSerializer;
+
     private RediSearchClient redisSearchClient;
 
     // redis 의 설정값을 세팅하기 위한 postConstruct
@@ -69,21 +97,54 @@ public class RedisConfig {
         if(!StringUtil.isNullOrEmpty(envRedisPassword)){
             password = envRedisPassword;
         }
+
+        String envRedisClusterNodes = System.getenv("REDIS_CLUSTER_NODES");
+        if(!StringUtil.isNullOrEmpty(envRedisClusterNodes)){
+            clusterNodes = envRedisClusterNodes;
+        }
     }
 
     @Primary
     @Bean("masterRedisConnectionFactory")
     public RedisConnectionFactory masterRedisConnectionFactory() {
+        if (clusterEnabled) {
+            return this.clusterConnectionFactory(ReadFrom.MASTER);
+        }
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(host, Integer.parseInt(masterPort));
         return new LettuceConnectionFactory(config);
     }
 
     @Bean("slaveRedisConnectionFactory")
     public RedisConnectionFactory slaveRedisConnectionFactory() {
+        if (clusterEnabled) {
+            return this.clusterConnectionFactory(ReadFrom.REPLICA_PREFERRED);
+        }
         RedisStandaloneConfiguration config = new RedisStandaloneConfiguration(host, Integer.parseInt(slavePort));
         return new LettuceConnectionFactory(config);
     }
 
+    /**
+     * cluster 연결 생성
+     * node 목록이 없으면 host:masterPort 를 seed node 로 사용
+     * topology 변경(failover, resharding)을 감지하기 위해 주기적 / adaptive refresh 사용
+     */
+    private RedisConnectionFactory clusterConnectionFactory(ReadFrom readFrom) {
+        List<String> nodes = StringUtil.isNullOrEmpty(clusterNodes)
+                ? List.of(host + ":" + masterPort)
+                : Arrays.stream(clusterNodes.split(",")).map(String::trim).filter(node -> !node.isEmpty()).toList();
+        RedisClusterConfiguration config = new RedisClusterConfiguration(nodes);
+
+        ClusterTopologyRefreshOptions refreshOptions = ClusterTopologyRefreshOptions.builder()
+                .enablePeriodicRefresh(Duration.ofSeconds(30))
+                .enableAllAdaptiveRefreshTriggers()
+                .build();
+        LettuceClientConfiguration clientConfig = LettuceClientConfiguration.builder()
+                .readFrom(readFrom)
+                .clientOptions(ClusterClientOptions.builder().topologyRefreshOptions(refreshOptions).build())
+                .build();
+        return new LettuceConnectionFactory(config, clientConfig);
+    }
+
     @Primary
     @Bean(name = "masterRedisTemplate")
     public RedisTemplate<?, ?> masterRedisTemplate(@Qualifier("masterRedisConnectionFactory") RedisConnectionFactory redisConnectionFactory) {
@@ -94,7 +155,7 @@ public class RedisConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(serializer); // 이 부분이 데이터를 JSON 형식으로 직렬화
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(serializer);
+        template.setHashValueSerializer(this.chatRoomRedisSerializer(serializer));
 
         template.afterPropertiesSet();
         return template;
@@ -109,24 +170,38 @@ public class RedisConfig {
         template.setKeySerializer(new StringRedisSerializer());
         template.setValueSerializer(serializer); // 이 부분이 데이터를 JSON 형식으로 직렬화
         template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(serializer);
+        template.setHashValueSerializer(this.chatRoomRedisSerializer(serializer));
 
         template.afterPropertiesSet();
         return template;
     }
 
-    @Bean
-    public RediSearchClient redisSearchClient() {
-//        // Redis 서버에 연결 (JedisPooled 사용)
-//        JedisPooled jedisPooled = new JedisPooled(host, Integer.parseInt(masterPort));
-
-        Config config = new Config();
-        config.useMasterSlaveServers()
-                .setMasterAddress("redis://" + host + ":" + masterPort)
-                .addSlaveAddress("redis://" + host + ":" + slavePort);
+    private ChatRoomRedisSerializer chatRoomRedisSerializer(GenericJackson2JsonRedisSerializer jsonSerializer) {
+        return new ChatRoomRedisSerializer(jsonSerializer, ChatRoomRedisSerializer.Format.valueOf(roomSerializer.toUpperCase()));
+    }
 
-        // RediSearchClient 생성
-        redisSearchClient = new RediSearchClient(config);
+    /**
+     * redisSearch client 및 chatRoom index 생성
+     * cluster 모드에서는 각 shard 가 자신의 key 만 색인하기 때문에 master node 마다 client 를 만들고 index 를 생성
+     */
+    @Bean
+    public RediSearchShards rediSearchShards(@Qualifier("masterRedisConnectionFactory") RedisConnectionFactory masterConnectionFactory) {
+        List<RediSearchClient> clients = new ArrayList<>();
+        if (clusterEnabled) {
+            try (RedisClusterConnection clusterConnection = masterConnectionFactory.getClusterConnection()) {
+                for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+                    if (!node.isMaster()) {
+                        continue;
+                    }
+                    Config config = new Config();
+                    config.useSingleServer()
+                            .setAddress("redis://" + node.getHost() + ":" + node.getPort());
+                    clients.add(new RediSearchClient(config));
+                }
+            }
+        } else {
+            clients.add(this.redisSearchClient());
+        }
 
         // chatRoom 인덱스 스키마 정의
         Schema chatRoomSchema = new Schema()
@@ -144,14 +219,30 @@ public class RedisConfig {
 
 
         // 인덱스 생성 (존재하지 않을 경우에만 생성)
-        try {
-            redisSearchClient.getRediSearch(RedisIndex.CHATROOM.getType()).createIndex(chatRoomSchema);
-//            redisSearchClient.getRediSearch(RedisIndex.LOGIN_USER.getType()).createIndex(userSchema);
-            log.info("##### Successfully create Index #####");
-        } catch (Exception e) {
-            log.error("#### Fail to create Index, Maybe already Exist #####");
+        for (RediSearchClient client : clients) {
+            try {
+                client.getRediSearch(RedisIndex.CHATROOM.getType()).createIndex(chatRoomSchema);
+//                client.getRediSearch(RedisIndex.LOGIN_USER.getType()).createIndex(userSchema);
+                log.info("##### Successfully create Index #####");
+            } catch (Exception e) {
+                log.error("#### Fail to create Index, Maybe already Exist #####");
+            }
         }
 
+        return new RediSearchShards(clients);
+    }
+
+    private RediSearchClient redisSearchClient() {
+//        // Redis 서버에 연결 (JedisPooled 사용)
+//        JedisPooled jedisPooled = new JedisPooled(host, Integer.parseInt(masterPort));
+
+        Config config = new Config();
+        config.useMasterSlaveServers()
+                .setMasterAddress("redis://" + host + ":" + masterPort)
+                .addSlaveAddress("redis://" + host + ":" + slavePort);
+
+        // RediSearchClient 생성
+        redisSearchClient = new RediSearchClient(config);
         return redisSearchClient;
     }
 
@@ -0,0 +1,27 @@
+package webChat.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * @Scheduled 작업을 실행하는 스케줄러
+ * 기본 스케줄러는 스레드가 하나라서 통계 수집, 복구 재시도, pipeline pool, 방 정리 배치가 서로를 기다림
+ * => 작업 수에 맞춰 스레드를 늘려서 오래 걸리는 작업이 있어도 짧은 주기의 작업이 밀리지 않도록 함
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Value("${spring.task.scheduling.pool.size:4}")
+    private int poolSize;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("chatforyou-scheduler-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
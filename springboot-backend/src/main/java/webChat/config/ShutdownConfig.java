@@ -1,24 +1,24 @@
 package webChat.config;
 
 import com.google.common.collect.Lists;
-import io.github.dengliming.redismodule.redisearch.index.Document;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.kurento.client.KurentoClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ContextClosedEvent;
-import webChat.model.redis.DataType;
 import webChat.model.redis.RedisIndex;
 import webChat.model.redis.RoomSearchCriteria;
+import webChat.model.room.ChatRoom;
 import webChat.model.room.KurentoRoom;
 import webChat.model.room.RoomState;
+import webChat.service.kurento.KurentoClientPool;
 import webChat.service.kurento.KurentoRoomManager;
 import webChat.service.redis.RedisService;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 
 /**
@@ -30,8 +30,12 @@ import java.util.Map;
 public class ShutdownConfig implements ApplicationListener<ContextClosedEvent> {
 
     private final KurentoRoomManager kurentoRoomManager;
-    private final KurentoClient kurentoClient;
+    private final KurentoClientPool kurentoClientPool;
     private final RedisService redisService;
+    // 서버 종료 시 pipeline release 완료를 기다리는 최대 시간
+    @Value("${chatforyou.kurento.teardown.timeout_ms:10000}")
+    private long teardownTimeoutMs;
+
     private final List<RoomState> ALL_ROOM_STATES = Lists.newArrayList(RoomState.ACTIVE, RoomState.CREATED, RoomState.INACTIVE);
 
     @PostConstruct
@@ -55,28 +59,24 @@ public class ShutdownConfig implements ApplicationListener<ContextClosedEvent> {
                 .keyword("")
                 .roomStates(ALL_ROOM_STATES)
                 .build();
-        for (Document document : redisService.searchRoomListByOptions(searchCriteria)) {
-            if (document.getFields().get("roomId") == null) {
-                continue;
-            }
-            String roomId = document.getFields().get("roomId").toString().replace("\"", "");
-            Map<Object, Object> allChatRoomData = redisService.getAllChatRoomData(roomId);
-            if (allChatRoomData.isEmpty() || allChatRoomData.get(DataType.CHATROOM.getType()) == null) {
-                continue;
-            }
-            KurentoRoom kurentoRoom = (KurentoRoom) allChatRoomData.get("chatroom");
+        List<KurentoRoom> kurentoRooms = new ArrayList<>();
+        for (ChatRoom chatRoom : redisService.searchChatRoomList(searchCriteria)) {
+            KurentoRoom kurentoRoom = (KurentoRoom) chatRoom;
 
             // redis 에서 해당 방의 유저수 및 방 상태 변경
             kurentoRoom.setUserCount(0); // 유저 count 초기화
             kurentoRoom.setRoomState(RoomState.CREATED); // 방 상태 초기화
-            redisService.updateChatRoom(kurentoRoom);
+            redisService.updateRoomState(kurentoRoom.getRoomId(), RoomState.CREATED);
+            redisService.resetUserCount(kurentoRoom.getRoomId());
             log.info("KurentoRoom {} data updated", kurentoRoom.getRoomId());
 
-            kurentoRoomManager.deleteKurentoRoom(kurentoRoom);
-            
+            kurentoRooms.add(kurentoRoom);
         }
 
-        kurentoClient.destroy();
+        // 방마다 pipeline 을 한번만 release, 여러 방을 동시에 정리
+        kurentoRoomManager.deleteKurentoRooms(kurentoRooms, teardownTimeoutMs);
+
+        kurentoClientPool.destroy();
         // 재배포 시 필요한 정리 작업
         log.info("All Kurento Data destroyed - Clean up completed");
     }
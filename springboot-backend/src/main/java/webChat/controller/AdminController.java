@@ -10,6 +10,9 @@ import webChat.model.response.common.ChatForYouResponse;
 import webChat.model.room.KurentoRoom;
 import webChat.model.room.out.ChatRoomOutVo;
 import webChat.service.chatroom.ChatRoomService;
+import webChat.service.kurento.EndpointStatsCollector;
+import webChat.service.kurento.KurentoClientPool;
+import webChat.service.kurento.KurentoMediaServer;
 import webChat.service.redis.RedisService;
 import webChat.utils.JwtUtil;
 
@@ -26,6 +29,8 @@ public class AdminController {
     private final ChatRoomService chatRoomService;
     private final JwtUtil jwtUtil;
     private final RedisService redisService;
+    private final KurentoClientPool kurentoClientPool;
+    private final EndpointStatsCollector endpointStatsCollector;
 
     @Value("${turn.server.urls}")
     private String turnServerUrl;
@@ -102,6 +107,112 @@ public class AdminController {
                 .build());
     }
 
+    /**
+     * KMS 목록 및 부하 정보 return
+     *
+     * @param token
+     * @return kms list
+     * @throws Exception 401
+     */
+    @GetMapping("/kms")
+    public ResponseEntity<List<Map<String, Object>>> mediaServers(@RequestHeader("Authorization") String token) throws Exception {
+        String jwtToken = token.replace("Bearer ", "");
+
+        if (!token.startsWith("Bearer ")) {
+            throw new ExceptionController.UnauthorizedException("Invalid token format");
+        }
+
+        if (!jwtUtil.validateToken(jwtToken)) {
+            throw new ExceptionController.UnauthorizedException("Invalid token format or you have No Auth");
+        }
+
+        List<Map<String, Object>> responses = new ArrayList<>();
+        kurentoClientPool.getServers().forEach(server -> responses.add(this.toMediaServerInfo(server)));
+        return ResponseEntity.ok(responses);
+    }
+
+    /**
+     * KMS 점검을 위해 새로운 방 배치 중단(draining=true) / 재개(draining=false)
+     * 이미 배치된 방은 그대로 유지
+     *
+     * @param serverId
+     * @param token
+     * @return kms info
+     * @throws Exception 401, 404
+     */
+    @PostMapping("/kms/{serverId}/drain")
+    public ResponseEntity<Map<String, Object>> drainMediaServer(
+            @PathVariable String serverId,
+            @RequestParam(value = "draining", required = false, defaultValue = "true") boolean draining,
+            @RequestHeader("Authorization") String token) throws Exception {
+        String jwtToken = token.replace("Bearer ", "");
+
+        if (!token.startsWith("Bearer ")) {
+            throw new ExceptionController.UnauthorizedException("Invalid token format");
+        }
+
+        if (!jwtUtil.validateToken(jwtToken)) {
+            throw new ExceptionController.UnauthorizedException("Invalid token format or you have No Auth");
+        }
+
+        return ResponseEntity.ok(this.toMediaServerInfo(kurentoClientPool.drain(serverId, draining)));
+    }
+
+    /**
+     * 영상 품질이 나쁜 방 목록 return
+     * 품질은 주기적으로 수집한 endpoint 통계(손실률, rtt, jitter) 기준
+     *
+     * @param limit
+     * @param token
+     * @return room quality list
+     * @throws Exception 401
+     */
+    @GetMapping("/kms/rooms/worst")
+    public ResponseEntity<List<Map<String, Object>>> worstRooms(
+            @RequestParam(value = "limit", required = false, defaultValue = "10") int limit,
+            @RequestHeader("Authorization") String token) throws Exception {
+        String jwtToken = token.replace("Bearer ", "");
+
+        if (!token.startsWith("Bearer ")) {
+            throw new ExceptionController.UnauthorizedException("Invalid token format");
+        }
+
+        if (!jwtUtil.validateToken(jwtToken)) {
+            throw new ExceptionController.UnauthorizedException("Invalid token format or you have No Auth");
+        }
+
+        List<Map<String, Object>> responses = new ArrayList<>();
+        endpointStatsCollector.getWorstRooms(limit).forEach(quality -> responses.add(this.toRoomQualityInfo(quality)));
+        return ResponseEntity.ok(responses);
+    }
+
+    private Map<String, Object> toMediaServerInfo(KurentoMediaServer server) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("id", server.getId());
+        info.put("url", server.getUrl());
+        info.put("state", server.getState());
+        info.put("rooms", kurentoClientPool.getPlacedRooms(server).size());
+        info.put("endpoints", kurentoClientPool.getEndpointLoad(server));
+        info.put("cpuUsage", server.getCpuUsage());
+        return info;
+    }
+
+    private Map<String, Object> toRoomQualityInfo(EndpointStatsCollector.RoomQuality quality) {
+        KurentoMediaServer server = kurentoClientPool.getPlacement(quality.roomId());
+        Map<String, Object> info = new HashMap<>();
+        info.put("roomId", quality.roomId());
+        info.put("server", server == null ? null : server.getId());
+        info.put("participants", quality.participants());
+        info.put("score", quality.score());
+        info.put("packetLossRatio", quality.packetLossRatio());
+        info.put("rttMs", quality.rttMs());
+        info.put("jitterMs", quality.jitterMs());
+        info.put("bitrateKbps", quality.bitrateKbps());
+        info.put("frameRate", quality.frameRate());
+        info.put("sampledAt", quality.sampledAt());
+        return info;
+    }
+
     // turn server config
     @PostMapping("/turnconfig")
     @ResponseBody
@@ -213,6 +213,23 @@ public class ExceptionController {
         return result;
     }
 
+    // 동시에 같은 방 정보를 변경해서 재시도 횟수 안에 저장하지 못한 경우
+    public static class RoomUpdateConflictException extends BadRequestException {
+
+        public RoomUpdateConflictException(String message) {
+            super(message);
+        }
+    }
+
+    @ResponseStatus(HttpStatus.CONFLICT)
+    @ExceptionHandler(RoomUpdateConflictException.class)
+    public @ResponseBody Map<String, Object> roomUpdateConflict(){
+        Map<String, Object> result = new HashMap<>();
+        result.put("code", "40901");
+        result.put("message", "Room is being updated by someone else. Please try again.");
+        return result;
+    }
+
     private void printErrorLog(Exception e){
         log.error(">>>>>>> "+e.getMessage());
         if (Objects.nonNull(e.getCause())) {
@@ -19,4 +19,6 @@ public class RoomSearchCriteria {
     int pageNum = 0; // 기본값
     @Builder.Default
     int pageSize = 100; // 기본값
+    @Builder.Default
+    boolean withRoomData = false; // true 면 검색 결과에 chatroom, userCount 필드를 함께 반환
 }
@@ -0,0 +1,8 @@
+package webChat.model.redis;
+
+/**
+ * redis 에서 가져온 값과 가져온 시점의 version
+ * compareAndSet 으로 저장할 때 version 이 같은 경우에만 저장된다
+ */
+public record VersionedData<T>(T data, long version) {
+}
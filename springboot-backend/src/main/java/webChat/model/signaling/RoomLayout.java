@@ -0,0 +1,21 @@
+package webChat.model.signaling;
+
+/**
+ * kurento 방의 미디어 구성
+ * MESH : 참여자마다 다른 참여자의 영상을 각각 받음
+ * COMPOSITE : KMS 에서 모든 참여자의 영상을 하나로 합쳐서 보냄
+ */
+public enum RoomLayout {
+    MESH("mesh"),
+    COMPOSITE("composite");
+
+    private final String value;
+
+    RoomLayout(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -0,0 +1,61 @@
+package webChat.model.signaling;
+
+import java.util.List;
+
+/**
+ * client 가 kurento 시그널링 서버로 보내는 메시지
+ * SignalingCodec 이 json 을 필드 단위로 읽어서 type 별 record 로 변환
+ */
+public sealed interface SignalingMessage {
+
+    SignalingType type();
+
+    record JoinRoom(String roomId, String userId, String nickName) implements SignalingMessage {
+        @Override
+        public SignalingType type() {
+            return SignalingType.JOIN_ROOM;
+        }
+    }
+
+    record ReceiveVideoFrom(String roomId, String sender, String sdpOffer) implements SignalingMessage {
+        @Override
+        public SignalingType type() {
+            return SignalingType.RECEIVE_VIDEO_FROM;
+        }
+    }
+
+    /**
+     * @param name ice candidate 를 보낸 유저의 userId
+     */
+    record OnIceCandidate(String roomId, String name, String candidate, String sdpMid,
+                          int sdpMLineIndex) implements SignalingMessage {
+        @Override
+        public SignalingType type() {
+            return SignalingType.ON_ICE_CANDIDATE;
+        }
+    }
+
+    record LeaveRoom(String roomId) implements SignalingMessage {
+        @Override
+        public SignalingType type() {
+            return SignalingType.LEAVE_ROOM;
+        }
+    }
+
+    record TextOverlay(String roomId, String text) implements SignalingMessage {
+        @Override
+        public SignalingType type() {
+            return SignalingType.TEXT_OVERLAY;
+        }
+    }
+
+    /**
+     * @param senders 현재 화면에 보이는 참여자의 userId 목록
+     */
+    record SubscribeVideo(String roomId, List<String> senders) implements SignalingMessage {
+        @Override
+        public SignalingType type() {
+            return SignalingType.SUBSCRIBE_VIDEO;
+        }
+    }
+}
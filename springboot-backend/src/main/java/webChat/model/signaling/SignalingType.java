@@ -0,0 +1,38 @@
+package webChat.model.signaling;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * client 가 kurento 시그널링 서버로 보내는 메시지 id
+ */
+public enum SignalingType {
+    JOIN_ROOM("joinRoom"),
+    RECEIVE_VIDEO_FROM("receiveVideoFrom"),
+    ON_ICE_CANDIDATE("onIceCandidate"),
+    LEAVE_ROOM("leaveRoom"),
+    TEXT_OVERLAY("textOverlay"),
+    SUBSCRIBE_VIDEO("subscribeVideo");
+
+    private static final Map<String, SignalingType> BY_ID = Arrays.stream(values())
+            .collect(Collectors.toUnmodifiableMap(SignalingType::getId, Function.identity()));
+
+    private final String id;
+
+    SignalingType(String id) {
+        this.id = id;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return 메시지 id 에 해당하는 type, 없으면 null
+     */
+    public static SignalingType fromId(String id) {
+        return id == null ? null : BY_ID.get(id);
+    }
+}
@@ -1,7 +1,6 @@
 package webChat.service.chatroom;
 
 import com.google.common.collect.Lists;
-import io.github.dengliming.redismodule.redisearch.index.Document;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.coyote.BadRequestException;
@@ -13,6 +12,7 @@ import webChat.model.chat.ChatType;
 import webChat.model.redis.DataType;
 import webChat.model.redis.RedisIndex;
 import webChat.model.redis.RoomSearchCriteria;
+import webChat.model.redis.VersionedData;
 import webChat.model.room.ChatRoom;
 import webChat.model.room.KurentoRoom;
 import webChat.model.room.RoomState;
@@ -45,6 +45,10 @@ public class ChatRoomService {
     @Value("${chatforyou.room.max_user_count}")
     private int MAX_USER_COUNT;
 
+    // 방 목록 검색 시 redisSearch 결과에 방 정보를 포함할지 여부
+    @Value("${chatforyou.room.list.search_with_room_data:false}")
+    private boolean searchWithRoomData;
+
     private final List<RoomState> ROOM_STATES = Lists.newArrayList(RoomState.ACTIVE, RoomState.CREATED);
 
     // roomName 로 채팅방 만들기
@@ -66,7 +70,6 @@ public class ChatRoomService {
     // 전체 채팅방 조회
     public List<ChatRoom> getRoomList(String keyword, int pageNum, int pageSize, boolean isAdmin) {
         // 채팅방 생성 순서를 최근순으로 반환
-        List<ChatRoom> chatRoomList = new ArrayList<>();
         pageNum = pageNum !=0 ? pageNum - 1 : pageNum;
 
         RoomSearchCriteria searchCriteria = RoomSearchCriteria.builder()
@@ -75,24 +78,11 @@ public class ChatRoomService {
                 .roomStates(isAdmin ? Collections.emptyList() : ROOM_STATES)
                 .pageNum(pageNum)
                 .pageSize(pageSize)
+                .withRoomData(searchWithRoomData)
                 .build();
-        List<Document> roomList = redisService.searchRoomListByOptions(searchCriteria);
-        for (Document document : roomList) {
-            if (document.getFields().get("roomId") == null) {
-                continue;
-            }
-            String roomId = document.getFields().get("roomId").toString().replace("\"", "");
-            Map<Object, Object> allChatRoomData = redisService.getAllChatRoomData(roomId);
-            if (allChatRoomData.isEmpty() || allChatRoomData.get(DataType.CHATROOM.getType()) == null) {
-                continue;
-            }
-
-            ChatRoom chatRoom = (ChatRoom) allChatRoomData.get("chatroom");
-            chatRoomList.add(chatRoom);
-
-        }
 
-        return chatRoomList;
+        // 검색된 방 정보를 한번에 가져옴
+        return redisService.searchChatRoomList(searchCriteria);
     }
 
     /**
@@ -113,6 +103,7 @@ public class ChatRoomService {
     }
 
     // maxUserCnt 에 따른 채팅방 입장 여부
+    // 입장 전 화면 표시를 위한 확인용으로 실제 정원 확인은 KurentoHandler.joinRoom 의 admitUser 에서 원자적으로 처리
     public boolean chkRoomUserCnt(String roomId) throws BadRequestException {
         ChatRoom chatRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
 
@@ -156,7 +147,7 @@ public class ChatRoomService {
 
         if(kurentoRoom.getUserCount() <= 0) {
             kurentoRoom.deactivate();
-            redisService.updateChatRoom(kurentoRoom);
+            redisService.updateRoomState(kurentoRoom.getRoomId(), RoomState.INACTIVE);
         } else {
             throw new ExceptionController.DelRoomException("Soft Delete Room Exception");
         }
@@ -168,15 +159,50 @@ public class ChatRoomService {
 
     // 채팅방 수정
     public ChatRoom updateRoom(String roomId, String roomName, String roomPwd, int maxUserCnt) throws BadRequestException {
-        ChatRoom chatRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
-        chatRoom.setRoomName(roomName);
-        chatRoom.setRoomPwd(roomPwd);
-        chatRoom.setMaxUserCnt(maxUserCnt);
-        redisService.updateChatRoom(chatRoom);
+        VersionedData<ChatRoom> current = redisService.getChatRoomForUpdate(roomId);
+        if (Objects.isNull(current)) {
+            throw new BadRequestException("Room not found with ID: " + roomId);
+        }
+
+        // 방 이름 변경은 재시도 루프 밖에서 한번만 수행하고, 방 정보 변경에 실패하면 되돌림
+        String oldRoomName = current.data().getRoomName();
+        boolean renamed = !Objects.equals(oldRoomName, roomName);
+        if (renamed && !redisService.renameRoomName(roomId, oldRoomName, roomName)) {
+            throw new ExceptionController.AlreadyExistRoomNameException("room name is already exist : " + roomName);
+        }
+
+        ChatRoom chatRoom;
+        try {
+            // 동시에 다른 곳에서 방 정보를 변경하면 최신 방 정보로 다시 시도
+            chatRoom = redisService.updateChatRoomWithRetry(roomId, KurentoRoom.class, room -> {
+                room.setRoomName(roomName);
+                room.setRoomPwd(roomPwd);
+                room.setMaxUserCnt(maxUserCnt);
+            });
+        } catch (BadRequestException | RuntimeException e) {
+            if (renamed) {
+                this.undoRenameRoomName(roomId, roomName, oldRoomName);
+            }
+            throw e;
+        }
+        if (Objects.isNull(chatRoom)) {
+            if (renamed) {
+                this.undoRenameRoomName(roomId, roomName, oldRoomName);
+            }
+            throw new BadRequestException("Room not found with ID: " + roomId);
+        }
 
         return chatRoom;
     }
 
+    private void undoRenameRoomName(String roomId, String roomName, String oldRoomName) {
+        if (oldRoomName == null) {
+            redisService.releaseRoomName(roomName, roomId);
+        } else if (!redisService.renameRoomName(roomId, roomName, oldRoomName)) {
+            log.error("#### failed to restore room name ::: {} -> {} (roomId : {})", roomName, oldRoomName, roomId);
+        }
+    }
+
     public void validateRoomInfo(String roomName, int maxUserCnt) throws BadRequestException {
         if(maxUserCnt > MAX_USER_COUNT) {
             throw new BadRequestException("can not over max user count : " + maxUserCnt);
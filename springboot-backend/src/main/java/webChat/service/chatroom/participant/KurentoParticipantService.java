@@ -1,9 +1,11 @@
 package webChat.service.chatroom.participant;
 
+import com.google.gson.JsonObject;
 import org.springframework.web.socket.WebSocketSession;
 import webChat.service.kurento.KurentoUserSession;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public interface KurentoParticipantService {
@@ -24,4 +26,8 @@ public interface KurentoParticipantService {
     Collection<String> getParticipantIds(String roomId);
 
     KurentoUserSession getBySessionId(WebSocketSession session);
+
+    List<String> broadcast(String roomId, JsonObject message);
+
+    List<String> broadcast(String roomId, JsonObject message, String excludeUserId);
 }
@@ -1,14 +1,18 @@
 package webChat.service.chatroom.participant.impl;
 
+import com.google.gson.JsonObject;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import webChat.repository.participant.KurentoParticipantRepository;
 import webChat.service.kurento.KurentoUserSession;
 import webChat.service.chatroom.participant.KurentoParticipantService;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -92,4 +96,38 @@ public class KurentoParticipantServiceImpl implements KurentoParticipantService
         return participantRepository.getParticipantBySessionId(session.getId());
     }
 
+    /**
+     * 방의 모든 참가자에게 메시지 전송
+     */
+    @Override
+    public List<String> broadcast(String roomId, JsonObject message) {
+        return this.broadcast(roomId, message, null);
+    }
+
+    /**
+     * 방의 참가자에게 메시지 전송
+     * 메시지는 한번만 직렬화해서 만든 TextMessage 를 모든 참가자의 송신 큐가 공유
+     * @param excludeUserId 메시지를 받지 않을 유저, 없으면 null
+     * @return 송신 큐가 닫혀 메시지를 받지 못한 유저 id
+     */
+    @Override
+    public List<String> broadcast(String roomId, JsonObject message, String excludeUserId) {
+        Collection<KurentoUserSession> participants = this.getParticipantList(roomId);
+        List<String> unNotified = new ArrayList<>(0);
+        if (participants.isEmpty()) {
+            return unNotified;
+        }
+
+        TextMessage frame = new TextMessage(message.toString());
+        for (KurentoUserSession participant : participants) {
+            if (participant.getUserId().equals(excludeUserId)) {
+                continue;
+            }
+            if (!participant.sendMessage(frame)) {
+                unNotified.add(participant.getUserId());
+            }
+        }
+        return unNotified;
+    }
+
 }
@@ -42,13 +42,16 @@ public class CatchMindServiceImpl implements CatchMindService {
 
     @Override
     public boolean chkAlreadyPlayedGame(String roomId) throws BadRequestException {
+        GameSettingInfo gameSettingInfo = redisService.getGameSettingInfo(roomId, false);
+        if (Objects.nonNull(gameSettingInfo)) {
+            return gameSettingInfo.isAlreadyPlayedGame();
+        }
+
+        // 게임 정보가 없는 경우 방 존재 여부만 확인
         KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
         if (Objects.isNull(kurentoRoom)) {
             throw new BadRequestException("Room not found with ID: " + roomId);
         }
-        if (Objects.nonNull(kurentoRoom.getGameSettingInfo()) && kurentoRoom.getGameSettingInfo().isAlreadyPlayedGame()) {
-            return true;
-        }
         return false;
     }
 
@@ -70,12 +73,14 @@ public class CatchMindServiceImpl implements CatchMindService {
     public GameSubjects getSubjects(String roomId, GameSubjects gameSubjects) {
 
         try{
-            KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
-            GameSettingInfo gameSettingInfo = kurentoRoom.getGameSettingInfo();
-            if (Objects.isNull(gameSettingInfo)) {
+            GameSettingInfo gameSettingInfo = redisService.getGameSettingInfo(roomId, true);
+            boolean newGameSetting = Objects.isNull(gameSettingInfo);
+            if (newGameSetting) {
+                if (Objects.isNull(redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class))) {
+                    throw new BadRequestException("Room not found with ID: " + roomId);
+                }
                 gameSettingInfo = new GameSettingInfo();
                 gameSettingInfo.setRoomId(roomId);
-                kurentoRoom.setGameSettingInfo(gameSettingInfo);
             }
             setBeforeSubjects(gameSettingInfo, gameSubjects);
             gameSubjects = HttpUtil.post(catchMindAPI.getUrl()+ gameSubjectUrl, new HttpHeaders(), new ConcurrentHashMap<>(), gameSubjects, GameSubjects.class);
@@ -83,7 +88,12 @@ public class CatchMindServiceImpl implements CatchMindService {
             gameSettingInfo.getBeforeSubjects().put(gameSubjects.getTitle(), gameSubjects.getBeforeSubjects());
             log.info("subjects :: {}",gameSubjects.toString());
 
-            redisService.updateChatRoom(kurentoRoom);
+            // 이전 주제 목록만 변경되기 때문에 게임 진행 정보는 새로 만든 경우에만 저장
+            // 아직 저장된 적이 없는 경우(version 0)에만 저장 => 그 사이 다른 요청이 저장한 게임 정보는 덮어쓰지 않음
+            if (newGameSetting && !redisService.compareAndSetGameSettingInfo(roomId, gameSettingInfo, 0)) {
+                log.debug("game setting of room {} is already created", roomId);
+            }
+            redisService.updateGameBeforeSubjects(roomId, gameSettingInfo.getBeforeSubjects());
             return gameSubjects;
         } catch (Exception e){ // 예외 발생 시 기본 리스트를 반환
             e.printStackTrace();
@@ -96,13 +106,12 @@ public class CatchMindServiceImpl implements CatchMindService {
     public void setGameSettingInfo(GameSettingInfo gameSettingInfo) {
         String roomId = gameSettingInfo.getRoomId();
         try {
-            KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
-            GameSettingInfo gameInfo = kurentoRoom.getGameSettingInfo();
-            gameInfo.setGameUserList(gameSettingInfo.getGameUserList());
-            // TODO 추후에는 선택할 수 있게 하지만 현재는 3 라운드로 고정
-            gameInfo.setTotalGameRound(3);
-            gameInfo.setGameRound(gameSettingInfo.getGameRound());
-            redisService.updateChatRoom(kurentoRoom);
+            redisService.updateGameSettingInfoWithRetry(roomId, gameInfo -> {
+                gameInfo.setGameUserList(gameSettingInfo.getGameUserList());
+                // TODO 추후에는 선택할 수 있게 하지만 현재는 3 라운드로 고정
+                gameInfo.setTotalGameRound(3);
+                gameInfo.setGameRound(gameSettingInfo.getGameRound());
+            });
             log.info(">>>> CatchMind Game is Ready To GO");
         } catch (Exception e) {
             e.printStackTrace();
@@ -111,13 +120,18 @@ public class CatchMindServiceImpl implements CatchMindService {
 
     @Override
     public CatchMindUserDto updateUser(GameStatus gameStatus, String roomId, String userId) throws BadRequestException {
-        KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
+        // 여러 유저의 점수가 동시에 변경될 수 있기 때문에 compareAndSet 으로 저장하고 충돌 시 최신 정보로 다시 계산
+        CatchMindUserDto[] updatedUser = new CatchMindUserDto[1];
+        GameSettingInfo savedGameSettingInfo = redisService.updateGameSettingInfoWithRetry(roomId,
+                gameSettingInfo -> updatedUser[0] = this.applyGameStatus(gameSettingInfo, gameStatus, userId));
         // TODO 예외처리 필요
-        if (Objects.isNull(kurentoRoom)) {
+        if (Objects.isNull(savedGameSettingInfo)) {
             throw new BadRequestException("Room not found with ID: " + roomId);
         }
+        return updatedUser[0];
+    }
 
-        GameSettingInfo gameSettingInfo = kurentoRoom.getGameSettingInfo();
+    private CatchMindUserDto applyGameStatus(GameSettingInfo gameSettingInfo, GameStatus gameStatus, String userId) throws BadRequestException {
         List<CatchMindUserDto> catchMindUserList = gameSettingInfo.getGameUserList();
         if (CollectionUtils.isEmpty(catchMindUserList)) {
             // TODO 예외처리 필요
@@ -148,14 +162,12 @@ public class CatchMindServiceImpl implements CatchMindService {
                 updateUserScore(catchMindUser, this.TOO_MANY_FAIL_SCORE);
                 break;
         }
-        redisService.updateChatRoom(kurentoRoom);
         return catchMindUser;
     }
 
     @Override
     public List<CatchMindUserDto> getGameUserInfos(String roomId) throws BadRequestException {
-        KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
-        List<CatchMindUserDto> gameUserList = kurentoRoom.getGameSettingInfo().getGameUserList();
+        List<CatchMindUserDto> gameUserList = redisService.getGameSettingInfo(roomId, false).getGameUserList();
 
         return gameUserList;
     }
@@ -167,31 +179,29 @@ public class CatchMindServiceImpl implements CatchMindService {
 
     @Override
     public GameSettingInfo getGameResult(String roomId) throws BadRequestException, ExceptionController.SyncGameRound {
-        KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
-
         // 게임 라운드 확인 및 결과 보내주기
-        GameSettingInfo gameSettingInfo = kurentoRoom.getGameSettingInfo();
-        if (CollectionUtils.isEmpty(gameSettingInfo.getGameUserList())) {
-            // TODO 예외처리 필요
-        }
+        GameSettingInfo gameSettingInfo = redisService.updateGameSettingInfoWithRetry(roomId, gameInfo -> {
+            if (CollectionUtils.isEmpty(gameInfo.getGameUserList())) {
+                // TODO 예외처리 필요
+            }
 
-        // 게임 라운드와 전체 라운드가 일치하지 않는 경우
-        // 프론트와 서버 간 라운드 정보가 일치하지 않는 경우 일치를 위한  Exception
-        if (gameSettingInfo.getGameRound() != gameSettingInfo.getTotalGameRound()) {
-            throw new ExceptionController.SyncGameRound(String.valueOf(gameSettingInfo.getGameRound()));
-        }
+            // 게임 라운드와 전체 라운드가 일치하지 않는 경우
+            // 프론트와 서버 간 라운드 정보가 일치하지 않는 경우 일치를 위한  Exception
+            if (gameInfo.getGameRound() != gameInfo.getTotalGameRound()) {
+                throw new ExceptionController.SyncGameRound(String.valueOf(gameInfo.getGameRound()));
+            }
 
-        // score 비교 로직 수행
-        // score 와 wincount 에 가산해서 비교
-        gameSettingInfo.getGameUserList().sort((u1, u2) -> {
-            int score1 = u1.getScore() + u1.getWinCount() * 100;
-            int score2 = u2.getScore() + u2.getWinCount() * 100;
-            return Integer.compare(score2, score1); // 내림차순 정렬
-        });
+            // score 비교 로직 수행
+            // score 와 wincount 에 가산해서 비교
+            gameInfo.getGameUserList().sort((u1, u2) -> {
+                int score1 = u1.getScore() + u1.getWinCount() * 100;
+                int score2 = u2.getScore() + u2.getWinCount() * 100;
+                return Integer.compare(score2, score1); // 내림차순 정렬
+            });
 
-        gameSettingInfo.getGameUserList().get(0).setWiner(true);
-        gameSettingInfo.setAlreadyPlayedGame(true);
-        redisService.updateChatRoom(kurentoRoom);
+            gameInfo.getGameUserList().get(0).setWiner(true);
+            gameInfo.setAlreadyPlayedGame(true);
+        });
         return gameSettingInfo;
     }
 
@@ -0,0 +1,177 @@
+package webChat.service.kurento;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 방 인원 수에 따른 WebRtcEndpoint 대역폭 제한
+ * - mesh : 참여자는 n - 1 개의 영상을 받기 때문에 client_downlink_kbps 를 n - 1 로 나눠서 영상 하나의 대역폭을 정함
+ *   방 전체 송신량 n * (n - 1) * 영상 대역폭 이 room_egress_kbps 를 넘지 않도록 한번 더 제한
+ * - composite : 합쳐진 영상 하나를 받기 때문에 downlink 는 영상 하나의 최대값, uplink 는 타일 크기에 맞춰 n 으로 나눔
+ * - 모든 값은 min_stream_kbps ~ max_stream_kbps 사이로 제한
+ * - 입장 / 퇴장 시 방의 모든 참여자에게 다시 적용, 변화가 작으면 KMS 호출을 생략
+ */
+@Component
+@Slf4j
+public class BandwidthPolicy {
+
+    private static final Pattern RTPMAP = Pattern.compile("^a=rtpmap:(\\d+) ([^/]+)/");
+    private static final Pattern FMTP_APT = Pattern.compile("^a=fmtp:(\\d+) .*apt=(\\d+)");
+
+    private final KurentoParticipantService participantService;
+
+    @Value("${chatforyou.kurento.bandwidth.enabled:true}")
+    private boolean enabled;
+
+    // 참여자 한명이 받을 수 있는 영상 대역폭 합계
+    @Value("${chatforyou.kurento.bandwidth.client_downlink_kbps:2500}")
+    private int clientDownlinkKbps;
+
+    // 방 하나에서 KMS 가 보내는 영상 대역폭 합계
+    @Value("${chatforyou.kurento.bandwidth.room_egress_kbps:40000}")
+    private int roomEgressKbps;
+
+    @Value("${chatforyou.kurento.bandwidth.max_stream_kbps:1500}")
+    private int maxStreamKbps;
+
+    @Value("${chatforyou.kurento.bandwidth.min_stream_kbps:100}")
+    private int minStreamKbps;
+
+    // sdpOffer 에서 우선으로 사용할 video codec (VP8, H264 ...), 비어있으면 client 순서 그대로 사용
+    @Value("${chatforyou.kurento.bandwidth.preferred_codec:}")
+    private String preferredCodec;
+
+    /**
+     * @param uplinkMaxKbps   '나'의 영상을 KMS 가 받는 최대 대역폭
+     * @param downlinkMaxKbps KMS 가 '나'에게 보내는 영상 하나의 최대 대역폭
+     * @param minKbps         congestion 상황에서도 유지할 최소 대역폭
+     */
+    public record Limits(int uplinkMaxKbps, int downlinkMaxKbps, int minKbps) {
+
+        /**
+         * 10% 이상 바뀐 경우에만 다시 적용
+         */
+        boolean differsSignificantly(Limits other) {
+            return other == null
+                    || Math.abs(uplinkMaxKbps - other.uplinkMaxKbps) * 10 > other.uplinkMaxKbps
+                    || Math.abs(downlinkMaxKbps - other.downlinkMaxKbps) * 10 > other.downlinkMaxKbps
+                    || minKbps != other.minKbps;
+        }
+    }
+
+    public BandwidthPolicy(KurentoParticipantService participantService) {
+        this.participantService = participantService;
+    }
+
+    /**
+     * 방 인원 수와 구성에 따른 대역폭 제한
+     */
+    public Limits limitsFor(int participantCount, boolean composite) {
+        int count = Math.max(1, participantCount);
+        if (composite) {
+            int downlink = this.clamp(Math.min(clientDownlinkKbps, maxStreamKbps));
+            int uplink = this.clamp(clientDownlinkKbps / count);
+            return new Limits(uplink, downlink, minStreamKbps);
+        }
+
+        int streams = Math.max(1, count - 1);
+        long perStream = Math.min(clientDownlinkKbps / streams, roomEgressKbps / ((long) count * streams));
+        int stream = this.clamp((int) perStream);
+        return new Limits(stream, stream, minStreamKbps);
+    }
+
+    /**
+     * 방의 모든 참여자에게 현재 인원 수에 맞는 대역폭 제한 적용
+     */
+    public void apply(String roomId) {
+        if (!enabled) {
+            return;
+        }
+        Collection<KurentoUserSession> participants = participantService.getParticipantList(roomId);
+        for (KurentoUserSession participant : participants) {
+            Limits limits = this.limitsFor(participants.size(), participant.isComposite());
+            try {
+                participant.applyBandwidth(limits);
+            } catch (Exception e) {
+                log.debug("PARTICIPANT {}: could not apply bandwidth limits ::: {}", participant.getUserId(), e.getMessage());
+            }
+        }
+        log.debug("ROOM {}: bandwidth limits applied for {} participants", roomId, participants.size());
+    }
+
+    /**
+     * sdpOffer 의 video m-line 에서 preferred_codec 과 해당 codec 의 rtx payload 를 앞으로 이동
+     * KMS 는 offer 의 순서대로 codec 을 선택하기 때문에 sdpAnswer 에서 preferred_codec 이 사용됨
+     * preferred_codec 이 없거나 offer 에 해당 codec 이 없으면 그대로 return
+     */
+    public String preferCodec(String sdpOffer) {
+        if (!enabled || preferredCodec == null || preferredCodec.isBlank() || sdpOffer == null) {
+            return sdpOffer;
+        }
+
+        String lineSeparator = sdpOffer.contains("\r\n") ? "\r\n" : "\n";
+        String[] lines = sdpOffer.split("\r?\n", -1);
+
+        int videoLine = -1;
+        List<String> preferred = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i].startsWith("m=")) {
+                if (videoLine >= 0) {
+                    break;
+                }
+                if (lines[i].startsWith("m=video")) {
+                    videoLine = i;
+                }
+                continue;
+            }
+            if (videoLine < 0) {
+                continue;
+            }
+            Matcher rtpmap = RTPMAP.matcher(lines[i]);
+            if (rtpmap.find() && rtpmap.group(2).equalsIgnoreCase(preferredCodec)) {
+                preferred.add(rtpmap.group(1));
+            }
+        }
+        if (videoLine < 0 || preferred.isEmpty()) {
+            return sdpOffer;
+        }
+
+        // rtx 등 preferred codec 을 참조하는 payload 도 함께 이동
+        List<String> related = new ArrayList<>(preferred);
+        for (int i = videoLine + 1; i < lines.length && !lines[i].startsWith("m="); i++) {
+            Matcher apt = FMTP_APT.matcher(lines[i]);
+            if (apt.find() && preferred.contains(apt.group(2))) {
+                related.add(apt.group(1));
+            }
+        }
+
+        // m=video <port> <proto> <payload types...>
+        String[] parts = lines[videoLine].split(" ");
+        if (parts.length <= 3) {
+            return sdpOffer;
+        }
+        StringBuilder mLine = new StringBuilder(parts[0]).append(' ').append(parts[1]).append(' ').append(parts[2]);
+        for (String payloadType : related) {
+            mLine.append(' ').append(payloadType);
+        }
+        for (int i = 3; i < parts.length; i++) {
+            if (!related.contains(parts[i])) {
+                mLine.append(' ').append(parts[i]);
+            }
+        }
+        lines[videoLine] = mLine.toString();
+        return String.join(lineSeparator, lines);
+    }
+
+    private int clamp(int kbps) {
+        return Math.max(minStreamKbps, Math.min(maxStreamKbps, kbps));
+    }
+}
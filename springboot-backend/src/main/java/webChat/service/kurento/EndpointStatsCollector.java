@@ -0,0 +1,378 @@
+package webChat.service.kurento;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.kurento.client.MediaType;
+import org.kurento.client.RTCInboundRTPStreamStats;
+import org.kurento.client.RTCMediaStreamTrackStats;
+import org.kurento.client.RTCOutboundRTPStreamStats;
+import org.kurento.client.Stats;
+import org.kurento.client.WebRtcEndpoint;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebRtcEndpoint 영상 통계 수집
+ * - cycle_ms 마다 모든 참여자의 outgoingMedia(uplink) / incomingMedia(downlink) 를 대상으로 getStats 호출
+ * - 한번에 몰리지 않도록 tick_ms 마다 최대 per_tick 개씩 나눠서 요청하고, 동시에 기다리는 요청은 max_in_flight 개로 제한
+ * - 이전 cycle 이 끝나지 않았으면 다음 cycle 은 건너뜀 => KMS 가 느려져도 요청이 쌓이지 않음
+ * - metric tag 는 방 인원 구간(room_size) 과 방향(direction) 만 사용 => 유저 / 방 수와 상관없이 meter 수가 고정
+ * - 방별 품질은 EWMA 로 유지하고 관리자 API 에서 품질이 나쁜 방 순서로 조회
+ */
+@Component
+@Slf4j
+public class EndpointStatsCollector {
+
+    private final MediaPipelineManager mediaPipelineManager;
+    private final KurentoParticipantService participantService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chatforyou.kurento.stats.enabled:true}")
+    private boolean enabled;
+
+    // 모든 endpoint 를 한번씩 수집하는 주기
+    @Value("${chatforyou.kurento.stats.cycle_ms:15000}")
+    private long cycleMs;
+
+    // tick 마다 요청할 최대 endpoint 수
+    @Value("${chatforyou.kurento.stats.per_tick:8}")
+    private int perTick;
+
+    // 응답을 기다리는 최대 getStats 요청 수
+    @Value("${chatforyou.kurento.stats.max_in_flight:4}")
+    private int maxInFlight;
+
+    @Value("${chatforyou.kurento.stats.timeout_ms:3000}")
+    private long timeoutMs;
+
+    // 방 품질 EWMA 가중치
+    private static final double EWMA_ALPHA = 0.3;
+
+    // 방 인원 구간 : 2명 이하, 3~4, 5~8, 9~16, 17명 이상
+    private static final int[] ROOM_SIZE_BUCKETS = {2, 4, 8, 16};
+
+    enum Direction {
+        // KMS 가 참여자의 영상을 받는 방향 : outgoingMedia
+        UPLINK,
+        // KMS 가 참여자에게 다른 참여자의 영상을 보내는 방향 : incomingMedia
+        DOWNLINK
+    }
+
+    /**
+     * 관리자 API 에서 사용하는 방 품질
+     *
+     * @param score 품질 점수, 클수록 나쁨 => 손실률 1% = rtt 50ms = jitter 10ms
+     */
+    public record RoomQuality(String roomId, int participants, double score, double packetLossRatio,
+                              double rttMs, double jitterMs, double bitrateKbps, double frameRate, long sampledAt) {}
+
+    /**
+     * 수집하는 값 => meter 이름
+     */
+    private enum Metric {
+        RTT("chatforyou_kurento_endpoint_rtt_ms"),
+        JITTER("chatforyou_kurento_endpoint_jitter_ms"),
+        PACKET_LOSS("chatforyou_kurento_endpoint_packet_loss_ratio"),
+        BITRATE("chatforyou_kurento_endpoint_bitrate_kbps"),
+        FRAME_RATE("chatforyou_kurento_endpoint_frame_rate");
+
+        private final String meterName;
+
+        Metric(String meterName) {
+            this.meterName = meterName;
+        }
+    }
+
+    record Target(String roomId, int roomSize, WebRtcEndpoint endpoint, Direction direction) {}
+
+    private record Counters(long bytes, long packets, long lost, long nanos) {}
+
+    // 이번 cycle 에서 아직 요청하지 않은 endpoint
+    private final Queue<Target> pending = new ConcurrentLinkedQueue<>();
+    private long nextCycleAt;
+
+    // endpoint id : 이전 수집 시점의 누적값 => 다음 수집에서 bitrate / 손실률 계산
+    private final Map<String, Counters> lastCounters = new ConcurrentHashMap<>();
+
+    // roomId : 방 품질
+    private final Map<String, RoomStats> rooms = new ConcurrentHashMap<>();
+
+    // [metric][room_size 구간][direction] => init 에서 미리 등록해두고 수집할 때는 조회만 함
+    private DistributionSummary[][][] summaries;
+
+    private Semaphore inFlight;
+    private Counter skippedCycles;
+    private Counter failedSamples;
+
+    public EndpointStatsCollector(MediaPipelineManager mediaPipelineManager, KurentoParticipantService participantService,
+                                  MeterRegistry meterRegistry) {
+        this.mediaPipelineManager = mediaPipelineManager;
+        this.participantService = participantService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    private void init() {
+        inFlight = new Semaphore(Math.max(1, maxInFlight));
+        skippedCycles = Counter.builder("chatforyou_kurento_stats_skipped_cycles")
+                .description("stats cycles skipped because the previous cycle was not finished")
+                .register(meterRegistry);
+        failedSamples = Counter.builder("chatforyou_kurento_stats_failed").register(meterRegistry);
+
+        Metric[] metrics = Metric.values();
+        Direction[] directions = Direction.values();
+        summaries = new DistributionSummary[metrics.length][ROOM_SIZE_BUCKETS.length + 1][directions.length];
+        for (Metric metric : metrics) {
+            for (int bucket = 0; bucket <= ROOM_SIZE_BUCKETS.length; bucket++) {
+                for (Direction direction : directions) {
+                    summaries[metric.ordinal()][bucket][direction.ordinal()] = DistributionSummary.builder(metric.meterName)
+                            .tag("room_size", bucketName(bucket))
+                            .tag("direction", direction.name().toLowerCase())
+                            .publishPercentiles(0.5, 0.95)
+                            .register(meterRegistry);
+                }
+            }
+        }
+
+        // pipeline 이 제거된 방은 품질 정보도 제거
+        mediaPipelineManager.addReleaseListener(rooms::remove);
+    }
+
+    @Scheduled(fixedDelayString = "${chatforyou.kurento.stats.tick_ms:250}")
+    public void tick() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now >= nextCycleAt) {
+            nextCycleAt = now + cycleMs;
+            if (pending.isEmpty()) {
+                this.startCycle();
+            } else {
+                skippedCycles.increment();
+            }
+        }
+
+        for (int i = 0; i < perTick && inFlight.tryAcquire(); i++) {
+            Target target = pending.poll();
+            if (target == null) {
+                inFlight.release();
+                return;
+            }
+            this.sample(target);
+        }
+    }
+
+    /**
+     * 현재 모든 방의 endpoint 를 수집 대상에 추가
+     * 사라진 endpoint 의 누적값과 참여자가 없는 방의 품질 정보는 제거
+     */
+    private void startCycle() {
+        Set<String> endpointIds = new HashSet<>();
+        Set<String> roomIds = mediaPipelineManager.getRoomIds();
+        for (String roomId : roomIds) {
+            Collection<KurentoUserSession> participants = participantService.getParticipantList(roomId);
+            int roomSize = participants.size();
+            for (KurentoUserSession participant : participants) {
+                this.addTarget(new Target(roomId, roomSize, participant.getOutgoingMedia(), Direction.UPLINK), endpointIds);
+                for (WebRtcEndpoint incoming : participant.getIncomingMedia().values()) {
+                    this.addTarget(new Target(roomId, roomSize, incoming, Direction.DOWNLINK), endpointIds);
+                }
+            }
+            if (roomSize == 0) {
+                rooms.remove(roomId);
+            }
+        }
+        lastCounters.keySet().retainAll(endpointIds);
+        rooms.keySet().retainAll(roomIds);
+    }
+
+    private void addTarget(Target target, Set<String> endpointIds) {
+        pending.add(target);
+        endpointIds.add(target.endpoint().getId());
+    }
+
+    private void sample(Target target) {
+        KurentoFutures.<Map<String, Stats>>call(continuation -> target.endpoint().getStats(MediaType.VIDEO, continuation))
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((stats, cause) -> {
+                    inFlight.release();
+                    if (cause != null) {
+                        // 수집 중에 참여자가 나가서 endpoint 가 release 된 경우도 포함
+                        failedSamples.increment();
+                        log.trace("Could not get stats of endpoint {} ::: {}", target.endpoint().getId(), cause.getMessage());
+                        return;
+                    }
+                    this.record(target, stats);
+                });
+    }
+
+    private void record(Target target, Map<String, Stats> stats) {
+        this.record(target, stats, System.nanoTime());
+    }
+
+    void record(Target target, Map<String, Stats> stats, long nanos) {
+        long bytes = 0;
+        long packets = 0;
+        long lost = 0;
+        double rttMs = -1;
+        double jitterMs = -1;
+        double frameRate = -1;
+
+        for (Stats stat : stats.values()) {
+            if (target.direction() == Direction.UPLINK && stat instanceof RTCInboundRTPStreamStats inbound) {
+                bytes += inbound.getBytesReceived();
+                packets += inbound.getPacketsReceived() + inbound.getPacketsLost();
+                lost += inbound.getPacketsLost();
+                jitterMs = Math.max(jitterMs, inbound.getJitter() * 1000);
+            } else if (target.direction() == Direction.DOWNLINK && stat instanceof RTCOutboundRTPStreamStats outbound) {
+                // 손실은 receiver 가 RTCP 로 알려준 값
+                bytes += outbound.getBytesSent();
+                packets += outbound.getPacketsSent();
+                lost += outbound.getPacketsLost();
+                rttMs = Math.max(rttMs, outbound.getRoundTripTime() * 1000);
+            } else if (stat instanceof RTCMediaStreamTrackStats track && track.getFramesPerSecond() > 0) {
+                frameRate = Math.max(frameRate, track.getFramesPerSecond());
+            }
+        }
+
+        // bitrate / 손실률은 이전 수집과의 차이로 계산 => 첫 수집에서는 기록하지 않음
+        double bitrateKbps = -1;
+        double lossRatio = -1;
+        Counters current = new Counters(bytes, packets, lost, nanos);
+        Counters previous = lastCounters.put(target.endpoint().getId(), current);
+        if (previous != null && current.bytes() >= previous.bytes() && current.nanos() > previous.nanos()) {
+            bitrateKbps = (current.bytes() - previous.bytes()) * 8.0 / 1000
+                    / ((current.nanos() - previous.nanos()) / 1_000_000_000.0);
+            long packetDelta = current.packets() - previous.packets();
+            if (packetDelta > 0) {
+                lossRatio = Math.min(1.0, Math.max(0, current.lost() - previous.lost()) / (double) packetDelta);
+            }
+        }
+
+        int bucket = roomSizeBucketIndex(target.roomSize());
+        this.recordSummary(Metric.RTT, bucket, target.direction(), rttMs);
+        this.recordSummary(Metric.JITTER, bucket, target.direction(), jitterMs);
+        this.recordSummary(Metric.PACKET_LOSS, bucket, target.direction(), lossRatio);
+        this.recordSummary(Metric.BITRATE, bucket, target.direction(), bitrateKbps);
+        this.recordSummary(Metric.FRAME_RATE, bucket, target.direction(), frameRate);
+
+        rooms.computeIfAbsent(target.roomId(), RoomStats::new)
+                .update(target.roomSize(), lossRatio, rttMs, jitterMs, bitrateKbps, frameRate);
+    }
+
+    /**
+     * 값이 없는 경우(-1) 는 기록하지 않음
+     */
+    private void recordSummary(Metric metric, int bucket, Direction direction, double value) {
+        if (value < 0) {
+            return;
+        }
+        summaries[metric.ordinal()][bucket][direction.ordinal()].record(value);
+    }
+
+    static String roomSizeBucket(int roomSize) {
+        return bucketName(roomSizeBucketIndex(roomSize));
+    }
+
+    private static int roomSizeBucketIndex(int roomSize) {
+        for (int i = 0; i < ROOM_SIZE_BUCKETS.length; i++) {
+            if (roomSize <= ROOM_SIZE_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return ROOM_SIZE_BUCKETS.length;
+    }
+
+    /**
+     * 구간 이름 : 1-2, 3-4, 5-8, 9-16, 17+
+     */
+    private static String bucketName(int bucket) {
+        int lower = bucket == 0 ? 1 : ROOM_SIZE_BUCKETS[bucket - 1] + 1;
+        return bucket < ROOM_SIZE_BUCKETS.length ? lower + "-" + ROOM_SIZE_BUCKETS[bucket] : lower + "+";
+    }
+
+    /**
+     * 품질 점수가 나쁜 순서로 limit 개의 방 return
+     */
+    public List<RoomQuality> getWorstRooms(int limit) {
+        List<RoomQuality> qualities = new ArrayList<>();
+        for (RoomStats roomStats : rooms.values()) {
+            qualities.add(roomStats.snapshot());
+        }
+        qualities.sort(Comparator.comparingDouble(RoomQuality::score).reversed());
+        return qualities.subList(0, Math.min(Math.max(0, limit), qualities.size()));
+    }
+
+    /**
+     * 방 품질 EWMA, 아직 값이 없는 항목은 NaN, 이번 수집에 값이 없는 항목은 이전 값을 유지
+     */
+    static class RoomStats {
+        private final String roomId;
+        private int participants;
+        private double packetLossRatio = Double.NaN;
+        private double rttMs = Double.NaN;
+        private double jitterMs = Double.NaN;
+        private double bitrateKbps = Double.NaN;
+        private double frameRate = Double.NaN;
+        private long sampledAt;
+
+        RoomStats(String roomId) {
+            this.roomId = roomId;
+        }
+
+        synchronized void update(int participants, double lossRatio, double rttMs, double jitterMs,
+                                 double bitrateKbps, double frameRate) {
+            this.participants = participants;
+            this.packetLossRatio = ewma(this.packetLossRatio, lossRatio);
+            this.rttMs = ewma(this.rttMs, rttMs);
+            this.jitterMs = ewma(this.jitterMs, jitterMs);
+            this.bitrateKbps = ewma(this.bitrateKbps, bitrateKbps);
+            this.frameRate = ewma(this.frameRate, frameRate);
+            this.sampledAt = System.currentTimeMillis();
+        }
+
+        private static double ewma(double current, double value) {
+            if (value < 0) {
+                return current;
+            }
+            return Double.isNaN(current) ? value : current + EWMA_ALPHA * (value - current);
+        }
+
+        /**
+         * 값이 없는 항목은 -1 로 return
+         */
+        synchronized RoomQuality snapshot() {
+            double score = orZero(packetLossRatio) * 100 + orZero(rttMs) / 50 + orZero(jitterMs) / 10;
+            return new RoomQuality(roomId, participants, score, orUnknown(packetLossRatio), orUnknown(rttMs),
+                    orUnknown(jitterMs), orUnknown(bitrateKbps), orUnknown(frameRate), sampledAt);
+        }
+
+        private static double orZero(double value) {
+            return Double.isNaN(value) ? 0 : value;
+        }
+
+        private static double orUnknown(double value) {
+            return Double.isNaN(value) ? -1 : value;
+        }
+    }
+}
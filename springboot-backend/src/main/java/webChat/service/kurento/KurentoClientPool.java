@@ -0,0 +1,326 @@
+package webChat.service.kurento;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kurento.client.KurentoClient;
+import org.kurento.client.KurentoConnectionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import webChat.controller.ExceptionController;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 여러 Kurento Media Server 에 대한 KurentoClient pool
+ * - 새로운 방의 pipeline 은 가장 부하가 적은 ACTIVE 서버에 배치하고 방 - 서버 배치 정보를 유지
+ * - 부하 : ENDPOINTS => 배치된 방의 endpoint 수 합계(방마다 참여자 n 명이면 n * n), CPU => ServerManager cpu 사용률
+ * - drain : 점검할 서버에 새로운 방을 배치하지 않음
+ * - failover : 서버 연결이 끊기고 disconnect_grace_ms 안에 같은 서버로 재연결되지 않으면
+ *   해당 서버에 배치된 방의 배치 정보를 제거하고 listener 에게 알림 => 다음 입장 시 다른 서버에 다시 배치됨
+ */
+@Slf4j
+public class KurentoClientPool {
+
+    public enum PlacementStrategy {
+        ENDPOINTS, CPU
+    }
+
+    private final KurentoParticipantService participantService;
+    private final PlacementStrategy placementStrategy;
+
+    // cpu 사용률 조회 시 측정 시간(ms)
+    @Value("${chatforyou.kurento.cpu_sample_ms:500}")
+    private int cpuSampleMs = 500;
+
+    // 연결이 끊긴 후 DOWN 으로 처리하기 전에 재연결을 기다리는 시간, 0 이면 바로 DOWN
+    @Value("${chatforyou.kurento.disconnect_grace_ms:5000}")
+    private long disconnectGraceMs = 5000;
+
+    private final Map<String, KurentoMediaServer> servers = new ConcurrentHashMap<>();
+    // roomId : serverId
+    private final Map<String, String> placements = new ConcurrentHashMap<>();
+    private final List<BiConsumer<KurentoMediaServer, Collection<String>>> serverDownListeners = new CopyOnWriteArrayList<>();
+    // serverId : 재연결을 기다린 후 실행할 failover
+    private final Map<String, ScheduledFuture<?>> pendingFailovers = new ConcurrentHashMap<>();
+    private ScheduledExecutorService graceScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "kms-disconnect-grace");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public KurentoClientPool(KurentoParticipantService participantService, PlacementStrategy placementStrategy) {
+        this.participantService = participantService;
+        this.placementStrategy = placementStrategy;
+    }
+
+    /**
+     * KMS 연결 후 pool 에 등록
+     *
+     * @param clientFactory 연결 상태 listener 를 받아서 KurentoClient 를 생성
+     * @return 등록된 서버, 연결에 실패한 경우 null
+     */
+    public KurentoMediaServer connect(String url, Function<KurentoConnectionListener, KurentoClient> clientFactory) {
+        String id = "kms-" + servers.size();
+        KurentoMediaServer[] holder = new KurentoMediaServer[1];
+
+        KurentoClient client;
+        try {
+            client = clientFactory.apply(new KurentoConnectionListener() {
+                @Override
+                public void connected() {
+                    log.info("KMS {} connected : {}", id, url);
+                }
+
+                @Override
+                public void connectionFailed() {
+                    log.warn("KMS {} connection failed : {}", id, url);
+                    if (holder[0] != null) {
+                        KurentoClientPool.this.failover(holder[0]);
+                    }
+                }
+
+                @Override
+                public void disconnected() {
+                    log.warn("KMS {} disconnected : {}", id, url);
+                    if (holder[0] != null) {
+                        KurentoClientPool.this.disconnected(holder[0]);
+                    }
+                }
+
+                @Override
+                public void reconnected(boolean sameServer) {
+                    log.info("KMS {} reconnected (sameServer={}) : {}", id, sameServer, url);
+                    if (holder[0] != null) {
+                        KurentoClientPool.this.reconnected(holder[0], sameServer);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("Could not connect to KMS {} ::: {}", url, e.getMessage());
+            return null;
+        }
+
+        KurentoMediaServer server = new KurentoMediaServer(id, url, client);
+        holder[0] = server;
+        servers.put(id, server);
+        return server;
+    }
+
+    /**
+     * 서버가 DOWN 된 경우 실행할 listener 등록
+     * listener 는 해당 서버와 서버에 배치되어 있던 roomId 목록을 받음
+     */
+    public void addServerDownListener(BiConsumer<KurentoMediaServer, Collection<String>> listener) {
+        serverDownListeners.add(listener);
+    }
+
+    public Collection<KurentoMediaServer> getServers() {
+        return servers.values().stream()
+                .sorted(Comparator.comparing(KurentoMediaServer::getId))
+                .toList();
+    }
+
+    public KurentoMediaServer getServer(String serverId) {
+        KurentoMediaServer server = servers.get(serverId);
+        if (server == null) {
+            throw new ExceptionController.ResourceNotFoundException("kms not found : " + serverId);
+        }
+        return server;
+    }
+
+    /**
+     * 방이 배치된 서버, 배치되지 않았으면 null
+     */
+    public KurentoMediaServer getPlacement(String roomId) {
+        String serverId = placements.get(roomId);
+        return serverId == null ? null : servers.get(serverId);
+    }
+
+    /**
+     * 방을 서버에 배치
+     * 이미 배치된 방은 서버가 DOWN 이 아니면 같은 서버를 return, 아니면 가장 부하가 적은 ACTIVE 서버에 배치
+     */
+    public KurentoMediaServer place(String roomId) {
+        String placed = placements.get(roomId);
+        if (this.isPlaceable(placed)) {
+            return servers.get(placed);
+        }
+
+        // 부하 계산은 placements 를 순회하기 때문에 compute 밖에서 미리 계산
+        KurentoMediaServer selected = this.selectLeastLoaded();
+        String serverId = placements.compute(roomId, (key, current) -> {
+            if (this.isPlaceable(current)) {
+                return current;
+            }
+            log.info("ROOM {}: placed on KMS {}", roomId, selected.getId());
+            return selected.getId();
+        });
+        return servers.get(serverId);
+    }
+
+    private boolean isPlaceable(String serverId) {
+        KurentoMediaServer server = serverId == null ? null : servers.get(serverId);
+        return server != null && server.getState() != KurentoMediaServer.State.DOWN;
+    }
+
+    /**
+     * 방 배치 정보 제거
+     */
+    public void unplace(String roomId) {
+        placements.remove(roomId);
+    }
+
+    /**
+     * 점검을 위해 새로운 방 배치 중단 / 재개
+     */
+    public KurentoMediaServer drain(String serverId, boolean draining) {
+        KurentoMediaServer server = this.getServer(serverId);
+        server.setDraining(draining);
+        log.info("KMS {} draining={}, rooms={}", serverId, draining, this.getPlacedRooms(server).size());
+        return server;
+    }
+
+    public List<String> getPlacedRooms(KurentoMediaServer server) {
+        List<String> rooms = new ArrayList<>();
+        placements.forEach((roomId, serverId) -> {
+            if (serverId.equals(server.getId())) {
+                rooms.add(roomId);
+            }
+        });
+        return rooms;
+    }
+
+    /**
+     * 서버에 배치된 방들의 endpoint 수 합계
+     * 참여자가 n 명인 방은 outgoing n 개 + incoming n * (n - 1) 개 => n * n
+     * 아직 참여자가 없는 방도 곧 입장할 것이기 때문에 1 로 계산
+     */
+    public long getEndpointLoad(KurentoMediaServer server) {
+        return this.getEndpointLoads().getOrDefault(server.getId(), 0L);
+    }
+
+    /**
+     * serverId : endpoint 수 합계, placements 를 한번만 순회
+     */
+    private Map<String, Long> getEndpointLoads() {
+        Map<String, Long> loads = new HashMap<>();
+        placements.forEach((roomId, serverId) -> {
+            long count = Math.max(1, participantService.getParticipantCount(roomId));
+            loads.merge(serverId, count * count, Long::sum);
+        });
+        return loads;
+    }
+
+    private KurentoMediaServer selectLeastLoaded() {
+        Map<String, Long> loads = this.getEndpointLoads();
+        Comparator<KurentoMediaServer> endpointLoad = Comparator.comparingLong(server -> loads.getOrDefault(server.getId(), 0L));
+        Comparator<KurentoMediaServer> comparator = PlacementStrategy.CPU.equals(placementStrategy)
+                ? Comparator.comparingDouble(KurentoMediaServer::getCpuUsage).thenComparing(endpointLoad)
+                : endpointLoad;
+
+        return servers.values().stream()
+                .filter(KurentoMediaServer::isActive)
+                .min(comparator.thenComparing(KurentoMediaServer::getId))
+                .orElseThrow(() -> new ExceptionController.InternalServerError("there is no available media server"));
+    }
+
+    /**
+     * 연결이 끊기면 새로운 방은 배치하지 않고 disconnect_grace_ms 동안 재연결을 기다린 후 failover
+     * kurento client 는 연결이 끊기면 자동으로 재연결을 시도하고, 같은 서버에 재연결되면 pipeline 이 그대로 남아있음
+     */
+    void disconnected(KurentoMediaServer server) {
+        if (disconnectGraceMs <= 0) {
+            this.failover(server);
+            return;
+        }
+        if (!server.markDisconnected()) {
+            return;
+        }
+        pendingFailovers.computeIfAbsent(server.getId(), id -> graceScheduler.schedule(() -> {
+            pendingFailovers.remove(id);
+            this.failover(server);
+        }, disconnectGraceMs, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * 같은 서버에 재연결되면 기다리던 failover 를 취소
+     * 다른 서버(KMS 재시작 등)에 연결된 경우 기존 pipeline 이 사라졌기 때문에 바로 failover 후 다시 배치 대상으로 전환
+     */
+    void reconnected(KurentoMediaServer server, boolean sameServer) {
+        ScheduledFuture<?> pending = pendingFailovers.remove(server.getId());
+        if (pending != null) {
+            pending.cancel(false);
+        }
+        if (!sameServer) {
+            this.failover(server);
+        }
+        server.markUp();
+    }
+
+    /**
+     * 서버를 DOWN 으로 바꾸고 해당 서버에 배치된 방을 다른 서버에 다시 배치할 수 있도록 배치 정보 제거
+     */
+    void failover(KurentoMediaServer server) {
+        if (server.getState() == KurentoMediaServer.State.DOWN) {
+            return;
+        }
+        server.markDown();
+
+        List<String> rooms = this.getPlacedRooms(server);
+        rooms.forEach(roomId -> placements.remove(roomId, server.getId()));
+        log.warn("KMS {} is down, {} rooms will be placed on other servers", server.getId(), rooms.size());
+
+        for (BiConsumer<KurentoMediaServer, Collection<String>> listener : serverDownListeners) {
+            try {
+                listener.accept(server, rooms);
+            } catch (Exception e) {
+                log.error("KMS {} server down listener failed ::: {}", server.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * CPU 배치 전략인 경우 각 서버의 cpu 사용률 갱신
+     */
+    @Scheduled(fixedDelayString = "${chatforyou.kurento.stats_interval_ms:10000}")
+    public void refreshServerStats() {
+        if (!PlacementStrategy.CPU.equals(placementStrategy)) {
+            return;
+        }
+        for (KurentoMediaServer server : servers.values()) {
+            if (server.getState() == KurentoMediaServer.State.DOWN
+                    || server.getState() == KurentoMediaServer.State.DISCONNECTED) {
+                continue;
+            }
+            try {
+                server.setCpuUsage(server.getClient().getServerManager().getUsedCpu(cpuSampleMs));
+            } catch (Exception e) {
+                log.debug("Could not get cpu usage of KMS {} ::: {}", server.getId(), e.getMessage());
+            }
+        }
+    }
+
+    public void destroy() {
+        graceScheduler.shutdownNow();
+        for (KurentoMediaServer server : servers.values()) {
+            try {
+                server.getClient().destroy();
+            } catch (Exception e) {
+                log.debug("Could not destroy KurentoClient of KMS {} ::: {}", server.getId(), e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package webChat.service.kurento;
+
+import org.kurento.client.Continuation;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * kurento client 비동기 API(Continuation) 를 CompletableFuture 로 변환
+ * Continuation 은 kurento client 의 스레드에서 실행되기 때문에 이어지는 작업에서 blocking 호출을 하지 않도록 주의
+ */
+final class KurentoFutures {
+
+    private KurentoFutures() {}
+
+    /**
+     * @param call Continuation 을 받아서 kurento 비동기 API 를 호출
+     * @return 호출 결과를 받으면 완료되는 future, 호출 중 예외가 발생하면 예외로 완료
+     */
+    static <T> CompletableFuture<T> call(Consumer<Continuation<T>> call) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            call.accept(new Continuation<T>() {
+                @Override
+                public void onSuccess(T result) {
+                    future.complete(result);
+                }
+
+                @Override
+                public void onError(Throwable cause) {
+                    future.completeExceptionally(cause);
+                }
+            });
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+}
@@ -1,11 +1,9 @@
 package webChat.service.kurento;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import lombok.RequiredArgsConstructor;
 import org.kurento.client.IceCandidate;
-import org.kurento.client.KurentoClient;
 import org.kurento.client.MediaPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,15 +14,20 @@ import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import webChat.model.redis.DataType;
 import webChat.model.room.KurentoRoom;
-import webChat.repository.KurentoPiplineMap;
+import webChat.model.room.RoomState;
+import webChat.model.signaling.SignalingMessage;
+import webChat.model.signaling.SignalingType;
 import webChat.service.chatroom.ChatRoomService;
 import webChat.service.chatroom.participant.KurentoParticipantService;
 import webChat.service.redis.RedisService;
-import webChat.utils.JsonUtils;
 
 import java.io.IOException;
+import java.util.EnumMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * kurento 동작 handler
@@ -36,130 +39,220 @@ public class KurentoHandler extends TextWebSocketHandler {
     // 로깅을 위한 객체 생성
     private static final Logger log = LoggerFactory.getLogger(KurentoHandler.class);
 
-    // 데이터를 json 으로 넘겨 받고, 넘기기 때문에 관련 라이브러리로 GSON 을 사용함
-    // gson은 json구조를 띄는 직렬화된 데이터를 JAVA의 객체로 역직렬화, 직렬화 해주는 자바 라이브러리 입니다.
-    // 즉, JSON Object -> JAVA Object 또는 그 반대의 행위를 돕는 라이브러리 입니다.
-    private static final Gson gson = new GsonBuilder().create();
-
     // kurento room 기능
     private final KurentoRoomManager kurentoRoomManager;
-    private final KurentoClient kurentoClient;
 
     private final RedisService redisService;
     private final ChatRoomService chatRoomService;
     private final KurentoParticipantService participantService;
-    private final Map<String, MediaPipeline> kurentoPiplineMap = KurentoPiplineMap.getInstance();
+    private final SessionOutboxManager sessionOutboxManager;
+    private final MediaPipelinePool mediaPipelinePool;
+    private final MediaPipelineManager mediaPipelineManager;
+    private final VideoSubscriptionService videoSubscriptionService;
+    private final NegotiationMetrics negotiationMetrics;
+    private final BandwidthPolicy bandwidthPolicy;
+
+    // 첫 sdpAnswer 를 아직 받지 못한 세션의 joinRoom 요청 시간(nanoTime)
+    private final Map<String, Long> pendingFirstAnswer = new ConcurrentHashMap<>();
+
+    // 메시지 type 별 처리 method : 메시지마다 문자열 switch 를 타지 않도록 미리 만들어둠
+    private final Map<SignalingType, SignalingAction> dispatchTable = this.buildDispatchTable();
+
+    @FunctionalInterface
+    private interface SignalingAction {
+        void handle(WebSocketSession session, KurentoUserSession user, SignalingMessage message) throws Exception;
+    }
+
+    private Map<SignalingType, SignalingAction> buildDispatchTable() {
+        Map<SignalingType, SignalingAction> table = new EnumMap<>(SignalingType.class);
+        table.put(SignalingType.JOIN_ROOM, (session, user, message) ->
+                this.joinRoom((SignalingMessage.JoinRoom) message, session));
+        table.put(SignalingType.RECEIVE_VIDEO_FROM, (session, user, message) ->
+                this.receiveVideoFrom(session, user, (SignalingMessage.ReceiveVideoFrom) message));
+        table.put(SignalingType.LEAVE_ROOM, (session, user, message) -> this.leaveRoom(user));
+        table.put(SignalingType.ON_ICE_CANDIDATE, (session, user, message) ->
+                this.onIceCandidate(user, (SignalingMessage.OnIceCandidate) message));
+        table.put(SignalingType.TEXT_OVERLAY, (session, user, message) ->
+                this.textOverlay(user, (SignalingMessage.TextOverlay) message));
+        table.put(SignalingType.SUBSCRIBE_VIDEO, (session, user, message) ->
+                this.subscribeVideo(user, (SignalingMessage.SubscribeVideo) message));
+        return table;
+    }
 
     @Override
     public void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
-        final JsonObject jsonMessage = gson.fromJson(message.getPayload(), JsonObject.class);
+        // 일전에 내가 만들었던 시그널링 서버와 동일하게 handleTextMessage 파라미터 message 로 값이 들어오면
+        // id 에 따라 해당 message 를 처리한다.
+        // 이때 message 는 json 형태로 들어오며 SignalingCodec 이 type 별 record 로 변환
+        final SignalingMessage signalingMessage;
+        try {
+            signalingMessage = SignalingCodec.decode(message.getPayload());
+        } catch (JsonParseException e) {
+            log.warn("Invalid signaling message from session {} ::: {}", session.getId(), e.getMessage());
+            return;
+        }
+        if (signalingMessage == null) {
+            return;
+        }
 
-        String roomId = JsonUtils.getStrOrEmpty(jsonMessage, "roomId");
         final KurentoUserSession user = participantService.getBySessionId(session);
 
         if (user != null) {
-            log.debug("Incoming message from user '{}': {}", user.getUserId(), jsonMessage);
+            log.debug("Incoming message from user '{}': {}", user.getUserId(), signalingMessage);
         } else {
-            log.debug("Incoming message from new user: {}", jsonMessage);
+            log.debug("Incoming message from new user: {}", signalingMessage);
         }
 
-        // 일전에 내가 만들었던 시그널링 서버와 동일하게 handleTextMessage 파라미터 message 로 값이 들어오면
-        // swtich 문으로 해당 message 를 잘라서 사용한다.
-        // 이때 message 는 json 형태로 들어온다
-        // key : id 에 대하여
-        switch (jsonMessage.get("id").getAsString()) {
-            case "joinRoom": // value : joinRoom 인 경우
-                joinRoom(jsonMessage, session); // joinRoom 메서드를 실행
-                break;
-
-            case "receiveVideoFrom": // receiveVideoFrom 인 경우
-                try {
-                    // sender 명 - 사용자명 - 과
-                    final String senderUserId = jsonMessage.get("sender").getAsString();
-                    // 유저명을 통해 session 값을 가져온다
-                    final KurentoUserSession sender = participantService.getParticipant(roomId, senderUserId);
-                    // TODO sender 예외처리
-                    // jsonMessage 에서 sdpOffer 값을 가져온다
-                    final String sdpOffer = jsonMessage.get("sdpOffer").getAsString();
-                    // 이후 receiveVideoFrom 실행 => 아마도 특정 유저로부터 받은 비디오를 다른 유저에게 넘겨주는게 아닌가...?
-                    user.receiveVideoFrom(sender, sdpOffer);
-                } catch (Exception e){
-                    e.printStackTrace();
-                    connectException(user, e);
+        dispatchTable.get(signalingMessage.type()).handle(session, user, signalingMessage);
+    }
+
+    // receiveVideoFrom 인 경우
+    private void receiveVideoFrom(WebSocketSession session, KurentoUserSession user,
+                                  SignalingMessage.ReceiveVideoFrom message) {
+        if (user == null) {
+            log.error("#### receiveVideoFrom from unknown session ::: {}", session.getId());
+            this.connectException(session, "user not found");
+            return;
+        }
+        try {
+            // composite 방에서는 자신의 연결로 합쳐진 영상을 받기 때문에 다른 참여자의 영상을 따로 받지 않음
+            if (user.isComposite() && !user.getUserId().equals(message.sender())) {
+                log.debug("PARTICIPANT {}: ignore receiveVideoFrom {} in composite room", user.getUserId(), message.sender());
+                return;
+            }
+            // sender 명 - 사용자명 - 을 통해 session 값을 가져온다
+            final KurentoUserSession sender = participantService.getParticipant(message.roomId(), message.sender());
+            if (sender == null) {
+                log.error("#### sender is not in room {} ::: {}", message.roomId(), message.sender());
+                this.connectException(session, "sender not found");
+                return;
+            }
+            // 이후 receiveVideoFrom 실행 => 아마도 특정 유저로부터 받은 비디오를 다른 유저에게 넘겨주는게 아닌가...?
+            // KMS 호출은 비동기로 진행되기 때문에 websocket 스레드는 바로 다음 메시지를 처리
+            // preferred_codec 이 설정되어 있으면 offer 의 codec 순서를 바꿔서 KMS 가 해당 codec 을 선택하도록 함
+            String sdpOffer = bandwidthPolicy.preferCodec(message.sdpOffer());
+            user.receiveVideoFrom(sender, sdpOffer, negotiationMetrics).whenComplete((result, cause) -> {
+                if (cause instanceof CompletionException && cause.getCause() instanceof CancellationException) {
+                    // 협상 중에 sender 가 나갔거나 영상 수신이 취소된 경우 : 다시 연결할 필요 없음
+                    log.debug("PARTICIPANT {}: receiving video from {} was cancelled", user.getUserId(), message.sender());
+                    return;
                 }
-                break;
+                if (cause != null) {
+                    log.error("PARTICIPANT {}: could not receive video from {}", user.getUserId(), message.sender(), cause);
+                    this.connectException(session, "connection error");
+                    return;
+                }
+
+                // 입장 후 첫 sdpAnswer 까지 걸린 시간 기록
+                Long joinRequestedAt = pendingFirstAnswer.remove(session.getId());
+                if (joinRequestedAt != null) {
+                    mediaPipelinePool.recordFirstAnswer(System.nanoTime() - joinRequestedAt);
+                }
+            });
+        } catch (Exception e) {
+            log.error("#### receiveVideoFrom failed ::: {}", e.getMessage(), e);
+            this.connectException(session, "connection error");
+        }
+    }
 
-            case "leaveRoom": // 유저가 나간 경우
-                leaveRoom(user);
-                break;
+    // 유저에 대해 IceCandidate 프로토콜을 실행할 때
+    private void onIceCandidate(KurentoUserSession user, SignalingMessage.OnIceCandidate message) {
+        if (user != null) {
+            IceCandidate cand = new IceCandidate(message.candidate(), message.sdpMid(), message.sdpMLineIndex());
+            user.addCandidate(cand, message.name());
+        }
+    }
 
-            case "onIceCandidate": // 유저에 대해 IceCandidate 프로토콜을 실행할 때
-                JsonObject candidate = jsonMessage.get("candidate").getAsJsonObject();
+    // 텍스트 오버레이 요청
+    private void textOverlay(KurentoUserSession user, SignalingMessage.TextOverlay message) {
+        if (user != null) {
+            log.debug("Received text overlay request from user {}: {}", user.getUserId(), message.text());
 
-                if (user != null) {
-                    IceCandidate cand = new IceCandidate(candidate.get("candidate").getAsString(),
-                            candidate.get("sdpMid").getAsString(), candidate.get("sdpMLineIndex").getAsInt());
-                    user.addCandidate(cand, jsonMessage.get("name").getAsString());
-                }
-                break;
-
-            case "textOverlay": // 텍스트 오버레이 요청
-                if (user != null) {
-                    String overlayText = JsonUtils.getStrOrEmpty(jsonMessage, "text");
-                    log.debug("Received text overlay request from user {}: {}", user.getUserId(), overlayText);
-
-                    // 텍스트 오버레이 적용
-                    user.showTextOverlay(overlayText);
-
-                    // 성공 응답 전송
-                    JsonObject response = new JsonObject();
-                    response.addProperty("id", "textOverlayResponse");
-                    response.addProperty("status", "success");
-                    response.addProperty("message", "Text overlay applied successfully");
-                    user.sendMessage(response);
-                }
-                break;
+            // 텍스트 오버레이 적용
+            user.showTextOverlay(message.text());
+
+            // 성공 응답 전송 : 응답이 밀려있으면 최신 응답만 전송
+            JsonObject response = new JsonObject();
+            response.addProperty("id", "textOverlayResponse");
+            response.addProperty("status", "success");
+            response.addProperty("message", "Text overlay applied successfully");
+            user.sendNonCriticalMessage(response, "textOverlayResponse");
+        }
+    }
 
-            default:
-                break;
+    // 화면에 보이는 참여자 목록 갱신
+    private void subscribeVideo(KurentoUserSession user, SignalingMessage.SubscribeVideo message) {
+        if (user != null) {
+            videoSubscriptionService.subscribe(user, message.senders());
         }
     }
 
     // 유저의 연결이 끊어진 경우
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
-        // TODO user 가 null 인 경우 예외처리
+        // 방에 입장하기 전에 끊긴 세션은 user 가 null => leaveRoom 에서 무시
         KurentoUserSession user = participantService.getBySessionId(session);
-        this.leaveRoom(user);
+        try {
+            this.leaveRoom(user);
+        } finally {
+            pendingFirstAnswer.remove(session.getId());
+            sessionOutboxManager.remove(session);
+        }
     }
 
     // 유저가 Room 에 입장했을 때
-    private void joinRoom(JsonObject params, WebSocketSession session) throws IOException {
-        // json 형태의 params 에서 room 과 userId, nickName 을 분리해온다
-        final String roomId = params.get("roomId").getAsString();
-        final String userId = params.get("userId").getAsString();
-        final String nickName = params.get("nickName").getAsString();
+    private void joinRoom(SignalingMessage.JoinRoom params, WebSocketSession session) throws IOException {
+        // params 에서 room 과 userId, nickName 을 분리해온다
+        final String roomId = params.roomId();
+        final String userId = params.userId();
+        final String nickName = params.nickName();
 
         log.info("PARTICIPANT {}: trying to join room {}", userId, roomId);
+        long joinRequestedAt = System.nanoTime();
 
         // roomId 를 기준으로 room 을 가져온다
         KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(roomId, DataType.CHATROOM, KurentoRoom.class);
         if (kurentoRoom == null) {
-            // TODO 예외처리
+            log.error("#### room not found ::: {}", roomId);
+            this.connectException(session, "room not found");
             return;
         }
 
-        // room 을 active 상태로 전환
-        if(kurentoRoom.getKurento() == null){
-            kurentoRoom.setKurento(kurentoClient);
+        // 정원 확인과 인원수 증가를 한번에 처리 => 동시에 입장해도 maxUserCnt 를 넘지 않음
+        long userCount = redisService.admitUser(roomId);
+        if (userCount < 0) {
+            log.info("PARTICIPANT {}: can not join room {} :: {}", userId, roomId,
+                    userCount == RedisService.ROOM_FULL ? "room is full" : "room not found");
+            this.connectException(session, userCount == RedisService.ROOM_FULL ? "room is full" : "room not found");
+            return;
         }
-
-        if (!kurentoPiplineMap.containsKey(roomId)) {
-            kurentoPiplineMap.put(roomId, kurentoRoom.getKurento().createMediaPipeline());
+        kurentoRoom.setUserCount((int) userCount);
+
+        MediaPipeline pipeline = null;
+        try {
+            // 방의 pipeline : 없거나 사용할 수 없으면 가장 부하가 적은 KMS 에 새로 생성
+            MediaPipelineManager.Lease lease = mediaPipelineManager.acquire(roomId);
+            pipeline = lease.pipeline();
+
+            // room 을 active 상태로 전환
+            if(kurentoRoom.getKurento() == null){
+                kurentoRoom.setKurento(lease.server().getClient());
+            }
+
+            if (!RoomState.ACTIVE.equals(kurentoRoom.getRoomState())) {
+                kurentoRoom.activate();
+                redisService.updateRoomState(roomId, RoomState.ACTIVE);
+            }
+            kurentoRoomManager.join(kurentoRoom, userId, nickName, session, pipeline);
+            pendingFirstAnswer.put(session.getId(), joinRequestedAt);
+        } catch (RuntimeException e) {
+            // 입장 실패 시 증가시킨 인원수와 pipeline 참여자 수 되돌림
+            redisService.decrementUserCount(roomId);
+            if (pipeline != null) {
+                mediaPipelineManager.release(roomId, pipeline);
+            }
+            throw e;
         }
-        kurentoRoom.activate();
-        kurentoRoomManager.join(kurentoRoom, userId, nickName, session);
-        redisService.incrementUserCount(kurentoRoom);
     }
 
     private void leaveRoom(KurentoUserSession user) throws IOException {
@@ -170,6 +263,11 @@ public class KurentoHandler extends TextWebSocketHandler {
 
         // redis 에서 방 삭제
         KurentoRoom kurentoRoom = redisService.getRedisDataByDataType(user.getRoomId(), DataType.CHATROOM, KurentoRoom.class);
+        // 방이 이미 삭제된 경우 => 방 삭제 시 참여자 / pipeline 정리가 끝났기 때문에 무시
+        if (Objects.isNull(kurentoRoom)) {
+            log.error("#### room not found ::: {}", user.getRoomId());
+            return;
+        }
 
         // 유저가 room 의 participants 에 없다면 return
         if (!participantService.getParticipantMap(kurentoRoom.getRoomId()).containsKey(user.getUserId())) {
@@ -177,15 +275,15 @@ public class KurentoHandler extends TextWebSocketHandler {
         }
 
         kurentoRoomManager.leave(kurentoRoom, user);
-        redisService.decrementUserCount(kurentoRoom);
+        mediaPipelineManager.release(kurentoRoom.getRoomId(), user.getPipeline());
+        redisService.decrementUserCount(kurentoRoom.getRoomId());
     }
 
-    private void connectException(KurentoUserSession user, Exception e) throws IOException {
+    // 입장 전이거나 참여자를 찾을 수 없는 경우에도 보낼 수 있도록 세션의 송신 큐로 전송
+    private void connectException(WebSocketSession session, String reason) {
         JsonObject message = new JsonObject();
         message.addProperty("id", "ConnectionFail");
-        message.addProperty("data", "connection error");
-
-        user.sendMessage(message);
-
+        message.addProperty("data", reason);
+        sessionOutboxManager.send(session, message);
     }
 }
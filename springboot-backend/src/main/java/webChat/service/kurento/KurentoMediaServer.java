@@ -0,0 +1,85 @@
+package webChat.service.kurento;
+
+import org.kurento.client.KurentoClient;
+
+/**
+ * KurentoClientPool 에 등록된 Kurento Media Server
+ */
+public class KurentoMediaServer {
+
+    public enum State {
+        ACTIVE,     // 새로운 방 배치 가능
+        DRAINING,       // 점검 대기 : 기존 방은 유지, 새로운 방은 배치하지 않음
+        DISCONNECTED,   // 연결 끊김, 재연결 대기 : 기존 방은 유지, 새로운 방은 배치하지 않음
+        DOWN            // 재연결 실패 : 배치된 방은 다른 서버로 이동
+    }
+
+    private final String id;
+    private final String url;
+    private final KurentoClient client;
+
+    private volatile State state = State.ACTIVE;
+    private volatile boolean draining = false;
+    // ServerManager 에서 가져온 cpu 사용률(%), 조회 전에는 0
+    private volatile double cpuUsage = 0;
+
+    public KurentoMediaServer(String id, String url, KurentoClient client) {
+        this.id = id;
+        this.url = url;
+        this.client = client;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public KurentoClient getClient() {
+        return client;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public boolean isActive() {
+        return state == State.ACTIVE;
+    }
+
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+
+    void setCpuUsage(double cpuUsage) {
+        this.cpuUsage = cpuUsage;
+    }
+
+    synchronized void markDown() {
+        this.state = State.DOWN;
+    }
+
+    /**
+     * @return DOWN 이 아니어서 DISCONNECTED 로 바뀐 경우 true
+     */
+    synchronized boolean markDisconnected() {
+        if (state == State.DOWN) {
+            return false;
+        }
+        this.state = State.DISCONNECTED;
+        return true;
+    }
+
+    synchronized void markUp() {
+        this.state = draining ? State.DRAINING : State.ACTIVE;
+    }
+
+    synchronized void setDraining(boolean draining) {
+        this.draining = draining;
+        if (state == State.ACTIVE || state == State.DRAINING) {
+            this.state = draining ? State.DRAINING : State.ACTIVE;
+        }
+    }
+}
@@ -19,21 +19,29 @@ package webChat.service.kurento;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.kurento.client.Continuation;
+import org.apache.coyote.BadRequestException;
+import org.kurento.client.Composite;
 import org.kurento.client.MediaPipeline;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.socket.WebSocketSession;
+import webChat.controller.ExceptionController;
 import webChat.model.room.ChatRoom;
 import webChat.model.room.KurentoRoom;
 import webChat.model.room.in.ChatRoomInVo;
-import webChat.repository.KurentoPiplineMap;
+import webChat.model.signaling.RoomLayout;
 import webChat.service.chatroom.participant.KurentoParticipantService;
 import webChat.service.redis.RedisService;
-import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * @modifyBy SeJon Jang (wkdtpwhs@gmail.com)
@@ -48,19 +56,50 @@ public class KurentoRoomManager {
 
   private final RedisService redisService;
   private final KurentoParticipantService kurentoParticipantService;
-  private Map<String, MediaPipeline> kurentoPipelineMap = KurentoPiplineMap.getInstance();
+  private final SessionOutboxManager sessionOutboxManager;
+  private final MediaPipelineManager mediaPipelineManager;
+  private final BandwidthPolicy bandwidthPolicy;
+
+  // 참여자가 threshold 명을 넘으면 방을 composite 로 전환
+  @Value("${chatforyou.kurento.composite.enabled:true}")
+  private boolean compositeEnabled;
+
+  @Value("${chatforyou.kurento.composite.threshold:6}")
+  private int compositeThreshold;
+
+  /**
+   * @desc composite 로 전환된 방 : roomId, Composite
+   * mesh : 참여자마다 다른 참여자 수만큼 incomingMedia 가 필요 => n 명이면 endpoint n * n 개
+   * composite : 참여자의 영상을 KMS 에서 하나로 합쳐서 보냄 => endpoint n 개 + hubPort n 개
+   * 한번 전환된 방은 pipeline 이 release 될때까지 composite 유지
+   * */
+  private final Map<String, Composite> composites = new ConcurrentHashMap<>();
+
+  /**
+   * @desc 방의 pipeline 이 제거되면 (idle / KMS DOWN / 방 삭제) pipeline 에 있던 composite 도 제거
+   * 다음 입장 시 새로운 pipeline 이 만들어짐
+   * */
+  @PostConstruct
+  private void init() {
+    mediaPipelineManager.addReleaseListener(composites::remove);
+  }
 
   /**
    * @desc 유저가 room 에 join 할때 사용
-   * @Param String userName, WebSocketSession session
+   * @Param String userName, WebSocketSession session, MediaPipeline 유저가 사용할 방의 pipeline
    * @return UserSession 객체
    * */
-  public KurentoUserSession join(KurentoRoom room, String userId, String nickName, WebSocketSession session) throws IOException {
+  public KurentoUserSession join(KurentoRoom room, String userId, String nickName, WebSocketSession session,
+                                 MediaPipeline pipeline) {
 
     log.info("ROOM {}: adding participant {}", room.getRoomId(), userId);
 
     // UserSession 은 유저명, room명, 유저 세션정보, pipline 파라미터로 받음
-    final KurentoUserSession participant = new KurentoUserSession(userId, nickName, room.getRoomId(), session, kurentoPipelineMap.get(room.getRoomId()));
+    final KurentoUserSession participant = new KurentoUserSession(userId, nickName, room.getRoomId(), session,
+            pipeline, sessionOutboxManager.getOutbox(session));
+
+    // 참여자 수가 threshold 를 넘으면 기존 참여자를 composite 로 전환
+    this.switchToCompositeIfNeeded(room.getRoomId(), pipeline, kurentoParticipantService.getParticipantCount(room.getRoomId()) + 1);
 
     // room 에 userSession 추가
     this.joinRoom(room, participant);
@@ -68,6 +107,16 @@ public class KurentoRoomManager {
     // 참여자 map 에 유저명과 유저에 관한 정보를 갖는 userSession 객체를 저장
     kurentoParticipantService.addParticipant(room.getRoomId(), participant);
 
+    // composite 방이면 새로운 참여자도 hubPort 로 연결
+    Composite composite = composites.get(room.getRoomId());
+    if (composite != null) {
+      participant.joinComposite(composite);
+    }
+
+    // 늘어난 인원 수에 맞춰 모든 참여자의 대역폭 제한 갱신
+    // 새로운 참여자의 offer 보다 먼저 적용되도록 참여자 정보를 보내기 전에 실행
+    bandwidthPolicy.apply(room.getRoomId());
+
     // 참여자 정보를 기존 참여자들에게 알림
     this.sendParticipantNames(room, participant);
 
@@ -75,13 +124,145 @@ public class KurentoRoomManager {
     return participant;
   }
 
+  /**
+   * @desc 참여자 수가 threshold 를 넘으면 방을 composite 로 전환하고 기존 참여자에게 layoutChanged 전달
+   * 기존 참여자는 이미 연결된 outgoingMedia 로 합쳐진 영상을 받기 때문에 다시 sdp 협상을 하지 않음
+   * */
+  private void switchToCompositeIfNeeded(String roomId, MediaPipeline pipeline, int participantCount) {
+    if (!compositeEnabled || participantCount <= compositeThreshold || composites.containsKey(roomId)) {
+      return;
+    }
+
+    boolean[] created = {false};
+    Composite composite = composites.computeIfAbsent(roomId, id -> {
+      created[0] = true;
+      return new Composite.Builder(pipeline).build();
+    });
+    if (!created[0]) {
+      return;
+    }
+
+    log.info("ROOM {}: switching to composite layout with {} participants", roomId, participantCount);
+    for (KurentoUserSession participant : kurentoParticipantService.getParticipantList(roomId)) {
+      try {
+        participant.joinComposite(composite);
+      } catch (Exception e) {
+        log.error("ROOM {}: participant {} could not join composite", roomId, participant.getUserId(), e);
+      }
+    }
+
+    final JsonObject layoutChangedMsg = new JsonObject();
+    layoutChangedMsg.addProperty("id", "layoutChanged");
+    layoutChangedMsg.addProperty("layout", RoomLayout.COMPOSITE.getValue());
+    kurentoParticipantService.broadcast(roomId, layoutChangedMsg);
+  }
+
+  /**
+   * @desc KMS 연결이 끊겨서 사라진 pipeline 에 남아있는 참여자를 방의 새로운 pipeline 으로 옮김
+   * 참여자 객체를 같은 websocket 세션으로 새로 만들어서 교체하고 reconnectMedia 를 보냄
+   * => client 는 방에 다시 입장하지 않고 sdp 협상만 다시 진행
+   * 사라진 pipeline 의 endpoint 는 KMS 호출 없이 참조만 정리
+   * @return 옮긴 참여자 수
+   * @throws ExceptionController.InternalServerError 사용할 수 있는 KMS 가 없는 경우 => 다음에 다시 시도
+   * */
+  public int recoverParticipants(String roomId) {
+    List<KurentoUserSession> recovered = new ArrayList<>();
+    Set<MediaPipeline> stalePipelines = new HashSet<>();
+
+    try {
+      for (KurentoUserSession stale : kurentoParticipantService.getParticipantList(roomId)) {
+        if (stale.isClosed() || stale.getPipeline() == mediaPipelineManager.getPipeline(roomId)) {
+          continue;
+        }
+
+        MediaPipeline pipeline = mediaPipelineManager.acquire(roomId).pipeline();
+        KurentoUserSession participant;
+        try {
+          participant = new KurentoUserSession(stale.getUserId(), stale.getNickName(), roomId, stale.getSession(),
+                  pipeline, sessionOutboxManager.getOutbox(stale.getSession()));
+        } catch (RuntimeException e) {
+          mediaPipelineManager.release(roomId, pipeline);
+          throw e;
+        }
+        kurentoParticipantService.addParticipant(roomId, participant);
+
+        // 교체하는 사이에 나간 경우 : 새로 만든 참여자도 제거
+        if (stale.isClosed()) {
+          if (kurentoParticipantService.getParticipant(roomId, participant.getUserId()) == participant) {
+            kurentoParticipantService.removeParticipant(roomId, participant.getUserId());
+          }
+          mediaPipelineManager.release(roomId, pipeline);
+          continue;
+        }
+
+        stale.detach();
+        stalePipelines.add(stale.getPipeline());
+        recovered.add(participant);
+      }
+
+      // 모든 참여자를 옮긴 경우에만 이전 pipeline 제거 => 같은 KMS 에 다시 연결된 경우 남아있는 pipeline, DOWN 된 KMS 면 실패해도 무시
+      for (MediaPipeline stalePipeline : stalePipelines) {
+        KurentoFutures.<Void>call(stalePipeline::release).exceptionally(cause -> {
+          log.debug("ROOM {}: could not release stale pipeline ::: {}", roomId, cause.getMessage());
+          return null;
+        });
+      }
+    } finally {
+      // 중간에 실패해도 이미 교체한 참여자에게는 reconnectMedia 를 보냄 => 나머지 참여자는 다음 복구에서 다시 시도
+      this.reconnectRecovered(roomId, recovered);
+    }
+    return recovered.size();
+  }
+
+  /**
+   * @desc 새로운 pipeline 으로 교체한 참여자에게 reconnectMedia 전송
+   * 복구 중에 발생한 예외를 가리지 않도록 여기서 발생한 예외는 로그만 남김
+   * */
+  private void reconnectRecovered(String roomId, List<KurentoUserSession> recovered) {
+    if (recovered.isEmpty()) {
+      return;
+    }
+
+    try {
+      MediaPipeline pipeline = mediaPipelineManager.getPipeline(roomId);
+      int participantCount = kurentoParticipantService.getParticipantCount(roomId);
+      this.switchToCompositeIfNeeded(roomId, pipeline, participantCount);
+    } catch (RuntimeException e) {
+      log.error("ROOM {}: could not switch layout during recovery", roomId, e);
+    }
+    Composite composite = composites.get(roomId);
+
+    final JsonObject reconnectMediaMsg = new JsonObject();
+    reconnectMediaMsg.addProperty("id", "reconnectMedia");
+    reconnectMediaMsg.addProperty("layout", this.getLayout(roomId).getValue());
+    for (KurentoUserSession participant : recovered) {
+      try {
+        if (composite != null) {
+          participant.joinComposite(composite);
+        }
+        participant.sendMessage(reconnectMediaMsg);
+      } catch (Exception e) {
+        log.error("ROOM {}: participant {} could not be recovered", roomId, participant.getUserId(), e);
+      }
+    }
+    bandwidthPolicy.apply(roomId);
+
+    log.info("ROOM {}: recovered {} participants", roomId, recovered.size());
+  }
+
+  /**
+   * @desc 방의 미디어 구성
+   * */
+  public RoomLayout getLayout(String roomId) {
+    return composites.containsKey(roomId) ? RoomLayout.COMPOSITE : RoomLayout.MESH;
+  }
+
   /**
    * room 에서 user 제거 및 user 연결 close
    * @param room
    * @param user
-   * @throws IOException
    */
-  public void leave(KurentoRoom room, KurentoUserSession user) throws IOException {
+  public void leave(KurentoRoom room, KurentoUserSession user) {
     log.debug("PARTICIPANT {}: Leaving room {}", user.getUserId(), room.getRoomId());
     this.removeParticipant(room, user.getUserId());
   }
@@ -92,7 +273,7 @@ public class KurentoRoomManager {
    * @Return List<String 유저명>
    * */
   
-  private Collection<String> joinRoom(KurentoRoom room, KurentoUserSession newParticipant) throws IOException {
+  private Collection<String> joinRoom(KurentoRoom room, KurentoUserSession newParticipant) {
     // JsonObject 를 생성
     final JsonObject newParticipantMsg = new JsonObject();
 
@@ -104,24 +285,16 @@ public class KurentoRoomManager {
     joNewParticipant.addProperty("nickName", newParticipant.getNickName());
     newParticipantMsg.add("data", joNewParticipant);
 
-    // participants 를 list 형태로 변환 => 이때 list 는 한명의 유저가 새로 들어올 때마다
-    // 즉 joinRoom 이 실행될 때마다 새로 생성 && return 됨
-    Collection<KurentoUserSession> userSessions = kurentoParticipantService.getParticipantList(room.getRoomId());
-
 //    log.debug("ROOM {}: notifying other participants of new participant {}", name,
 //        newParticipant.getName());
     log.debug("ROOM {}: 다른 참여자들에게 새로운 참여자가 들어왔음을 알림 {} :: {}", room.getRoomId(),
             newParticipant.getUserId(), newParticipant.getNickName());
 
-    // participants 의 value 로 for 문 돌림
-    for (final KurentoUserSession participant : userSessions) {
-      try {
-        // 현재 방의 모든 참여자들에게 새로운 참여자가 입장해서 만들어지는 json 객체
-        // 즉, newParticipantMsg 를 send함
-        participant.sendMessage(newParticipantMsg);
-      } catch (final IOException e) {
-        log.error("ROOM {}: participant {} could not be notified", room.getRoomId(), participant.getUserId(), e);
-      }
+    // 현재 방의 모든 참여자들에게 새로운 참여자가 입장해서 만들어지는 json 객체
+    // 즉, newParticipantMsg 를 한번만 직렬화해서 모든 참여자에게 send함
+    List<String> unNotified = kurentoParticipantService.broadcast(room.getRoomId(), newParticipantMsg);
+    if (!unNotified.isEmpty()) {
+      log.error("ROOM {}: participants {} could not be notified", room.getRoomId(), unNotified);
     }
 
     // 유저 리스트를 return
@@ -134,7 +307,7 @@ public class KurentoRoomManager {
    * @Return none
    * */
   
-  private void removeParticipant(KurentoRoom room, String name) throws IOException {
+  private void removeParticipant(KurentoRoom room, String name) {
 
     // participants map 에서 제거된 유저 - 방에서 나간 유저 - 를 제거함
     kurentoParticipantService.removeParticipant(room.getRoomId(), name);
@@ -142,9 +315,6 @@ public class KurentoRoomManager {
 
     log.debug("ROOM {}: notifying all users that {} is leaving the room", room.getRoomId(), name);
 
-    // String list 생성
-    final List<String> unNotifiedParticipants = new ArrayList<>();
-
     // json 객체 생성
     final JsonObject participantLeftJson = new JsonObject();
 
@@ -155,17 +325,17 @@ public class KurentoRoomManager {
 
     // participants 의 value 로 for 문 돌림
     for (final KurentoUserSession participant : userSessions) {
-      try {
-        // 나간 유저의 video 를 cancel 하기 위한 메서드
-        participant.cancelVideoFrom(name);
+      // 나간 유저의 video 를 cancel 하기 위한 메서드
+      participant.cancelVideoFrom(name);
+      // 나간 유저에게 보내던 endpoint 제거
+      participant.removeOutgoingSink(name);
+    }
 
-        // 다른 유저들에게 현재 유저가 나갔음을 알리는 jsonMsg 를 전달
-        participant.sendMessage(participantLeftJson);
+    // 줄어든 인원 수에 맞춰 남은 참여자의 대역폭 제한 갱신
+    bandwidthPolicy.apply(room.getRoomId());
 
-      } catch (final IOException e) {
-        unNotifiedParticipants.add(participant.getUserId());
-      }
-    }
+    // 다른 유저들에게 현재 유저가 나갔음을 알리는 jsonMsg 를 전달
+    final List<String> unNotifiedParticipants = kurentoParticipantService.broadcast(room.getRoomId(), participantLeftJson);
 
     // 만약 unNotifiedParticipants 가 비어있지 않다면
     if (!unNotifiedParticipants.isEmpty()) {
@@ -181,7 +351,7 @@ public class KurentoRoomManager {
    * @Return none
    * */
   
-  public void sendParticipantNames(KurentoRoom room, KurentoUserSession user) throws IOException {
+  public void sendParticipantNames(KurentoRoom room, KurentoUserSession user) {
 
     // json 오브젝트 생성
     final JsonObject existingParticipantsMsg = new JsonObject();
@@ -207,57 +377,89 @@ public class KurentoRoomManager {
     // data : 현재 방 안에 존재하는 유저만을 담은 array
     existingParticipantsMsg.addProperty("id", "existingParticipants");
     existingParticipantsMsg.add("data", participantsArray);
+    // layout : mesh => 참여자마다 영상을 받음, composite => '나'의 연결로 합쳐진 영상 하나를 받음
+    existingParticipantsMsg.addProperty("layout",
+            (user.isComposite() ? RoomLayout.COMPOSITE : RoomLayout.MESH).getValue());
     log.debug("PARTICIPANT {}: sending a list of {} participants", user.getUserId(), participantsArray.size());
 
     // user 에게 existingParticipantsMsg 전달
     user.sendMessage(existingParticipantsMsg);
   }
 
-  public ChatRoom createKurentoRoom(ChatRoomInVo chatRoomInVo) {
+  public ChatRoom createKurentoRoom(ChatRoomInVo chatRoomInVo) throws BadRequestException {
 
     KurentoRoom room = new KurentoRoom(UUID.randomUUID().toString(), chatRoomInVo.getRoomName(), chatRoomInVo.getCreator(), chatRoomInVo.getRoomPwd(), chatRoomInVo.isSecretChk(), 0, chatRoomInVo.getMaxUserCnt(), chatRoomInVo.getRoomType());;
 
-    // redis 에 저장
-    redisService.insertChatRoom(room);
+    // roomName 선점 : 동시에 같은 이름으로 생성 요청이 들어와도 하나만 성공
+    if (!redisService.reserveRoomName(room.getRoomName(), room.getRoomId())) {
+      throw new ExceptionController.AlreadyExistRoomNameException("room name is already exist : " + room.getRoomName());
+    }
+
+    // redis 에 저장, 실패 시 선점한 roomName 해제
+    try {
+      redisService.insertChatRoom(room);
+    } catch (RuntimeException e) {
+      redisService.releaseRoomName(room.getRoomName(), room.getRoomId());
+      throw e;
+    }
 
     return room;
   }
 
   public void deleteKurentoRoom(KurentoRoom kurentoRoom) {
-    // 방이 close 되었을 때 사용됨
-    Collection<KurentoUserSession> userSessions = kurentoParticipantService.getParticipantList(kurentoRoom.getRoomId());
+    this.teardownKurentoRoom(kurentoRoom);
+  }
 
-    // participants 의 value 값으로 for 문 시작
-    for (final KurentoUserSession user : userSessions) {
-      try {
-        // 유저 close
-        user.close();
-      } catch (IOException e) {
-        log.debug("ROOM {}: Could not invoke close on participant {}", kurentoRoom.getRoomId(), user.getUserId(), e);
-      }
-    } // for 문 끝
+  /**
+   * @desc 여러 방을 한번에 삭제 => 서버 종료 시 사용
+   * pipeline release 는 teardown.parallelism 개씩 동시에 진행하고 timeoutMs 동안 완료를 기다림
+   * */
+  public void deleteKurentoRooms(Collection<KurentoRoom> kurentoRooms, long timeoutMs) {
+    List<String> roomIds = new ArrayList<>();
+    for (KurentoRoom kurentoRoom : kurentoRooms) {
+      this.detachParticipants(kurentoRoom);
+      roomIds.add(kurentoRoom.getRoomId());
+    }
 
-    MediaPipeline mediaPipeline = kurentoPipelineMap.get(kurentoRoom.getRoomId());
+    // release 요청은 기다리지 않고 보내기 때문에 timeoutMs 는 전체 정리 시간
+    CompletableFuture<Void> releases = mediaPipelineManager.destroyAll(roomIds);
+    for (String roomId : roomIds) {
+      kurentoParticipantService.removeRoom(roomId);
+      log.debug("Room {} closed", roomId);
+    }
 
-    if(mediaPipeline != null && mediaPipeline.isCommited()) {
-      // 미디어 파이프 초기화
-      mediaPipeline.release(new Continuation<Void>() {
+    try {
+      releases.get(timeoutMs, TimeUnit.MILLISECONDS);
+    } catch (TimeoutException e) {
+      log.warn("{} rooms teardown did not finish in {} ms", kurentoRooms.size(), timeoutMs);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      log.warn("rooms teardown failed ::: {}", e.getMessage());
+    }
+  }
 
-        @Override
-        public void onSuccess(Void result) throws Exception {
-          log.trace("ROOM {}: Released Pipeline", kurentoRoom.getRoomId());
-        }
+  /**
+   * @desc 방이 close 되었을 때 사용됨
+   * endpoint 마다 release 하지 않고 pipeline 을 한번만 release => pipeline 안의 endpoint 는 KMS 가 함께 제거
+   * 참여자는 KMS 호출 없이 참조만 정리
+   * */
+  private CompletableFuture<Void> teardownKurentoRoom(KurentoRoom kurentoRoom) {
+    this.detachParticipants(kurentoRoom);
 
-        @Override
-        public void onError(Throwable cause) throws Exception {
-          log.warn("PARTICIPANT {}: Could not release Pipeline", kurentoRoom.getRoomId(), cause);
-        }
-      });
-    }
+    // 미디어 파이프 초기화 : 참여자 수와 상관없이 바로 release 후 배치 정보 제거
+    CompletableFuture<Void> release = mediaPipelineManager.destroy(kurentoRoom.getRoomId());
 
     kurentoParticipantService.removeRoom(kurentoRoom.getRoomId());
     log.debug("Room {} closed", kurentoRoom.getRoomId());
+    return release;
+  }
 
+  private void detachParticipants(KurentoRoom kurentoRoom) {
+    // participants 의 value 값으로 for 문 시작
+    for (final KurentoUserSession user : kurentoParticipantService.getParticipantList(kurentoRoom.getRoomId())) {
+      user.detach();
+    }
   }
 
 }
\ No newline at end of file
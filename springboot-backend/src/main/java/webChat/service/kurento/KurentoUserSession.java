@@ -29,9 +29,22 @@ import webChat.model.user.UserDto;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  *
@@ -50,6 +63,11 @@ public class KurentoUserSession extends UserDto implements Closeable {
 
   private final String roomId;
 
+  /**
+   * @desc 세션 송신 큐 : 메시지는 큐에 넣기만 하고 전송은 큐의 worker 가 순서대로 처리
+   * */
+  private final SessionOutbox outbox;
+
   /**
    * @desc 현재 '나' 의 webRtcEndPoint 객체
    * 나의 것이니까 밖으로 내보낸다는 의미의 outgoingMedia
@@ -62,42 +80,98 @@ public class KurentoUserSession extends UserDto implements Closeable {
    * */
   private final ConcurrentMap<String, WebRtcEndpoint> incomingMedia = new ConcurrentHashMap<>();
 
+  /**
+   * @desc 생성 중인 incomingMedia => 유저명 : 생성이 끝나면 완료되는 future
+   * */
+  private final ConcurrentMap<String, CompletableFuture<WebRtcEndpoint>> endpointBuilds = new ConcurrentHashMap<>();
+
+  private volatile boolean closed;
+
   /**
    * @desc 텍스트 오버레이를 위한 GStreamerFilter
+   * 필터를 거치면 KMS 가 영상을 decode / encode 해야 하기 때문에 textOverlay 요청이 왔을 때만 만들어서 연결하고
+   * OVERLAY_IDLE_MS 동안 요청이 없으면 다시 outgoingMedia 를 직접 연결한 후 release
    * */
   private GStreamerFilter textOverlayFilter;
 
   /**
-   * @Param String 유저명, String 방이름, WebSocketSession 세션객체, MediaPipline (kurento)mediaPipeline 객체
+   * @desc '나'의 영상을 받는 element => map 형태로 유저명 : element 로 저장됨
+   * mesh : 다른 사람의 webRtcEndPoint, composite : '나'의 hubPort (key 는 '나'의 유저명)
+   * 텍스트 오버레이 필터를 연결 / 해제할 때 다시 연결하기 위해 사용
+   * */
+  private final ConcurrentMap<String, MediaElement> outgoingSinks = new ConcurrentHashMap<>();
+
+  /**
+   * @desc 화면에 보이지 않아서 영상 연결을 끊은 receiver => 오디오만 연결되어 있음
+   * */
+  private final Set<String> videoPausedReceivers = ConcurrentHashMap.newKeySet();
+
+  /**
+   * @desc composite 방에서 '나'의 영상을 보내고 합쳐진 영상을 받는 port
+   * */
+  private HubPort hubPort;
+
+  /**
+   * @desc 화면에 보이는 sender 만 받기 위한 구독 상태, VideoSubscriptionService 에서 관리
+   * */
+  private final VideoSubscription subscription = new VideoSubscription();
+
+  /**
+   * @desc 현재 방 인원 수에 맞는 대역폭 제한, BandwidthPolicy 에서 입장 / 퇴장 시 갱신
+   * 새로 만드는 incomingMedia 에도 같은 값을 적용
+   * */
+  private volatile BandwidthPolicy.Limits bandwidthLimits;
+
+  /**
+   * @desc 기존 endpoint 에 마지막으로 적용한 대역폭 제한 => 차이가 작아서 적용을 생략한 값은 저장하지 않음
+   * 작은 변화가 여러번 쌓여도 적용한 값과 비교하기 때문에 결국 다시 적용됨
+   * */
+  private BandwidthPolicy.Limits appliedBandwidthLimits;
+
+  /**
+   * @desc incomingMedia 가 만들어지기 전에 도착한 candidate => 유저명 : candidate 목록
+   * endpoint 를 만들 때 적용하고 제거, 접근은 synchronized (pendingCandidates) 안에서만
+   * */
+  private final Map<String, List<IceCandidate>> pendingCandidates = new HashMap<>();
+
+  // sender 별 최대 보관 candidate 수
+  private static final int MAX_PENDING_CANDIDATES = 32;
+
+  private final Object overlayLock = new Object();
+  private ScheduledFuture<?> overlayClearTask;
+  private ScheduledFuture<?> overlayReleaseTask;
+
+  // 텍스트 표시 시간
+  private static final long OVERLAY_TEXT_MS = 3_000L;
+  // 마지막 텍스트 이후 필터를 유지하는 시간
+  private static final long OVERLAY_IDLE_MS = 30_000L;
+  private static final String TEXT_OVERLAY_COMMAND =
+          "textoverlay text='' font-desc='Noto Sans CJK KR' halignment=center valignment=top deltay=50";
+
+  // 텍스트 제거 및 필터 release 용 공용 스레드
+  private static final ScheduledExecutorService OVERLAY_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "text-overlay");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * @Param String 유저명, String 방이름, WebSocketSession 세션객체, MediaPipline (kurento)mediaPipeline 객체, SessionOutbox 세션 송신 큐
    */
   public KurentoUserSession(String userId, String nickName, String roomId, WebSocketSession session,
-                            MediaPipeline pipeline) {
+                            MediaPipeline pipeline, SessionOutbox outbox) {
 
     super(userId, nickName);
     this.pipeline = pipeline;
     this.session = session;
     this.roomId = roomId;
+    this.outbox = outbox;
 
     // 외부로 송신하는 미디어?
     this.outgoingMedia = new WebRtcEndpoint.Builder(pipeline)
             .useDataChannels()
             .build();
 
-    // 텍스트 오버레이 필터 생성 (한글 지원 폰트 fallback 체인)
-    this.textOverlayFilter = new GStreamerFilter.Builder(pipeline, 
-        "textoverlay text='' font-desc='Noto Sans CJK KR' halignment=center valignment=top deltay=50")
-        .build();
-
-    log.info("TextOverlay filter created for user: {}", userId);
-
-    // 미디어 파이프라인에 textoverlay 필터를 연결
-    // outgoingMedia의 비디오를 textoverlay 필터를 거쳐서 다시 outgoingMedia로 연결
-    try {
-      log.debug("Connecting textOverlay filter to media pipeline for user: {}", userId);
-    } catch (Exception e) {
-      log.error("Failed to connect textOverlay filter for user {}: {}", userId, e.getMessage());
-    }
-
     // iceCandidateFounder 이벤트 리스너 등록
     // 이벤트가 발생했을 때 다른 유저들에게 새로운 iceCnadidate 후보를 알림
     this.outgoingMedia.addIceCandidateFoundListener(new EventListener<IceCandidateFoundEvent>() {
@@ -105,88 +179,67 @@ public class KurentoUserSession extends UserDto implements Closeable {
 
       @Override
       public void onEvent(IceCandidateFoundEvent event) {
-        // JsonObject 생성
-        JsonObject response = new JsonObject();
-        // id : iceCnadidate, id 는 ice후보자 선정
-        response.addProperty("id", "iceCandidate");
-        // name : 유저명
-        response.addProperty("name", userId);
-        response.addProperty("nickName", nickName);
-
-        // add 랑 addProperty 랑 차이점?
-        // candidate 를 key 로 하고, IceCandidateFoundEvent 객체를 JsonUtils 를 이용해
-        // json 형태로 변환시킨다 => toJsonObject 는 넘겨받은 Object 객체를 JsonObject 로 변환
-        response.add("candidate", JsonUtils.toJsonObject(event.getCandidate()));
-
-        try {
-          /** synchronized 안에는 동기화 필요한 부분 지정*/
-          // 먼저 동기화는 프로세스(스레드)가 수행되는 시점을 조절하여 서로가 알고 있는 정보가 일치하는 것
-          // 여기서는 쉽게 말해 onEvent 를 통해서 넘어오는 모든 session 객체에게 앞에서 생성한 response json 을
-          // 넘겨주게되고 이를 통해서 iceCandidate 상태를 '일치' 시킨다? ==> 여긴 잘 모르겟어요...
-          synchronized (session) {
-            session.sendMessage(new TextMessage(response.toString()));
-          }
-        } catch (IOException e) {
-          log.debug(e.getMessage());
-        }
+        // IceCandidateFoundEvent 객체를 JsonUtils 를 이용해 json 형태로 변환시킨다
+        // => toJsonObject 는 넘겨받은 Object 객체를 JsonObject 로 변환
+        // kurento 이벤트 스레드가 block 되지 않도록 송신 큐에 넣기만 함
+        // 짧은 시간 동안 찾은 candidate 는 하나의 iceCandidates 메시지로 모아서 전송
+        outbox.offerIceCandidate(userId, JsonUtils.toJsonObject(event.getCandidate()));
       }
     });
   }
 
   /**
-   * @desc
-   * @Param userSession, String
+   * @desc sender 의 영상을 받기 위한 sdp 협상
+   * endpoint 생성 → sender 영상 연결 → processOffer → sdpAnswer 전송 → gatherCandidates 를 kurento 비동기 API 로 이어서 실행
+   * 호출한 websocket 스레드는 바로 return 되기 때문에 입장 시 N 명에 대한 협상이 동시에 진행됨
+   * @Param userSession, String, NegotiationMetrics 단계별 소요 시간 기록
+   * @return sdpAnswer 를 송신 큐에 넣으면 완료되는 future
    * */
-  public void receiveVideoFrom(KurentoUserSession sender, String sdpOffer) throws IOException {
+  public CompletableFuture<Void> receiveVideoFrom(KurentoUserSession sender, String sdpOffer, NegotiationMetrics metrics) {
     // 유저가 room 에 들어왓음을 알림
     log.info("USER {}: connecting with {} in room {}", this.getUserId(), sender.getUserId(), this.roomId);
 
     // 들어온 유저가 Sdp 제안
     log.trace("USER {}: SdpOffer for {} is {}", this.getUserId(), sender.getUserId(), sdpOffer);
-
-    /**
-     *
-     *  @Desc sdpOffer 에 대한 결과 String
-     */
-    final String ipSdpAnswer = this.getEndpointForUser(sender).processOffer(sdpOffer);
-
-    final JsonObject scParams = new JsonObject();
-    scParams.addProperty("id", "receiveVideoAnswer");
-    scParams.addProperty("name", sender.getUserId());
-    scParams.addProperty("nickName", sender.getNickName());
-    scParams.addProperty("sdpAnswer", ipSdpAnswer);
-
-    log.trace("USER {}: SdpAnswer for {} is {}", this.getUserId(), sender.getUserId(), ipSdpAnswer);
-    this.sendMessage(scParams);
-    log.debug("gather candidates");
-    this.getEndpointForUser(sender).gatherCandidates();
+    long startedAt = System.nanoTime();
+
+    return this.getEndpointForUser(sender, metrics).thenCompose(endpoint ->
+            // sdpOffer 에 대한 결과 String
+            metrics.time(NegotiationMetrics.Stage.PROCESS_OFFER,
+                    () -> KurentoFutures.<String>call(continuation -> endpoint.processOffer(sdpOffer, continuation)))
+                    .thenAccept(ipSdpAnswer -> {
+                      final JsonObject scParams = new JsonObject();
+                      scParams.addProperty("id", "receiveVideoAnswer");
+                      scParams.addProperty("name", sender.getUserId());
+                      scParams.addProperty("nickName", sender.getNickName());
+                      scParams.addProperty("sdpAnswer", ipSdpAnswer);
+
+                      log.trace("USER {}: SdpAnswer for {} is {}", this.getUserId(), sender.getUserId(), ipSdpAnswer);
+                      this.sendMessage(new TextMessage(scParams.toString()));
+                      metrics.record(NegotiationMetrics.Stage.ANSWER_SENT, System.nanoTime() - startedAt);
+
+                      log.debug("gather candidates");
+                      KurentoFutures.<Void>call(endpoint::gatherCandidates).exceptionally(cause -> {
+                        log.warn("PARTICIPANT {}: could not gather candidates for {} ::: {}",
+                                this.getUserId(), sender.getUserId(), cause.getMessage());
+                        return null;
+                      });
+                    }));
   }
 
   /**
-   * @Desc userSession 을 통해서 해당 유저의 WebRtcEndPoint 객체를 가져옴
+   * @Desc userSession 을 통해서 해당 유저의 WebRtcEndPoint 객체를 가져옴, 없으면 비동기로 생성
+   * 같은 sender 에 대해 생성 중인 endpoint 가 있으면 같은 future 를 return
    * @Param UserSession : 보내는 유저의 userSession 객체
-   * @return WebRtcEndPoint
+   * @return WebRtcEndPoint future
    * */
-  private WebRtcEndpoint getEndpointForUser(final KurentoUserSession sender) {
+  private CompletableFuture<WebRtcEndpoint> getEndpointForUser(final KurentoUserSession sender, NegotiationMetrics metrics) {
     // 만약 sender 명이 현재 user명과 일치한다면, 즉 sdpOffer 제안을 보내는 쪽과 받는 쪽이 동일하다면?
-    // loopback 임을 찍고, textoverlay 필터를 연결한 후 outgoingMedia 를 return
+    // loopback 임을 찍고 outgoingMedia 를 return
+    // 자신의 영상은 브라우저의 local stream 으로 보여주기 때문에 KMS 에서 다시 돌려보내지 않음
     if (sender.getUserId().equals(this.getUserId())) {
-      log.debug("PARTICIPANT {}: configuring loopback with textoverlay", this.getUserId());
-
-      // textoverlay 필터를 outgoingMedia에 연결
-      if (this.textOverlayFilter != null) {
-        try {
-          // outgoingMedia → textOverlayFilter → outgoingMedia : 자신의 비디오에 text overlay 기능 활성화
-          // 이렇게 하면 자신의 비디오에 텍스트 오버레이가 적용
-          this.outgoingMedia.connect(this.textOverlayFilter);
-          this.textOverlayFilter.connect(this.outgoingMedia);
-          log.debug("Connecting textoverlay filter for loopback user: {}", this.getUserId());
-        } catch (Exception e) {
-          log.error("Failed to connect textoverlay for loopback user {}: {}", this.getUserId(), e.getMessage());
-        }
-      }
-
-      return outgoingMedia;
+      log.debug("PARTICIPANT {}: configuring loopback", this.getUserId());
+      return CompletableFuture.completedFuture(outgoingMedia);
     }
 
     // 참여자 name 이 sender 로부터 비디오를 받음을 확인
@@ -194,78 +247,127 @@ public class KurentoUserSession extends UserDto implements Closeable {
 
     // sender 의 이름으로 나의 incomingMedia 에서 sender 의 webrtcEndpoint 객체를 가져옴
     WebRtcEndpoint incomingMedia = this.incomingMedia.get(sender.getUserId());
+    if (incomingMedia != null) {
+      log.debug("PARTICIPANT {}: obtained endpoint for {}", this.getUserId(), sender.getUserId());
+      return CompletableFuture.completedFuture(incomingMedia);
+    }
 
-    // 만약 가져온 incomingMedia 이 null 이라면
-    // 즉 현재 내가 갖고 있는 incomingMedia 에 sender 의 webrtcEndPoint 객체가 없다면
-    if (incomingMedia == null) {
-      // 새로운 endpoint 가 만들어졌음을 확인
-      log.debug("PARTICIPANT {}: creating new endpoint for {}", this.getUserId(), sender.getUserId());
-
-      // 새로 incomingMedia , 즉 webRtcEndpoint 를 만들고
-      incomingMedia = new WebRtcEndpoint.Builder(pipeline)
-              .useDataChannels()
-              .build();
-
-      // sender의 textoverlay 필터를 이 incomingMedia에 연결
-      if (sender.textOverlayFilter != null) {
-        try {
-          log.debug("Connecting sender's textoverlay filter from {} to {}", sender.getUserId(), this.getUserId());
-          // sender의 outgoingMedia → sender의 textOverlayFilter → 이 incomingMedia
-          sender.outgoingMedia.connect(sender.textOverlayFilter);
-          sender.textOverlayFilter.connect(incomingMedia);
-          log.debug("Successfully connected textoverlay filter from {} to {}", sender.getUserId(), this.getUserId());
-        } catch (Exception e) {
-          log.error("Failed to connect textoverlay filter from {} to {}: {}", sender.getUserId(), this.getUserId(), e.getMessage());
-          // 실패 시 직접 연결
-          sender.outgoingMedia.connect(incomingMedia);
-        }
+    // 즉 현재 내가 갖고 있는 incomingMedia 에 sender 의 webrtcEndPoint 객체가 없다면 새로 생성
+    // 생성을 시작하기 전에 endpointBuilds 에 먼저 등록 => cancelVideoFrom 이 생성 중인 endpoint 를 취소할 수 있음
+    String senderId = sender.getUserId();
+    CompletableFuture<WebRtcEndpoint> build = new CompletableFuture<>();
+    CompletableFuture<WebRtcEndpoint> existing = endpointBuilds.putIfAbsent(senderId, build);
+    if (existing != null) {
+      return existing;
+    }
+    this.buildIncomingEndpoint(sender, metrics, build).whenComplete((endpoint, cause) -> {
+      endpointBuilds.remove(senderId, build);
+      if (cause != null) {
+        build.completeExceptionally(cause);
       } else {
-        // textoverlay 필터가 없으면 직접 연결
-        sender.outgoingMedia.connect(incomingMedia);
+        build.complete(endpoint);
       }
+    });
+    return build;
+  }
 
-      // incomingMedia 객체의 addIceCandidateFoundListener 메서드 실행
-      incomingMedia.addIceCandidateFoundListener(new EventListener<IceCandidateFoundEvent>() {
-
-        @Override
-        public void onEvent(IceCandidateFoundEvent event) {
-          // json 오브젝트 생성
-          JsonObject response = new JsonObject();
-
-          // { id : "iceCandidate"}
-          response.addProperty("id", "iceCandidate");
-          // { name : sender 의 유저명}
-          response.addProperty("name", sender.getUserId());
-          // {candidate : { event.getCandidate 를 json 으로 만든 형태 }
-          response.add("candidate", JsonUtils.toJsonObject(event.getCandidate()));
-          try {
-            // 새로 webRtcEndpoint 가 만들어 졌기 때문에 모든 UserSession 이 이것을 동일하게 공유해야 할 필요가 있다.
-            // 즉 모든 UserSession 의 정보를 일치시키기 위해 동기화 - synchronized - 실행
-            // 이를 통해서 모든 user 의 incomingMedia 가 동일하게 일치 - 동기화 - 됨
-            synchronized (session) {
-              session.sendMessage(new TextMessage(response.toString()));
-            }
-          } catch (IOException e) {
-            log.debug(e.getMessage());
-          }
-        }
-      });
+  /**
+   * @desc sender 의 영상을 받을 incomingMedia 생성
+   * 생성 후 ice listener 등록과 sender 영상 연결은 동시에 요청하고 둘 다 끝나면 incomingMedia 에 등록
+   * */
+  private CompletableFuture<WebRtcEndpoint> buildIncomingEndpoint(final KurentoUserSession sender, NegotiationMetrics metrics,
+                                                                  CompletableFuture<WebRtcEndpoint> build) {
+    // 새로운 endpoint 가 만들어졌음을 확인
+    log.debug("PARTICIPANT {}: creating new endpoint for {}", this.getUserId(), sender.getUserId());
+
+    return metrics.time(NegotiationMetrics.Stage.ENDPOINT_BUILD,
+            () -> KurentoFutures.<WebRtcEndpoint>call(continuation -> new WebRtcEndpoint.Builder(pipeline)
+                    .useDataChannels()
+                    .buildAsync(continuation)))
+            .thenCompose(endpoint -> metrics.time(NegotiationMetrics.Stage.CONNECT, () -> {
+              // incomingMedia 객체의 addIceCandidateFoundListener 메서드 실행
+              // 새로 webRtcEndpoint 가 만들어 졌기 때문에 해당 유저에게 candidate 를 알림
+              // { name : sender 의 유저명, candidate : event.getCandidate 를 json 으로 만든 형태 }
+              CompletableFuture<ListenerSubscription> listener = KurentoFutures.call(continuation ->
+                      endpoint.addIceCandidateFoundListener(event -> outbox.offerIceCandidate(sender.getUserId(),
+                              JsonUtils.toJsonObject(event.getCandidate())), continuation));
+
+              // sender 의 outgoingMedia → 이 incomingMedia 연결
+              // sender 가 텍스트 오버레이 중이면 sender 의 textOverlayFilter 를 거쳐서 연결됨
+              CompletableFuture<Void> connect = sender.connectOutgoingAsync(this.getUserId(), endpoint);
+
+              // sdp 협상 전에 현재 방 인원 수에 맞는 송신 대역폭 적용
+              CompletableFuture<Void> bandwidth = this.applyDownlinkBandwidth(sender.getUserId(), endpoint, bandwidthLimits);
+              return CompletableFuture.allOf(listener, connect, bandwidth);
+            }).handle((result, cause) -> {
+              if (cause == null && !closed && this.registerIncomingEndpoint(sender.getUserId(), endpoint, build)) {
+                return endpoint;
+              }
+              // 연결에 실패했거나 그 사이 유저가 나갔거나 sender 영상 수신이 취소된 경우 만들어둔 endpoint 제거
+              sender.outgoingSinks.remove(this.getUserId(), endpoint);
+              endpoint.release(new Continuation<Void>() {
+                @Override
+                public void onSuccess(Void released) {}
+
+                @Override
+                public void onError(Throwable releaseCause) {
+                  log.debug("PARTICIPANT {}: could not release incoming EP for {}", getUserId(), sender.getUserId());
+                }
+              });
+              if (cause != null) {
+                throw new CompletionException(cause);
+              }
+              throw new CompletionException(new CancellationException(closed
+                      ? "participant " + getUserId() + " already closed"
+                      : "video from " + sender.getUserId() + " was cancelled"));
+            }));
+  }
 
-      // incomingMedia 에 유저명과 새로 생성된 incomingMedia - webrtcEndPoint 객체 - 을 넣어준다
-      this.incomingMedia.put(sender.getUserId(), incomingMedia);
+  /**
+   * @desc incomingMedia 에 유저명과 새로 생성된 incomingMedia - webrtcEndPoint 객체 - 을 넣어준다
+   * endpoint 가 만들어지기 전에 먼저 도착해서 보관해둔 candidate 를 적용
+   * @return 생성 중에 cancelVideoFrom 으로 취소된 경우 false => 등록하지 않음
+   * */
+  private boolean registerIncomingEndpoint(String senderId, WebRtcEndpoint endpoint, CompletableFuture<WebRtcEndpoint> build) {
+    List<IceCandidate> pending;
+    synchronized (pendingCandidates) {
+      if (endpointBuilds.get(senderId) != build) {
+        log.debug("PARTICIPANT {}: endpoint for {} was cancelled while building", this.getUserId(), senderId);
+        return false;
+      }
+      this.incomingMedia.put(senderId, endpoint);
+      pending = pendingCandidates.remove(senderId);
     }
-
-    log.debug("PARTICIPANT {}: obtained endpoint for {}", this.getUserId(), sender.getUserId());
-
-    return incomingMedia;
+    if (pending != null) {
+      log.debug("PARTICIPANT {}: applying {} buffered candidates for {}", this.getUserId(), pending.size(), senderId);
+      for (IceCandidate candidate : pending) {
+        KurentoFutures.<Void>call(continuation -> endpoint.addIceCandidate(candidate, continuation))
+                .exceptionally(cause -> {
+                  log.debug("PARTICIPANT {}: could not add buffered candidate for {} ::: {}",
+                          this.getUserId(), senderId, cause.getMessage());
+                  return null;
+                });
+      }
+    }
+    log.debug("PARTICIPANT {}: obtained endpoint for {}", this.getUserId(), senderId);
+    return true;
   }
 
+  /**
+   * @desc sender 의 outgoingSinks 에서도 '나'의 endpoint 제거 => 오버레이 변경 시 release 된 endpoint 에 다시 연결하지 않음
+   * */
   public void cancelVideoFrom(final KurentoUserSession sender) {
     this.cancelVideoFrom(sender.getUserId());
+    sender.removeOutgoingSink(this.getUserId());
   }
 
   public void cancelVideoFrom(final String senderName) {
     log.debug("PARTICIPANT {}: canceling video reception from {}", this.getUserId(), senderName);
+    synchronized (pendingCandidates) {
+      pendingCandidates.remove(senderName);
+      // 생성 중인 endpoint 는 생성이 끝나면 등록하지 않고 release
+      endpointBuilds.remove(senderName);
+    }
     final WebRtcEndpoint incoming = incomingMedia.remove(senderName);
 
     log.debug("PARTICIPANT {}: removing endpoint for {}", this.getUserId(), senderName);
@@ -286,9 +388,189 @@ public class KurentoUserSession extends UserDto implements Closeable {
     }
   }
 
+  /**
+   * @desc '나'의 영상을 receiver 의 endpoint 에 연결
+   * 텍스트 오버레이 필터가 있으면 필터를 거쳐서, 없으면 outgoingMedia 에서 바로 연결
+   * */
+  private void connectOutgoing(String receiverId, MediaElement sink) {
+    synchronized (overlayLock) {
+      outgoingSinks.put(receiverId, sink);
+      videoPausedReceivers.remove(receiverId);
+      MediaElement source = textOverlayFilter != null ? textOverlayFilter : outgoingMedia;
+      source.connect(sink);
+    }
+  }
+
+  /**
+   * @desc connectOutgoing 의 비동기 버전 : 연결 요청만 하고 KMS 응답은 future 로 받음
+   * */
+  private CompletableFuture<Void> connectOutgoingAsync(String receiverId, MediaElement sink) {
+    synchronized (overlayLock) {
+      outgoingSinks.put(receiverId, sink);
+      videoPausedReceivers.remove(receiverId);
+      MediaElement source = textOverlayFilter != null ? textOverlayFilter : outgoingMedia;
+      return KurentoFutures.call(continuation -> source.connect(sink, continuation));
+    }
+  }
+
+  /**
+   * @desc receiver 의 endpoint 로 가는 '나'의 영상(video) 연결만 끊음
+   * 화면에 보이지 않아도 목소리는 들려야 하기 때문에 audio 는 그대로 연결
+   * */
+  private void pauseOutgoingVideo(String receiverId) {
+    synchronized (overlayLock) {
+      MediaElement sink = outgoingSinks.get(receiverId);
+      if (sink == null || !videoPausedReceivers.add(receiverId)) {
+        return;
+      }
+      MediaElement source = textOverlayFilter != null ? textOverlayFilter : outgoingMedia;
+      source.disconnect(sink, MediaType.VIDEO);
+    }
+  }
+
+  /**
+   * @desc sender 의 영상이 화면에서 사라진 경우 incomingMedia 는 남겨두고 sender → incomingMedia 의 video 연결만 끊음
+   * 연결이 끊긴 동안 KMS 는 해당 endpoint 로 영상을 보내지 않음
+   * */
+  public void pauseVideoFrom(final KurentoUserSession sender) {
+    if (incomingMedia.containsKey(sender.getUserId())) {
+      log.debug("PARTICIPANT {}: pausing video reception from {}", this.getUserId(), sender.getUserId());
+      sender.pauseOutgoingVideo(this.getUserId());
+    }
+  }
+
+  /**
+   * @desc pause 했던 incomingMedia 에 sender 의 영상을 다시 연결 => sdp 협상 없이 바로 영상이 들어옴
+   * @return incomingMedia 가 없어서 다시 연결하지 못한 경우 false
+   * */
+  public boolean resumeVideoFrom(final KurentoUserSession sender) {
+    WebRtcEndpoint incoming = incomingMedia.get(sender.getUserId());
+    if (incoming == null) {
+      return false;
+    }
+    log.debug("PARTICIPANT {}: resuming video reception from {}", this.getUserId(), sender.getUserId());
+    sender.connectOutgoing(this.getUserId(), incoming);
+    return true;
+  }
+
+  /**
+   * @desc composite 방으로 전환
+   * 다른 사람에게서 받던 incomingMedia 를 모두 release 하고
+   * outgoingMedia → hubPort → outgoingMedia 로 연결 => 이미 sendrecv 로 연결된 outgoingMedia 로 합쳐진 영상을 받음
+   * */
+  public void joinComposite(Composite composite) {
+    synchronized (overlayLock) {
+      if (hubPort != null) {
+        return;
+      }
+      for (String senderName : incomingMedia.keySet()) {
+        this.cancelVideoFrom(senderName);
+      }
+      outgoingSinks.clear();
+      videoPausedReceivers.clear();
+
+      hubPort = new HubPort.Builder(composite).build();
+      hubPort.connect(outgoingMedia);
+      this.connectOutgoing(this.getUserId(), hubPort);
+      log.debug("PARTICIPANT {}: joined composite of room {}", this.getUserId(), this.roomId);
+    }
+  }
+
+  public boolean isComposite() {
+    return hubPort != null;
+  }
+
+  /**
+   * @desc 방 인원 수에 맞는 대역폭 제한 적용
+   * outgoingMedia : '나'의 영상을 KMS 가 받는 uplink, composite 방이면 합쳐진 영상을 보내는 downlink 도 제한
+   * incomingMedia : KMS 가 '나'에게 보내는 sender 영상 하나의 downlink
+   * 이전에 적용한 값과 차이가 작으면 KMS 호출 생략
+   * */
+  public synchronized void applyBandwidth(BandwidthPolicy.Limits limits) {
+    this.bandwidthLimits = limits;
+    if (closed || !limits.differsSignificantly(appliedBandwidthLimits)) {
+      return;
+    }
+    this.appliedBandwidthLimits = limits;
+
+    log.debug("PARTICIPANT {}: applying bandwidth limits {}", this.getUserId(), limits);
+    this.setBandwidth("uplink max", continuation -> outgoingMedia.setMaxVideoRecvBandwidth(limits.uplinkMaxKbps(), continuation));
+    this.setBandwidth("uplink min", continuation -> outgoingMedia.setMinVideoRecvBandwidth(limits.minKbps(), continuation));
+    if (this.isComposite()) {
+      this.applyDownlinkBandwidth(this.getUserId(), outgoingMedia, limits);
+    }
+    incomingMedia.forEach((senderId, endpoint) -> this.applyDownlinkBandwidth(senderId, endpoint, limits));
+  }
+
+  private CompletableFuture<Void> applyDownlinkBandwidth(String senderId, WebRtcEndpoint endpoint, BandwidthPolicy.Limits limits) {
+    if (limits == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return CompletableFuture.allOf(
+            this.setBandwidth("downlink max " + senderId,
+                    continuation -> endpoint.setMaxVideoSendBandwidth(limits.downlinkMaxKbps(), continuation)),
+            this.setBandwidth("downlink min " + senderId,
+                    continuation -> endpoint.setMinVideoSendBandwidth(limits.minKbps(), continuation)));
+  }
+
+  /**
+   * @desc 대역폭 설정은 실패해도 영상 연결에는 영향이 없기 때문에 로그만 남김
+   * */
+  private CompletableFuture<Void> setBandwidth(String target, Consumer<Continuation<Void>> call) {
+    return KurentoFutures.call(call).exceptionally(cause -> {
+      log.debug("PARTICIPANT {}: could not set {} bandwidth ::: {}", this.getUserId(), target, cause.getMessage());
+      return null;
+    });
+  }
+
+  /**
+   * @desc 방을 나간 receiver 의 endpoint 제거
+   * */
+  public void removeOutgoingSink(String receiverId) {
+    outgoingSinks.remove(receiverId);
+    videoPausedReceivers.remove(receiverId);
+  }
+
+  /**
+   * @desc pipeline 을 통째로 release 하는 경우 사용 => KMS 호출 없이 참조만 정리
+   * pipeline 이 release 되면 KMS 가 pipeline 안의 endpoint / filter / hubPort 를 함께 제거하기 때문에
+   * endpoint 마다 release 를 요청할 필요가 없음
+   * */
+  public void detach() {
+    log.debug("PARTICIPANT {}: Detaching from released pipeline", this.getUserId());
+    closed = true;
+    synchronized (subscription) {
+      subscription.close();
+    }
+    synchronized (overlayLock) {
+      this.cancelOverlayTasks();
+      textOverlayFilter = null;
+      hubPort = null;
+      outgoingSinks.clear();
+      videoPausedReceivers.clear();
+    }
+    synchronized (pendingCandidates) {
+      pendingCandidates.clear();
+    }
+    incomingMedia.clear();
+  }
+
   @Override
   public void close() throws IOException {
     log.debug("PARTICIPANT {}: Releasing resources", this.getUserId());
+    closed = true;
+    synchronized (subscription) {
+      subscription.close();
+    }
+    this.releaseTextOverlay(false);
+    if (hubPort != null) {
+      try {
+        hubPort.release();
+      } catch (Exception e) {
+        log.debug("PARTICIPANT {}: Could not release hub port ::: {}", this.getUserId(), e.getMessage());
+      }
+    }
+
     for (final String remoteParticipantName : incomingMedia.keySet()) {
 
       log.trace("PARTICIPANT {}: Released incoming EP for {}", this.getUserId(), remoteParticipantName);
@@ -325,29 +607,62 @@ public class KurentoUserSession extends UserDto implements Closeable {
     });
   }
 
-  public void sendMessage(JsonObject message) throws IOException {
+  /**
+   * @desc 메시지를 송신 큐에 넣고 바로 return => 느린 유저에게 보내더라도 호출한 스레드는 block 되지 않음
+   * 전송 실패 또는 큐가 가득 찬 경우 연결이 종료되고 afterConnectionClosed 에서 퇴장 처리됨
+   * */
+  public void sendMessage(JsonObject message) {
     log.debug("USER {}: Sending message {}", getUserId(), message);
-    synchronized (session) {
-      try {
-        session.sendMessage(new TextMessage(message.toString()));
-      } catch (Exception e) {
-        e.printStackTrace();
-        message.addProperty("id", "ConnectionFail");
-        message.addProperty("data", e.getMessage());
-        this.sendMessage(message);
-      }
+    if (!outbox.offer(message.toString())) {
+      log.debug("USER {}: message dropped, session outbound queue is closed", getUserId());
+    }
+  }
+
+  /**
+   * @desc 버려져도 되는 메시지 전송 : 큐에 같은 key 의 메시지가 남아있으면 최신 메시지로 대체되고
+   * 큐가 가득 찬 경우 연결을 끊지 않고 버려짐
+   * */
+  public void sendNonCriticalMessage(JsonObject message, String key) {
+    if (!outbox.offerNonCritical(new TextMessage(message.toString()), key)) {
+      log.debug("USER {}: non-critical message {} dropped", getUserId(), key);
+    }
+  }
+
+  /**
+   * @desc broadcast 용 : 이미 직렬화된 frame 을 그대로 송신 큐에 넣음
+   * */
+  public boolean sendMessage(TextMessage frame) {
+    boolean queued = outbox.offer(frame);
+    if (!queued) {
+      log.debug("USER {}: message dropped, session outbound queue is closed", getUserId());
     }
+    return queued;
   }
 
+  /**
+   * @desc client 가 보낸 candidate 적용
+   * receiveVideoFrom 보다 candidate 가 먼저 도착한 경우 endpoint 가 만들어질 때까지 보관
+   * */
   public void addCandidate(IceCandidate candidate, String name) {
     if (this.getUserId().compareTo(name) == 0) {
       outgoingMedia.addIceCandidate(candidate);
-    } else {
-      WebRtcEndpoint webRtc = incomingMedia.get(name);
-      if (webRtc != null) {
-        webRtc.addIceCandidate(candidate);
+      return;
+    }
+
+    WebRtcEndpoint webRtc;
+    synchronized (pendingCandidates) {
+      webRtc = incomingMedia.get(name);
+      if (webRtc == null) {
+        List<IceCandidate> pending = pendingCandidates.computeIfAbsent(name, key -> new ArrayList<>());
+        if (pending.size() < MAX_PENDING_CANDIDATES) {
+          pending.add(candidate);
+        } else {
+          log.debug("PARTICIPANT {}: too many buffered candidates for {}, dropping", this.getUserId(), name);
+        }
+        return;
       }
     }
+    webRtc.addIceCandidate(candidate);
   }
 
   /*
@@ -386,34 +701,113 @@ public class KurentoUserSession extends UserDto implements Closeable {
 
   /**
    * @desc 텍스트 오버레이 표시
+   * 필터가 없으면 만들어서 outgoingMedia → textOverlayFilter → 다른 사람의 incomingMedia 로 다시 연결
    * @param text 오버레이할 텍스트
    */
   public void showTextOverlay(String text) {
-    try {
-      if (textOverlayFilter != null && text != null && !text.trim().isEmpty()) {
+    if (text == null || text.trim().isEmpty()) {
+      log.warn("Cannot show text overlay - text is empty for user: {}", this.getUserId());
+      return;
+    }
+
+    synchronized (overlayLock) {
+      try {
+        if (textOverlayFilter == null) {
+          this.attachTextOverlay();
+        }
         log.debug("Showing text overlay for user {}: {}", this.getUserId(), text);
 
         // GStreamer textoverlay 필터의 text 속성 업데이트
         textOverlayFilter.setElementProperty("text", text);
 
-        log.debug("Text overlay updated successfully: {}", text);
+        // 3초 후 텍스트 제거, OVERLAY_IDLE_MS 동안 새로운 텍스트가 없으면 필터 제거
+        this.cancelOverlayTasks();
+        overlayClearTask = OVERLAY_SCHEDULER.schedule(this::clearTextOverlay, OVERLAY_TEXT_MS, TimeUnit.MILLISECONDS);
+        overlayReleaseTask = OVERLAY_SCHEDULER.schedule(() -> this.releaseTextOverlay(true), OVERLAY_IDLE_MS, TimeUnit.MILLISECONDS);
+      } catch (Exception e) {
+        log.error("Error showing text overlay for user {}: {}", this.getUserId(), e.getMessage());
+      }
+    }
+  }
 
-        // 3초 후 텍스트 제거
-        new Thread(() -> {
-          try {
-            Thread.sleep(3000);
-            textOverlayFilter.setElementProperty("text", "");
-            log.debug("Text overlay cleared for user: {}", this.getUserId());
-          } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-          }
-        }).start();
+  /**
+   * @desc 텍스트 오버레이 필터 생성 후 모든 receiver 를 필터를 거치도록 다시 연결
+   * synchronized (overlayLock) 안에서만 호출
+   * */
+  private void attachTextOverlay() {
+    GStreamerFilter filter = new GStreamerFilter.Builder(pipeline, TEXT_OVERLAY_COMMAND).build();
+    outgoingMedia.connect(filter);
+    // sink 는 하나의 source 만 갖기 때문에 필터를 연결하면 기존 outgoingMedia 연결은 대체됨
+    this.reconnectSinks(filter);
+    this.textOverlayFilter = filter;
+    log.info("TextOverlay filter attached for user: {}", this.getUserId());
+  }
 
-      } else {
-        log.warn("Cannot show text overlay - filter not initialized or text is empty for user: {}", this.getUserId());
+  private void clearTextOverlay() {
+    synchronized (overlayLock) {
+      try {
+        if (textOverlayFilter != null) {
+          textOverlayFilter.setElementProperty("text", "");
+          log.debug("Text overlay cleared for user: {}", this.getUserId());
+        }
+      } catch (Exception e) {
+        log.debug("Could not clear text overlay for user {}: {}", this.getUserId(), e.getMessage());
       }
-    } catch (Exception e) {
-      log.error("Error showing text overlay for user {}: {}", this.getUserId(), e.getMessage());
+    }
+  }
+
+  /**
+   * @desc 텍스트 오버레이 필터 제거
+   * @param reconnect true 면 receiver 를 다시 outgoingMedia 에 직접 연결
+   * */
+  private void releaseTextOverlay(boolean reconnect) {
+    synchronized (overlayLock) {
+      this.cancelOverlayTasks();
+      GStreamerFilter filter = this.textOverlayFilter;
+      if (filter == null) {
+        return;
+      }
+      this.textOverlayFilter = null;
+
+      try {
+        if (reconnect) {
+          this.reconnectSinks(outgoingMedia);
+        }
+        filter.release();
+        log.info("TextOverlay filter released for user: {}", this.getUserId());
+      } catch (Exception e) {
+        log.debug("Could not release text overlay for user {}: {}", this.getUserId(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * @desc 모든 receiver 를 source 에 다시 연결, 이미 release 된 receiver 는 제거
+   * */
+  private void reconnectSinks(MediaElement source) {
+    outgoingSinks.forEach((receiverId, sink) -> {
+      try {
+        // 영상이 pause 된 receiver 는 audio 만 연결
+        if (videoPausedReceivers.contains(receiverId)) {
+          source.connect(sink, MediaType.AUDIO);
+        } else {
+          source.connect(sink);
+        }
+      } catch (Exception e) {
+        log.debug("PARTICIPANT {}: could not reconnect {} ::: {}", this.getUserId(), receiverId, e.getMessage());
+        outgoingSinks.remove(receiverId, sink);
+      }
+    });
+  }
+
+  private void cancelOverlayTasks() {
+    if (overlayClearTask != null) {
+      overlayClearTask.cancel(false);
+      overlayClearTask = null;
+    }
+    if (overlayReleaseTask != null) {
+      overlayReleaseTask.cancel(false);
+      overlayReleaseTask = null;
     }
   }
 }
\ No newline at end of file
@@ -0,0 +1,403 @@
+package webChat.service.kurento;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.kurento.client.MediaPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 방별 MediaPipeline 생명주기 관리
+ * - 입장 시 acquire, 퇴장 시 release 로 pipeline 을 사용하는 참여자 수를 관리
+ * - 참여자가 없는 pipeline 은 idle_grace_ms 가 지나면 release => 재입장이 잦은 방은 pipeline 을 다시 만들지 않음
+ * - release 된 pipeline, KMS 에서 사라진 pipeline, DOWN 된 KMS 의 pipeline 은 제거하고 다음 입장 시 새로 생성
+ * - 방의 pipeline 확인 / 생성 예약은 ConcurrentHashMap.compute 안에서 처리 => 동시에 입장해도 방마다 하나의 pipeline 만 생성
+ *   KMS 호출은 compute 밖에서 진행하고, 같은 방에 동시에 입장한 참여자는 방의 future 로 생성 결과를 기다림
+ */
+@Component
+@Slf4j
+public class MediaPipelineManager {
+
+    private final KurentoClientPool kurentoClientPool;
+    private final MediaPipelinePool mediaPipelinePool;
+    private final KurentoParticipantService participantService;
+    private final MeterRegistry meterRegistry;
+
+    // 참여자가 모두 나간 후 pipeline 을 유지하는 시간
+    @Value("${chatforyou.kurento.pipeline.idle_grace_ms:60000}")
+    private long idleGraceMs;
+
+    // 여러 방을 한번에 삭제할 때 동시에 진행할 수 있는 pipeline release 수
+    @Value("${chatforyou.kurento.teardown.parallelism:8}")
+    private int teardownParallelism;
+
+    // pipeline 상태 확인 응답을 기다리는 최대 시간
+    @Value("${chatforyou.kurento.pipeline.health_check_timeout_ms:3000}")
+    private long healthCheckTimeoutMs;
+
+    // roomId : pipeline
+    private final Map<String, RoomPipeline> pipelines = new ConcurrentHashMap<>();
+    // pipeline 이 제거될 때 실행할 listener : roomId 를 받음
+    private final List<Consumer<String>> releaseListeners = new CopyOnWriteArrayList<>();
+    // 방이 남아있는데 pipeline 을 잃었을 때 실행할 listener : roomId 를 받음, 방 삭제로 제거된 경우는 실행하지 않음
+    private final List<Consumer<String>> mediaLostListeners = new CopyOnWriteArrayList<>();
+
+    public MediaPipelineManager(KurentoClientPool kurentoClientPool, MediaPipelinePool mediaPipelinePool,
+                                KurentoParticipantService participantService, MeterRegistry meterRegistry) {
+        this.kurentoClientPool = kurentoClientPool;
+        this.mediaPipelinePool = mediaPipelinePool;
+        this.participantService = participantService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    private void init() {
+        Gauge.builder("chatforyou_kurento_live_pipelines", pipelines, Map::size)
+                .description("number of MediaPipelines held by rooms")
+                .register(meterRegistry);
+        Gauge.builder("chatforyou_kurento_live_endpoints", this, MediaPipelineManager::countEndpoints)
+                .description("number of WebRtcEndpoints held by participants of live pipelines")
+                .register(meterRegistry);
+
+        // KMS 가 DOWN 되면 해당 KMS 에 있던 방의 pipeline 은 이미 사라졌기 때문에 release 없이 제거
+        kurentoClientPool.addServerDownListener((server, roomIds) -> {
+            for (String roomId : roomIds) {
+                RoomPipeline removed = pipelines.remove(roomId);
+                if (removed != null) {
+                    log.warn("ROOM {}: pipeline on KMS {} is lost", roomId, server.getId());
+                    this.notifyReleased(roomId, true);
+                }
+            }
+        });
+    }
+
+    /**
+     * acquire 결과 : 방의 pipeline 과 pipeline 이 있는 KMS
+     */
+    public record Lease(MediaPipeline pipeline, KurentoMediaServer server) {}
+
+    /**
+     * 입장하는 참여자를 위한 방의 pipeline
+     * pipeline 이 없거나 사용할 수 없으면 방을 KMS 에 배치하고 새로 생성
+     * compute 안에서는 참여자 수 증가 / 생성 예약만 하고 KMS 호출은 compute 밖에서 진행 => 다른 방의 입장이 기다리지 않음
+     */
+    public Lease acquire(String roomId) {
+        RoomPipeline[] replaced = {null};
+        boolean[] creating = {false};
+        RoomPipeline roomPipeline = pipelines.compute(roomId, (key, current) -> {
+            if (current != null && current.isUsable()) {
+                current.participants++;
+                return current;
+            }
+            replaced[0] = current;
+            creating[0] = true;
+            RoomPipeline created = new RoomPipeline();
+            created.participants = 1;
+            return created;
+        });
+
+        if (replaced[0] != null) {
+            log.warn("ROOM {}: pipeline is not usable, creating a new one", roomId);
+            this.releasePipeline(roomId, replaced[0]);
+            this.notifyReleased(roomId, true);
+        }
+        if (creating[0]) {
+            this.createPipeline(roomId, roomPipeline);
+        }
+
+        try {
+            return roomPipeline.lease.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * 방을 KMS 에 배치하고 pipeline 생성, 실패하면 기다리던 참여자도 함께 실패하고 다음 입장 시 다시 생성
+     */
+    private void createPipeline(String roomId, RoomPipeline roomPipeline) {
+        try {
+            // 방이 배치된 KMS, 처음 입장하는 방이면 가장 부하가 적은 KMS 에 배치
+            KurentoMediaServer server = kurentoClientPool.place(roomId);
+            MediaPipeline pipeline = mediaPipelinePool.acquire(server);
+            log.info("ROOM {}: pipeline {} created on KMS {}", roomId, pipeline.getId(), server.getId());
+            roomPipeline.lease.complete(new Lease(pipeline, server));
+        } catch (RuntimeException e) {
+            pipelines.remove(roomId, roomPipeline);
+            roomPipeline.lease.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 퇴장 또는 입장 실패 시 호출, 마지막 참여자가 나가면 idle 상태로 전환
+     * 참여자가 사용하던 pipeline 이 이미 교체된 경우(KMS DOWN 등) 새로운 pipeline 의 참여자 수는 바꾸지 않음
+     *
+     * @param pipeline 참여자가 acquire 로 받은 pipeline
+     */
+    public void release(String roomId, MediaPipeline pipeline) {
+        pipelines.computeIfPresent(roomId, (key, current) -> {
+            Lease lease = current.leaseNow();
+            if (lease == null || lease.pipeline() != pipeline) {
+                return current;
+            }
+            if (current.participants > 0 && --current.participants == 0) {
+                current.idleSince = System.currentTimeMillis();
+            }
+            return current;
+        });
+    }
+
+    /**
+     * 방의 pipeline, 없으면 null
+     */
+    public MediaPipeline getPipeline(String roomId) {
+        RoomPipeline roomPipeline = pipelines.get(roomId);
+        Lease lease = roomPipeline == null ? null : roomPipeline.leaseNow();
+        return lease == null ? null : lease.pipeline();
+    }
+
+    /**
+     * pipeline 이 있는 방 목록
+     */
+    public Set<String> getRoomIds() {
+        return Set.copyOf(pipelines.keySet());
+    }
+
+    /**
+     * 방 삭제 시 참여자 수와 상관없이 바로 pipeline release
+     *
+     * @return KMS 가 release 를 완료하면 완료되는 future
+     */
+    public CompletableFuture<Void> destroy(String roomId) {
+        RoomPipeline removed = pipelines.remove(roomId);
+        kurentoClientPool.unplace(roomId);
+        if (removed == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> release = this.releasePipeline(roomId, removed);
+        this.notifyReleased(roomId, false);
+        return release;
+    }
+
+    /**
+     * 여러 방을 한번에 삭제 => 서버 종료 시 사용
+     * 동시에 진행하는 release 는 teardown.parallelism 개로 제한하고 앞의 release 가 끝나면 다음 release 요청
+     * 호출한 스레드는 release 를 기다리지 않음
+     *
+     * @return 모든 release 가 완료되면 완료되는 future
+     */
+    public CompletableFuture<Void> destroyAll(Collection<String> roomIds) {
+        Queue<Map.Entry<String, RoomPipeline>> pending = new ConcurrentLinkedQueue<>();
+        for (String roomId : roomIds) {
+            RoomPipeline removed = pipelines.remove(roomId);
+            kurentoClientPool.unplace(roomId);
+            if (removed != null) {
+                pending.add(Map.entry(roomId, removed));
+                this.notifyReleased(roomId, false);
+            }
+        }
+
+        int lanes = Math.min(Math.max(1, teardownParallelism), pending.size());
+        CompletableFuture<?>[] releases = new CompletableFuture[lanes];
+        for (int i = 0; i < lanes; i++) {
+            releases[i] = this.releaseNext(pending);
+        }
+        return CompletableFuture.allOf(releases);
+    }
+
+    /**
+     * 대기 중인 pipeline 을 하나씩 release, KMS 응답을 받으면 다음 pipeline release
+     * 바로 완료되는 release(DOWN 된 KMS) 는 재귀 없이 이어서 처리
+     */
+    private CompletableFuture<Void> releaseNext(Queue<Map.Entry<String, RoomPipeline>> pending) {
+        Map.Entry<String, RoomPipeline> next;
+        while ((next = pending.poll()) != null) {
+            CompletableFuture<Void> release = this.releasePipeline(next.getKey(), next.getValue());
+            if (!release.isDone()) {
+                return release.thenCompose(result -> this.releaseNext(pending));
+            }
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * pipeline 이 제거될 때 실행할 listener 등록
+     */
+    public void addReleaseListener(Consumer<String> listener) {
+        releaseListeners.add(listener);
+    }
+
+    /**
+     * 참여자가 남아있을 수 있는 방의 pipeline 을 잃었을 때 실행할 listener 등록
+     * KMS DOWN, KMS 에서 사라진 pipeline 교체 / 제거 시 실행하고 destroy 로 방을 삭제한 경우는 실행하지 않음
+     */
+    public void addMediaLostListener(Consumer<String> listener) {
+        mediaLostListeners.add(listener);
+    }
+
+    /**
+     * idle_grace_ms 가 지난 idle pipeline release, KMS 에서 사라진 pipeline 제거
+     * KMS 확인은 비동기로 요청하고 응답을 받은 kurento 스레드에서 정리 => 스케줄러 스레드는 방마다 KMS 응답을 기다리지 않음
+     */
+    @Scheduled(fixedDelayString = "${chatforyou.kurento.pipeline.check_interval_ms:10000}")
+    public void reap() {
+        long now = System.currentTimeMillis();
+        pipelines.forEach((roomId, snapshot) -> {
+            // 생성 중이거나 이전 확인의 응답을 아직 받지 못한 경우 다음 주기에 확인
+            if (snapshot.leaseNow() == null || !snapshot.checking.compareAndSet(false, true)) {
+                return;
+            }
+            this.checkAlive(roomId, snapshot).thenAccept(alive -> {
+                snapshot.checking.set(false);
+                this.reapIfNeeded(roomId, snapshot, alive, now);
+            });
+        });
+    }
+
+    private void reapIfNeeded(String roomId, RoomPipeline snapshot, boolean alive, long now) {
+        boolean[] released = {false};
+        pipelines.computeIfPresent(roomId, (key, current) -> {
+            if (current != snapshot) {
+                return current;
+            }
+            boolean expired = current.participants == 0 && now - current.idleSince > idleGraceMs;
+            if (alive && !expired) {
+                return current;
+            }
+            if (current.participants == 0) {
+                kurentoClientPool.unplace(roomId);
+            }
+            released[0] = true;
+            return null;
+        });
+
+        if (released[0]) {
+            log.info("ROOM {}: releasing {} pipeline {}", roomId, alive ? "idle" : "dead", snapshot.leaseNow().pipeline().getId());
+            this.releasePipeline(roomId, snapshot);
+            this.notifyReleased(roomId, !alive);
+        }
+    }
+
+    /**
+     * @return KMS 에 pipeline 이 남아있으면 true 로 완료, 없거나 응답이 없으면 false 로 완료
+     */
+    private CompletableFuture<Boolean> checkAlive(String roomId, RoomPipeline roomPipeline) {
+        if (!roomPipeline.isUsable()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        MediaPipeline pipeline = roomPipeline.leaseNow().pipeline();
+        // KMS 에 해당 pipeline 이 없으면 예외로 완료
+        return KurentoFutures.<String>call(continuation -> pipeline.getName(continuation))
+                .orTimeout(healthCheckTimeoutMs, TimeUnit.MILLISECONDS)
+                .handle((name, cause) -> {
+                    if (cause != null) {
+                        log.warn("ROOM {}: pipeline {} is not available ::: {}", roomId, pipeline.getId(), cause.getMessage());
+                        return false;
+                    }
+                    return true;
+                });
+    }
+
+    /**
+     * pipeline 을 release 하면 KMS 가 pipeline 안의 모든 element 를 함께 제거
+     * 아직 생성 중인 pipeline 은 생성이 끝난 후 release
+     *
+     * @return release 가 끝나면 완료되는 future, 실패해도 예외 없이 완료
+     */
+    private CompletableFuture<Void> releasePipeline(String roomId, RoomPipeline roomPipeline) {
+        roomPipeline.released = true;
+        return roomPipeline.lease.thenCompose(lease -> {
+                    if (lease.server().getState() == KurentoMediaServer.State.DOWN) {
+                        return CompletableFuture.<Void>completedFuture(null);
+                    }
+                    return KurentoFutures.<Void>call(continuation -> lease.pipeline().release(continuation));
+                })
+                .handle((result, cause) -> {
+                    if (cause != null) {
+                        log.warn("ROOM {}: Could not release Pipeline ::: {}", roomId, cause.getMessage());
+                    } else {
+                        log.trace("ROOM {}: Released Pipeline", roomId);
+                    }
+                    return null;
+                });
+    }
+
+    private void notifyReleased(String roomId, boolean lost) {
+        this.runListeners(roomId, releaseListeners);
+        if (lost) {
+            this.runListeners(roomId, mediaLostListeners);
+        }
+    }
+
+    private void runListeners(String roomId, List<Consumer<String>> listeners) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(roomId);
+            } catch (Exception e) {
+                log.error("ROOM {}: pipeline release listener failed ::: {}", roomId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 참여자마다 outgoingMedia 1 개 + incomingMedia 수
+     */
+    private double countEndpoints() {
+        long count = 0;
+        for (String roomId : pipelines.keySet()) {
+            for (KurentoUserSession participant : participantService.getParticipantList(roomId)) {
+                count += 1 + participant.getIncomingMedia().size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * participants, idleSince 는 compute 안에서만 변경
+     */
+    private static final class RoomPipeline {
+        // 생성이 끝나면 완료, 생성에 실패하면 예외로 완료
+        private final CompletableFuture<Lease> lease = new CompletableFuture<>();
+        private final AtomicBoolean checking = new AtomicBoolean();
+        private int participants;
+        private long idleSince = System.currentTimeMillis();
+        private volatile boolean released;
+
+        /**
+         * @return 생성 중이거나 생성에 실패한 경우 null
+         */
+        private Lease leaseNow() {
+            return lease.isCompletedExceptionally() ? null : lease.getNow(null);
+        }
+
+        /**
+         * 생성 중인 pipeline 은 사용할 수 있는 것으로 보고 생성 결과를 기다림
+         */
+        private boolean isUsable() {
+            if (released || lease.isCompletedExceptionally()) {
+                return false;
+            }
+            Lease current = lease.getNow(null);
+            return current == null || current.server().getState() != KurentoMediaServer.State.DOWN;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package webChat.service.kurento;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.kurento.client.Continuation;
+import org.kurento.client.MediaPipeline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 미리 만들어둔 MediaPipeline pool
+ * - 방의 첫 입장 시 KMS 에 pipeline 생성 요청을 기다리지 않도록 KMS 마다 idle pipeline 을 target_size 만큼 유지
+ * - refill_interval_ms 마다 최대 refill_per_tick 개씩 비동기로 채움
+ * - idle pipeline 은 주기적으로 KMS 에 살아있는지 비동기로 확인하고, max_idle_ms 가 지나면 release 후 새로 생성
+ */
+@Component
+@Slf4j
+public class MediaPipelinePool {
+
+    private final KurentoClientPool kurentoClientPool;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chatforyou.kurento.pipeline_pool.enabled:true}")
+    private boolean enabled;
+
+    // 유지할 idle pipeline 수
+    @Value("${chatforyou.kurento.pipeline_pool.target_size:2}")
+    private int targetSize;
+
+    // 한번의 refill 에서 새로 생성할 최대 pipeline 수
+    @Value("${chatforyou.kurento.pipeline_pool.refill_per_tick:1}")
+    private int refillPerTick;
+
+    // idle pipeline 최대 유지 시간 : 지나면 release 후 새로 생성
+    @Value("${chatforyou.kurento.pipeline_pool.max_idle_ms:600000}")
+    private long maxIdleMs;
+
+    // idle pipeline 상태 확인 응답을 기다리는 최대 시간
+    @Value("${chatforyou.kurento.pipeline_pool.health_check_timeout_ms:3000}")
+    private long healthCheckTimeoutMs;
+
+    // serverId : idle pipeline
+    private final Map<String, ServerPool> serverPools = new ConcurrentHashMap<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Timer firstAnswerTimer;
+
+    public MediaPipelinePool(KurentoClientPool kurentoClientPool, MeterRegistry meterRegistry) {
+        this.kurentoClientPool = kurentoClientPool;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    private void init() {
+        hitCounter = Counter.builder("chatforyou_kurento_pipeline_pool_acquire").tag("result", "hit").register(meterRegistry);
+        missCounter = Counter.builder("chatforyou_kurento_pipeline_pool_acquire").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("chatforyou_kurento_pipeline_pool_idle", idleCount, AtomicInteger::get).register(meterRegistry);
+        firstAnswerTimer = Timer.builder("chatforyou_kurento_time_to_first_answer")
+                .description("time from joinRoom request to the first sdp answer sent to the user")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(10))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+
+        // DOWN 된 KMS 의 pipeline 은 이미 사라졌기 때문에 release 없이 버림
+        kurentoClientPool.addServerDownListener((server, roomIds) -> {
+            ServerPool pool = serverPools.remove(server.getId());
+            if (pool != null) {
+                idleCount.addAndGet(-pool.idlePipelines().size());
+                pool.idlePipelines().clear();
+            }
+        });
+    }
+
+    private ServerPool getServerPool(KurentoMediaServer server) {
+        return serverPools.computeIfAbsent(server.getId(),
+                id -> new ServerPool(new ConcurrentLinkedDeque<>(), new AtomicInteger()));
+    }
+
+    /**
+     * 해당 KMS 의 idle pipeline 을 꺼내서 return, 없으면 바로 생성
+     */
+    public MediaPipeline acquire(KurentoMediaServer server) {
+        if (enabled) {
+            Deque<IdlePipeline> idlePipelines = this.getServerPool(server).idlePipelines();
+            IdlePipeline idle;
+            while ((idle = idlePipelines.pollFirst()) != null) {
+                idleCount.decrementAndGet();
+                if (!this.isExpired(idle)) {
+                    hitCounter.increment();
+                    return idle.pipeline();
+                }
+                this.release(idle.pipeline());
+            }
+        }
+
+        missCounter.increment();
+        return server.getClient().createMediaPipeline();
+    }
+
+    /**
+     * joinRoom 요청부터 유저에게 첫 sdpAnswer 를 보낼때까지 걸린 시간 기록
+     */
+    public void recordFirstAnswer(long elapsedNanos) {
+        firstAnswerTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * idle pipeline 상태 확인 및 부족한 만큼 비동기로 생성
+     * 새로운 방을 배치하지 않는 DRAINING / DOWN 서버는 채우지 않음
+     */
+    @Scheduled(fixedDelayString = "${chatforyou.kurento.pipeline_pool.refill_interval_ms:1000}")
+    public void refill() {
+        if (!enabled) {
+            return;
+        }
+
+        for (KurentoMediaServer server : kurentoClientPool.getServers()) {
+            ServerPool pool = this.getServerPool(server);
+            this.recycle(pool.idlePipelines(), !server.isActive());
+            if (server.isActive()) {
+                this.refill(server, pool);
+            }
+        }
+    }
+
+    private void refill(KurentoMediaServer server, ServerPool pool) {
+        Deque<IdlePipeline> idlePipelines = pool.idlePipelines();
+        AtomicInteger creating = pool.creating();
+
+        int missing = targetSize - idlePipelines.size() - creating.get();
+        for (int i = 0; i < Math.min(missing, refillPerTick); i++) {
+            creating.incrementAndGet();
+            server.getClient().createMediaPipeline(new Continuation<MediaPipeline>() {
+                @Override
+                public void onSuccess(MediaPipeline pipeline) {
+                    creating.decrementAndGet();
+                    idlePipelines.addLast(new IdlePipeline(pipeline, System.currentTimeMillis(), new AtomicBoolean()));
+                    idleCount.incrementAndGet();
+                }
+
+                @Override
+                public void onError(Throwable cause) {
+                    creating.decrementAndGet();
+                    log.warn("Could not create pooled MediaPipeline on KMS {} ::: {}", server.getId(), cause.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * 오래된 pipeline 과 KMS 에서 사라진 pipeline 을 pool 에서 제거
+     * 상태 확인은 비동기로 요청하고 응답을 받은 kurento 스레드에서 제거 => 스케줄러 스레드는 KMS 응답을 기다리지 않음
+     * @param releaseAll DRAINING 서버의 pipeline 은 모두 release
+     */
+    private void recycle(Deque<IdlePipeline> idlePipelines, boolean releaseAll) {
+        for (IdlePipeline idle : idlePipelines) {
+            if (releaseAll || this.isExpired(idle)) {
+                this.remove(idlePipelines, idle);
+                continue;
+            }
+            // 이전 상태 확인의 응답을 아직 받지 못한 경우 중복으로 요청하지 않음
+            if (!idle.checking().compareAndSet(false, true)) {
+                continue;
+            }
+            // KMS 에 해당 pipeline 이 없으면 예외로 완료
+            KurentoFutures.<String>call(continuation -> idle.pipeline().getName(continuation))
+                    .orTimeout(healthCheckTimeoutMs, TimeUnit.MILLISECONDS)
+                    .whenComplete((name, cause) -> {
+                        idle.checking().set(false);
+                        if (cause != null) {
+                            log.debug("Pooled MediaPipeline {} is not available ::: {}", idle.pipeline().getId(), cause.getMessage());
+                            this.remove(idlePipelines, idle);
+                        }
+                    });
+        }
+    }
+
+    /**
+     * acquire 에서 이미 꺼내간 경우 remove 가 false => 꺼내간 쪽에서 사용
+     */
+    private void remove(Deque<IdlePipeline> idlePipelines, IdlePipeline idle) {
+        if (idlePipelines.remove(idle)) {
+            idleCount.decrementAndGet();
+            this.release(idle.pipeline());
+        }
+    }
+
+    private boolean isExpired(IdlePipeline idle) {
+        return System.currentTimeMillis() - idle.createdAt() > maxIdleMs;
+    }
+
+    private void release(MediaPipeline pipeline) {
+        try {
+            pipeline.release(new Continuation<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                    log.trace("Released pooled MediaPipeline {}", pipeline.getId());
+                }
+
+                @Override
+                public void onError(Throwable cause) {
+                    log.debug("Could not release pooled MediaPipeline {} ::: {}", pipeline.getId(), cause.getMessage());
+                }
+            });
+        } catch (Exception e) {
+            log.debug("Could not release pooled MediaPipeline ::: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    private void destroy() {
+        for (ServerPool pool : serverPools.values()) {
+            IdlePipeline idle;
+            while ((idle = pool.idlePipelines().pollFirst()) != null) {
+                idleCount.decrementAndGet();
+                this.release(idle.pipeline());
+            }
+        }
+    }
+
+    // checking : 상태 확인 응답을 기다리는 중인지 여부
+    private record IdlePipeline(MediaPipeline pipeline, long createdAt, AtomicBoolean checking) {}
+
+    private record ServerPool(Deque<IdlePipeline> idlePipelines, AtomicInteger creating) {}
+}
@@ -0,0 +1,121 @@
+package webChat.service.kurento;
+
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import webChat.controller.ExceptionController;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KMS 연결이 끊기거나 pipeline 이 사라진 방의 미디어 복구
+ * - KMS DOWN / 사라진 pipeline 제거 시 해당 방을 복구 대상으로 표시
+ * - retry_ms 마다 복구 대상 방의 참여자를 새로운 pipeline 으로 옮기고 reconnectMedia 전송
+ *   => client 는 방에 다시 입장하지 않고 sdp 협상만 다시 진행
+ * - 사용할 수 있는 KMS 가 없으면 다음 주기에 다시 시도하고, max_wait_ms 가 지나면 ConnectionFail 전송
+ */
+@Component
+@Slf4j
+public class MediaRecoveryService {
+
+    private final KurentoClientPool kurentoClientPool;
+    private final MediaPipelineManager mediaPipelineManager;
+    private final KurentoRoomManager kurentoRoomManager;
+    private final KurentoParticipantService participantService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chatforyou.kurento.recovery.enabled:true}")
+    private boolean enabled;
+
+    // 복구를 포기하고 client 에게 ConnectionFail 을 보낼때까지 기다리는 시간
+    @Value("${chatforyou.kurento.recovery.max_wait_ms:120000}")
+    private long maxWaitMs;
+
+    // roomId : 복구 대상으로 표시된 시간(nanoTime)
+    private final Map<String, Long> recoveringRooms = new ConcurrentHashMap<>();
+
+    private Timer recoveryTimer;
+    private Counter recoveredParticipants;
+    private Counter failedRooms;
+
+    public MediaRecoveryService(KurentoClientPool kurentoClientPool, MediaPipelineManager mediaPipelineManager,
+                                KurentoRoomManager kurentoRoomManager, KurentoParticipantService participantService,
+                                MeterRegistry meterRegistry) {
+        this.kurentoClientPool = kurentoClientPool;
+        this.mediaPipelineManager = mediaPipelineManager;
+        this.kurentoRoomManager = kurentoRoomManager;
+        this.participantService = participantService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    private void init() {
+        recoveryTimer = Timer.builder("chatforyou_kurento_recovery_duration")
+                .description("time from media loss to reconnectMedia sent to the room")
+                .register(meterRegistry);
+        recoveredParticipants = Counter.builder("chatforyou_kurento_recovered_participants").register(meterRegistry);
+        failedRooms = Counter.builder("chatforyou_kurento_recovery_failed_rooms").register(meterRegistry);
+
+        // KMS DOWN : 해당 KMS 에 있던 방
+        kurentoClientPool.addServerDownListener((server, roomIds) -> roomIds.forEach(this::markRecovering));
+        // KMS 에서 사라진 pipeline 제거 등 : 남아있는 참여자가 없으면 복구할 것도 없음, 방 삭제는 제외
+        mediaPipelineManager.addMediaLostListener(this::markRecovering);
+    }
+
+    private void markRecovering(String roomId) {
+        if (!enabled || participantService.getParticipantCount(roomId) == 0) {
+            return;
+        }
+        if (recoveringRooms.putIfAbsent(roomId, System.nanoTime()) == null) {
+            log.warn("ROOM {}: media lost, waiting for recovery", roomId);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${chatforyou.kurento.recovery.retry_ms:1000}")
+    public void recover() {
+        for (Map.Entry<String, Long> entry : recoveringRooms.entrySet()) {
+            String roomId = entry.getKey();
+            long elapsedNanos = System.nanoTime() - entry.getValue();
+            try {
+                int recovered = kurentoRoomManager.recoverParticipants(roomId);
+                recoveringRooms.remove(roomId);
+                if (recovered > 0) {
+                    recoveredParticipants.increment(recovered);
+                    recoveryTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+                }
+            } catch (ExceptionController.InternalServerError e) {
+                log.debug("ROOM {}: no media server available for recovery ::: {}", roomId, e.getMessage());
+                this.giveUpIfExpired(roomId, elapsedNanos);
+            } catch (Exception e) {
+                log.warn("ROOM {}: media recovery failed, retrying ::: {}", roomId, e.getMessage());
+                this.giveUpIfExpired(roomId, elapsedNanos);
+            }
+        }
+    }
+
+    /**
+     * max_wait_ms 가 지나도 복구하지 못한 방은 client 에게 ConnectionFail 을 보내서 다시 입장하도록 함
+     */
+    private void giveUpIfExpired(String roomId, long elapsedNanos) {
+        if (TimeUnit.NANOSECONDS.toMillis(elapsedNanos) < maxWaitMs) {
+            return;
+        }
+        recoveringRooms.remove(roomId);
+        failedRooms.increment();
+        log.error("ROOM {}: could not recover media within {} ms", roomId, maxWaitMs);
+
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "ConnectionFail");
+        message.addProperty("data", "media server unavailable");
+        participantService.broadcast(roomId, message);
+    }
+}
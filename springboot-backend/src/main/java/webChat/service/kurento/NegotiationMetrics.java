@@ -0,0 +1,73 @@
+package webChat.service.kurento;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * receiveVideoFrom sdp 협상 단계별 소요 시간
+ * - endpoint_build : incoming WebRtcEndpoint 생성
+ * - connect : sender 의 영상 → incoming endpoint 연결 및 ice listener 등록
+ * - process_offer : KMS 의 sdpOffer 처리
+ * - answer_sent : receiveVideoFrom 요청부터 sdpAnswer 를 송신 큐에 넣을 때까지 전체 시간
+ */
+@Component
+public class NegotiationMetrics {
+
+    public enum Stage {
+        ENDPOINT_BUILD("endpoint_build"),
+        CONNECT("connect"),
+        PROCESS_OFFER("process_offer"),
+        ANSWER_SENT("answer_sent");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Stage, Timer> timers = new EnumMap<>(Stage.class);
+    private final Map<Stage, Counter> errors = new EnumMap<>(Stage.class);
+
+    public NegotiationMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            timers.put(stage, Timer.builder("chatforyou_kurento_negotiation_stage")
+                    .description("latency of each receiveVideoFrom negotiation stage")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(10))
+                    .register(meterRegistry));
+            errors.put(stage, Counter.builder("chatforyou_kurento_negotiation_errors")
+                    .tag("stage", stage.tag)
+                    .register(meterRegistry));
+        }
+    }
+
+    public void record(Stage stage, long elapsedNanos) {
+        timers.get(stage).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 비동기 호출이 완료될 때까지의 시간 기록, 실패한 경우 에러 수만 증가
+     */
+    public <T> CompletableFuture<T> time(Stage stage, Supplier<CompletableFuture<T>> call) {
+        long startedAt = System.nanoTime();
+        return call.get().whenComplete((result, cause) -> {
+            if (cause == null) {
+                this.record(stage, System.nanoTime() - startedAt);
+            } else {
+                errors.get(stage).increment();
+            }
+        });
+    }
+}
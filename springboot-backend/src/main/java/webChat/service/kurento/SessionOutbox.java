@@ -0,0 +1,334 @@
+package webChat.service.kurento;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebSocketSession 별 송신 메시지 큐
+ * - 보내는 쪽은 큐에 넣기만 하고 바로 return => 느린 유저가 있어도 다른 유저에게 보내는 스레드가 block 되지 않음
+ * - 큐는 공용 executor 에서 세션마다 하나의 작업으로만 비워지기 때문에 넣은 순서대로 전송됨
+ * - 큐가 가득 차면 overflowPolicy 에 따라 중요하지 않은 메시지를 버리거나 연결을 끊음
+ *   sdp, ice, 입장/퇴장 같은 메시지는 버리면 연결이 깨지기 때문에 버리지 않고 중복된 ice candidate 만 제거
+ * - KMS 가 찾은 ice candidate 는 iceBatchWindowMs 동안 모아서 하나의 iceCandidates 메시지로 전송
+ */
+@Slf4j
+public class SessionOutbox {
+
+    public enum OverflowPolicy {
+        DROP_NON_CRITICAL,  // 중요하지 않은 메시지를 버리고 공간 확보, 공간이 없으면 연결 종료
+        DISCONNECT          // 바로 연결 종료
+    }
+
+    private enum MessageType {
+        CRITICAL,     // 버리지 않음
+        ICE,          // 버리지 않음, 큐에 같은 candidate 가 있으면 중복 제거
+        NON_CRITICAL  // 같은 key 의 이전 메시지를 대체하고, 큐가 가득 차면 먼저 버림
+    }
+
+    // 한번에 전송할 최대 메시지 수 : 다른 세션의 전송이 밀리지 않도록 나눠서 전송
+    private static final int DRAIN_BATCH_SIZE = 64;
+    // iceCandidates 메시지 하나에 담을 최대 candidate 수
+    private static final int MAX_ICE_BATCH_SIZE = 32;
+
+    private final WebSocketSession session;
+    private final int capacity;
+    private final OverflowPolicy overflowPolicy;
+    private final Executor executor;
+    private final SessionOutboxManager manager;
+    private final long iceBatchWindowMs;
+    private final ScheduledExecutorService batchScheduler;
+
+    private final Deque<OutboundMessage> queue = new ArrayDeque<>();
+    // 큐에 남아있는 ice 메시지 : 같은 candidate 를 중복으로 보내지 않기 위해 사용
+    private final Set<String> queuedIceCandidates = new HashSet<>();
+    // 큐에 남아있는 중요하지 않은 메시지 : key 별로 가장 최신 메시지만 남김
+    private final Map<String, OutboundMessage> queuedNonCritical = new HashMap<>();
+    private boolean draining = false;
+    private boolean closed = false;
+
+    // 아직 큐에 넣지 않은 ice candidate : { name, candidate }
+    private JsonArray pendingIceCandidates = new JsonArray();
+    private final Set<String> pendingIceKeys = new HashSet<>();
+
+    SessionOutbox(WebSocketSession session, int capacity, OverflowPolicy overflowPolicy,
+                  Executor executor, SessionOutboxManager manager,
+                  long iceBatchWindowMs, ScheduledExecutorService batchScheduler) {
+        this.session = session;
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.executor = executor;
+        this.manager = manager;
+        this.iceBatchWindowMs = iceBatchWindowMs;
+        this.batchScheduler = batchScheduler;
+    }
+
+    /**
+     * KMS 가 찾은 ice candidate 를 모아서 전송
+     * 첫 candidate 가 들어온 후 iceBatchWindowMs 가 지나거나 MAX_ICE_BATCH_SIZE 개가 모이면
+     * { id : iceCandidates, candidates : [{ name, candidate }, ...] } 하나로 큐에 넣음
+     *
+     * @param name      candidate 에 해당하는 endpoint 의 userId
+     * @param candidate KMS 가 찾은 candidate
+     * @return 모으는 중이거나 큐에 넣었으면 true, 연결이 종료된 경우 false
+     */
+    public boolean offerIceCandidate(String name, JsonObject candidate) {
+        if (iceBatchWindowMs <= 0) {
+            JsonObject message = new JsonObject();
+            message.addProperty("id", "iceCandidate");
+            message.addProperty("name", name);
+            message.add("candidate", candidate);
+            return this.enqueue(new OutboundMessage(new TextMessage(message.toString()), MessageType.ICE, null));
+        }
+
+        boolean scheduleFlush;
+        boolean flushNow;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (!pendingIceKeys.add(name + candidate)) {
+                manager.recordDropped("ice_duplicate");
+                return true;
+            }
+
+            JsonObject entry = new JsonObject();
+            entry.addProperty("name", name);
+            entry.add("candidate", candidate);
+            pendingIceCandidates.add(entry);
+
+            scheduleFlush = pendingIceCandidates.size() == 1;
+            flushNow = pendingIceCandidates.size() >= MAX_ICE_BATCH_SIZE;
+        }
+
+        if (flushNow) {
+            this.flushIceCandidates();
+        } else if (scheduleFlush) {
+            batchScheduler.schedule(this::flushIceCandidates, iceBatchWindowMs, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private void flushIceCandidates() {
+        JsonArray batch;
+        synchronized (this) {
+            if (closed || pendingIceCandidates.isEmpty()) {
+                return;
+            }
+            batch = pendingIceCandidates;
+            pendingIceCandidates = new JsonArray();
+            pendingIceKeys.clear();
+        }
+
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "iceCandidates");
+        message.add("candidates", batch);
+        manager.recordIceBatch(batch.size());
+        // 여러 candidate 를 담고 있기 때문에 버리지 않음 => 중요하지 않은 메시지를 버려도 공간이 없으면 연결 종료
+        this.enqueue(new OutboundMessage(new TextMessage(message.toString()), MessageType.CRITICAL, null));
+    }
+
+    /**
+     * 메시지를 큐에 넣고 바로 return
+     *
+     * @param payload 전송할 메시지
+     * @return 큐에 넣었으면 true, 연결이 종료된 경우 false
+     */
+    public boolean offer(String payload) {
+        return this.offer(new TextMessage(payload));
+    }
+
+    /**
+     * 이미 만들어진 frame 을 큐에 넣고 바로 return
+     * TextMessage 는 immutable 이기 때문에 broadcast 시 하나의 frame 을 여러 세션의 큐가 공유
+     *
+     * @param frame 전송할 메시지
+     * @return 큐에 넣었으면 true, 연결이 종료된 경우 false
+     */
+    public boolean offer(TextMessage frame) {
+        return this.enqueue(new OutboundMessage(frame, MessageType.CRITICAL, null));
+    }
+
+    /**
+     * 버려져도 되는 메시지를 큐에 넣고 바로 return
+     * 큐에 같은 key 의 메시지가 아직 남아있으면 이전 메시지는 버리고 최신 메시지만 전송
+     *
+     * @param frame 전송할 메시지
+     * @param key   같은 상태를 나타내는 메시지의 key
+     * @return 큐에 넣었으면 true, 버려졌거나 연결이 종료된 경우 false
+     */
+    public boolean offerNonCritical(TextMessage frame, String key) {
+        return this.enqueue(new OutboundMessage(frame, MessageType.NON_CRITICAL, key));
+    }
+
+    private boolean enqueue(OutboundMessage message) {
+        String payload = message.frame().getPayload();
+        boolean startDrain;
+        synchronized (this) {
+            if (closed) {
+                return false;
+            }
+            if (MessageType.ICE.equals(message.type()) && queuedIceCandidates.contains(payload)) {
+                manager.recordDropped("ice_duplicate");
+                return true;
+            }
+            if (MessageType.NON_CRITICAL.equals(message.type())) {
+                OutboundMessage stale = queuedNonCritical.remove(message.key());
+                if (stale != null) {
+                    this.removeQueued(stale);
+                    manager.recordDropped("coalesced");
+                }
+            }
+            if (queue.size() >= capacity && !this.makeRoom(message.type())) {
+                return false;
+            }
+
+            queue.addLast(message);
+            if (MessageType.ICE.equals(message.type())) {
+                queuedIceCandidates.add(payload);
+            } else if (MessageType.NON_CRITICAL.equals(message.type())) {
+                queuedNonCritical.put(message.key(), message);
+            }
+            manager.recordEnqueued(queue.size());
+
+            startDrain = !draining;
+            draining = true;
+        }
+
+        if (startDrain) {
+            executor.execute(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * 큐가 가득 찬 경우 overflowPolicy 에 따라 공간을 확보
+     * 중요하지 않은 메시지만 버리고, 버릴 메시지가 없으면 연결 종료
+     * synchronized (this) 안에서만 호출
+     */
+    private boolean makeRoom(MessageType type) {
+        if (OverflowPolicy.DROP_NON_CRITICAL.equals(overflowPolicy)) {
+            if (MessageType.NON_CRITICAL.equals(type)) {
+                manager.recordDropped("overflow_non_critical");
+                return false;
+            }
+            // 가장 오래된 중요하지 않은 메시지를 버리고 공간 확보
+            for (OutboundMessage message : queue) {
+                if (MessageType.NON_CRITICAL.equals(message.type())) {
+                    queuedNonCritical.remove(message.key());
+                    this.removeQueued(message);
+                    manager.recordDropped("overflow_non_critical");
+                    return true;
+                }
+            }
+        }
+
+        log.warn("Session {} outbound queue is full ({}), disconnecting slow consumer", session.getId(), capacity);
+        this.disconnect(CloseStatus.SESSION_NOT_RELIABLE);
+        return false;
+    }
+
+    /**
+     * 큐에서 메시지 제거 : 같은 frame 을 공유하는 메시지가 있을 수 있어서 객체로 비교
+     * synchronized (this) 안에서만 호출
+     */
+    private void removeQueued(OutboundMessage target) {
+        Iterator<OutboundMessage> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == target) {
+                iterator.remove();
+                manager.recordDequeued(1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 큐에 쌓인 메시지를 순서대로 전송
+     * 세션마다 하나의 drain 만 실행되기 때문에 session 에 대한 별도 동기화가 필요 없음
+     */
+    private void drain() {
+        for (int sent = 0; sent < DRAIN_BATCH_SIZE; sent++) {
+            OutboundMessage message;
+            synchronized (this) {
+                message = queue.pollFirst();
+                if (message == null) {
+                    draining = false;
+                    return;
+                }
+                if (MessageType.ICE.equals(message.type())) {
+                    queuedIceCandidates.remove(message.frame().getPayload());
+                } else if (MessageType.NON_CRITICAL.equals(message.type())) {
+                    queuedNonCritical.remove(message.key(), message);
+                }
+            }
+            manager.recordDequeued(1);
+
+            try {
+                session.sendMessage(message.frame());
+            } catch (Exception e) {
+                log.debug("Session {} could not send message ::: {}", session.getId(), e.getMessage());
+                this.disconnect(CloseStatus.SERVER_ERROR);
+                return;
+            }
+        }
+
+        // 남은 메시지는 다음 작업으로 넘김
+        executor.execute(this::drain);
+    }
+
+    /**
+     * 남은 메시지를 버리고 연결 종료
+     * 연결이 종료되면 afterConnectionClosed 에서 방 퇴장 처리
+     */
+    public void disconnect(CloseStatus closeStatus) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            this.close();
+        }
+        manager.recordDisconnected();
+        // close 도 네트워크 작업이기 때문에 보내는 쪽의 스레드에서 실행하지 않음
+        executor.execute(() -> {
+            try {
+                session.close(closeStatus);
+            } catch (Exception e) {
+                log.debug("Session {} could not be closed ::: {}", session.getId(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * 더이상 메시지를 받지 않고 남은 메시지를 버림
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        manager.recordDequeued(queue.size());
+        queue.clear();
+        queuedIceCandidates.clear();
+        queuedNonCritical.clear();
+        pendingIceCandidates = new JsonArray();
+        pendingIceKeys.clear();
+    }
+
+    // key : NON_CRITICAL 메시지만 사용
+    private record OutboundMessage(TextMessage frame, MessageType type, String key) {}
+}
@@ -0,0 +1,138 @@
+package webChat.service.kurento;
+
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WebSocketSession 별 SessionOutbox 관리
+ * 모든 세션의 큐는 worker_threads 개의 공용 스레드에서 비워짐
+ */
+@Component
+@Slf4j
+public class SessionOutboxManager {
+
+    private final MeterRegistry meterRegistry;
+
+    // 세션별 최대 대기 메시지 수
+    @Value("${chatforyou.signaling.outbound.capacity:256}")
+    private int capacity;
+
+    // 큐가 가득 찼을 때 처리 방법 : drop_non_critical, disconnect
+    @Value("${chatforyou.signaling.outbound.overflow:drop_non_critical}")
+    private String overflowPolicy;
+
+    @Value("${chatforyou.signaling.outbound.worker_threads:4}")
+    private int workerThreads;
+
+    // ice candidate 를 모아서 보내는 시간, 0 이면 candidate 마다 바로 전송
+    @Value("${chatforyou.signaling.outbound.ice_batch_ms:20}")
+    private long iceBatchMs;
+
+    private final Map<String, SessionOutbox> outboxes = new ConcurrentHashMap<>();
+    private final AtomicInteger queuedMessages = new AtomicInteger();
+    private ExecutorService executor;
+    private ScheduledExecutorService batchScheduler;
+
+    private DistributionSummary depthSummary;
+    private DistributionSummary iceBatchSummary;
+    private Counter disconnectCounter;
+
+    public SessionOutboxManager(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    private void init() {
+        AtomicLong threadCount = new AtomicLong();
+        executor = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "signaling-outbox-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        batchScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "signaling-ice-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        depthSummary = DistributionSummary.builder("chatforyou_signaling_outbox_depth")
+                .description("queue depth of a session right after a message is enqueued")
+                .register(meterRegistry);
+        iceBatchSummary = DistributionSummary.builder("chatforyou_signaling_ice_batch_size")
+                .description("number of ice candidates sent in one iceCandidates message")
+                .register(meterRegistry);
+        disconnectCounter = Counter.builder("chatforyou_signaling_outbox_disconnected").register(meterRegistry);
+        Gauge.builder("chatforyou_signaling_outbox_queued", queuedMessages, AtomicInteger::get).register(meterRegistry);
+        Gauge.builder("chatforyou_signaling_outbox_sessions", outboxes, Map::size).register(meterRegistry);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        executor.shutdown();
+        batchScheduler.shutdownNow();
+    }
+
+    /**
+     * 세션의 outbox 를 가져오고 없으면 생성
+     */
+    public SessionOutbox getOutbox(WebSocketSession session) {
+        return outboxes.computeIfAbsent(session.getId(), id -> new SessionOutbox(session, capacity,
+                SessionOutbox.OverflowPolicy.valueOf(overflowPolicy.toUpperCase()), executor, this,
+                iceBatchMs, batchScheduler));
+    }
+
+    /**
+     * KurentoUserSession 이 만들어지기 전의 세션에 메시지 전송
+     */
+    public void send(WebSocketSession session, JsonObject message) {
+        this.getOutbox(session).offer(message.toString());
+    }
+
+    /**
+     * 연결이 종료된 세션의 outbox 제거
+     */
+    public void remove(WebSocketSession session) {
+        SessionOutbox outbox = outboxes.remove(session.getId());
+        if (outbox != null) {
+            outbox.close();
+        }
+    }
+
+    void recordEnqueued(int depth) {
+        queuedMessages.incrementAndGet();
+        depthSummary.record(depth);
+    }
+
+    void recordDequeued(int count) {
+        queuedMessages.addAndGet(-count);
+    }
+
+    void recordIceBatch(int size) {
+        iceBatchSummary.record(size);
+    }
+
+    void recordDropped(String reason) {
+        meterRegistry.counter("chatforyou_signaling_outbox_dropped", "reason", reason).increment();
+    }
+
+    void recordDisconnected() {
+        disconnectCounter.increment();
+    }
+}
@@ -0,0 +1,131 @@
+package webChat.service.kurento;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import webChat.model.signaling.SignalingMessage;
+import webChat.model.signaling.SignalingType;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * kurento 시그널링 메시지 decoder
+ * JsonObject tree 를 만들지 않고 JsonReader 로 필드를 하나씩 읽어서 필요한 값만 꺼냄
+ * 필드 순서와 상관없이 읽을 수 있도록 값을 먼저 모두 읽은 후 id 에 맞는 record 생성
+ */
+public final class SignalingCodec {
+
+    private SignalingCodec() {}
+
+    /**
+     * @return 변환된 메시지, id 가 없거나 처리하지 않는 id 인 경우 null
+     * @throws JsonParseException json 형식이 아니거나 필수 필드가 없는 경우
+     */
+    public static SignalingMessage decode(String payload) {
+        String id = null;
+        String roomId = null;
+        String userId = null;
+        String nickName = null;
+        String sender = null;
+        String sdpOffer = null;
+        String name = null;
+        String text = null;
+        String candidate = null;
+        String sdpMid = null;
+        int sdpMLineIndex = 0;
+        List<String> senders = null;
+
+        try (JsonReader reader = new JsonReader(new StringReader(payload))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "id" -> id = nextStringOrNull(reader);
+                    case "roomId" -> roomId = nextStringOrNull(reader);
+                    case "userId" -> userId = nextStringOrNull(reader);
+                    case "nickName" -> nickName = nextStringOrNull(reader);
+                    case "sender" -> sender = nextStringOrNull(reader);
+                    case "sdpOffer" -> sdpOffer = nextStringOrNull(reader);
+                    case "name" -> name = nextStringOrNull(reader);
+                    case "text" -> text = nextStringOrNull(reader);
+                    case "senders" -> {
+                        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                            reader.skipValue();
+                            break;
+                        }
+                        senders = new ArrayList<>();
+                        reader.beginArray();
+                        while (reader.hasNext()) {
+                            String senderId = nextStringOrNull(reader);
+                            if (senderId != null) {
+                                senders.add(senderId);
+                            }
+                        }
+                        reader.endArray();
+                    }
+                    case "candidate" -> {
+                        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                            reader.skipValue();
+                            break;
+                        }
+                        // candidate : { candidate, sdpMid, sdpMLineIndex, usernameFragment }
+                        reader.beginObject();
+                        while (reader.hasNext()) {
+                            switch (reader.nextName()) {
+                                case "candidate" -> candidate = nextStringOrNull(reader);
+                                case "sdpMid" -> sdpMid = nextStringOrNull(reader);
+                                case "sdpMLineIndex" -> {
+                                    if (reader.peek() == JsonToken.NULL) {
+                                        reader.nextNull();
+                                    } else {
+                                        sdpMLineIndex = reader.nextInt();
+                                    }
+                                }
+                                default -> reader.skipValue();
+                            }
+                        }
+                        reader.endObject();
+                    }
+                    default -> reader.skipValue();
+                }
+            }
+            reader.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            throw new JsonParseException("invalid signaling message", e);
+        }
+
+        SignalingType type = SignalingType.fromId(id);
+        if (type == null) {
+            return null;
+        }
+
+        return switch (type) {
+            case JOIN_ROOM -> new SignalingMessage.JoinRoom(
+                    required(roomId, "roomId"), required(userId, "userId"), required(nickName, "nickName"));
+            case RECEIVE_VIDEO_FROM -> new SignalingMessage.ReceiveVideoFrom(
+                    roomId, required(sender, "sender"), required(sdpOffer, "sdpOffer"));
+            case ON_ICE_CANDIDATE -> new SignalingMessage.OnIceCandidate(
+                    roomId, required(name, "name"), required(candidate, "candidate"), sdpMid, sdpMLineIndex);
+            case LEAVE_ROOM -> new SignalingMessage.LeaveRoom(roomId);
+            case TEXT_OVERLAY -> new SignalingMessage.TextOverlay(roomId, text == null ? "" : text);
+            case SUBSCRIBE_VIDEO -> new SignalingMessage.SubscribeVideo(roomId, required(senders, "senders"));
+        };
+    }
+
+    private static String nextStringOrNull(JsonReader reader) throws IOException {
+        if (reader.peek() == JsonToken.NULL) {
+            reader.nextNull();
+            return null;
+        }
+        return reader.nextString();
+    }
+
+    private static String required(String value, String field) {
+        if (value == null) {
+            throw new JsonParseException("missing field : " + field);
+        }
+        return value;
+    }
+}
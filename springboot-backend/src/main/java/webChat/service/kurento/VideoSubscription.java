@@ -0,0 +1,96 @@
+package webChat.service.kurento;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 유저 한명의 영상 구독 상태
+ * - visible : client 가 화면에 보이고 있다고 알려준 sender
+ * - paused : 화면에서 사라져서 video 연결만 끊어둔 incomingMedia (warm pool), 오래된 순서대로 정렬
+ * - pendingPauses : hysteresis 시간이 지나면 pause 할 sender
+ * 모든 method 는 VideoSubscriptionService 에서 synchronized (subscription) 안에서만 호출
+ */
+class VideoSubscription {
+
+    // null 이면 아직 subscribeVideo 를 받지 않음 => 모든 sender 를 받음
+    private Set<String> visible;
+    private final LinkedHashSet<String> paused = new LinkedHashSet<>();
+    private final Map<String, ScheduledFuture<?>> pendingPauses = new HashMap<>();
+    private boolean closed;
+
+    void setVisible(Collection<String> senders) {
+        this.visible = new HashSet<>(senders);
+    }
+
+    boolean isVisible(String senderId) {
+        return visible == null || visible.contains(senderId);
+    }
+
+    boolean isPaused(String senderId) {
+        return paused.contains(senderId);
+    }
+
+    void addPaused(String senderId) {
+        paused.add(senderId);
+    }
+
+    boolean removePaused(String senderId) {
+        return paused.remove(senderId);
+    }
+
+    /**
+     * warm pool 크기를 넘는 오래된 sender 를 꺼내서 return
+     * @param alive 아직 incomingMedia 가 남아있는 sender, 방을 나간 sender 는 pool 에서 그냥 제거
+     */
+    List<String> evict(int maxSize, Set<String> alive) {
+        paused.retainAll(alive);
+        List<String> evicted = new ArrayList<>();
+        Iterator<String> iterator = paused.iterator();
+        while (paused.size() - evicted.size() > maxSize && iterator.hasNext()) {
+            evicted.add(iterator.next());
+        }
+        evicted.forEach(paused::remove);
+        return evicted;
+    }
+
+    boolean hasPendingPause(String senderId) {
+        return pendingPauses.containsKey(senderId);
+    }
+
+    void putPendingPause(String senderId, ScheduledFuture<?> task) {
+        pendingPauses.put(senderId, task);
+    }
+
+    void removePendingPause(String senderId) {
+        pendingPauses.remove(senderId);
+    }
+
+    void cancelPendingPause(String senderId) {
+        ScheduledFuture<?> task = pendingPauses.remove(senderId);
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 유저가 나가면 예약된 pause 를 모두 취소
+     */
+    void close() {
+        closed = true;
+        pendingPauses.values().forEach(task -> task.cancel(false));
+        pendingPauses.clear();
+        paused.clear();
+    }
+}
@@ -0,0 +1,134 @@
+package webChat.service.kurento;
+
+import com.google.gson.JsonObject;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 화면에 보이는 참여자의 영상만 받도록 receiver 별 incomingMedia 관리
+ * - client 는 화면에 보이는 sender 목록을 subscribeVideo 로 보냄
+ * - 화면에서 사라진 sender 는 hysteresis_ms 동안 다시 보이지 않으면 pause (endpoint 와 audio 는 유지, video 연결만 끊음)
+ * - pause 된 endpoint 는 warm_pool_size 개까지 유지 => 다시 보이면 sdp 협상 없이 바로 연결
+ * - warm pool 을 넘으면 오래된 endpoint 부터 release 하고 client 에게 videoReleased 전달
+ *   => client 는 해당 sender 가 다시 화면에 보이면 receiveVideoFrom 으로 새로 연결
+ */
+@Service
+@Slf4j
+public class VideoSubscriptionService {
+
+    private final KurentoParticipantService participantService;
+
+    @Value("${chatforyou.kurento.subscription.enabled:true}")
+    private boolean enabled;
+
+    // 화면에서 사라진 후 pause 할 때까지 기다리는 시간 : 스크롤 중 잠깐 사라지는 경우 연결을 유지
+    @Value("${chatforyou.kurento.subscription.hysteresis_ms:3000}")
+    private long hysteresisMs;
+
+    // receiver 마다 유지할 pause 된 endpoint 수
+    @Value("${chatforyou.kurento.subscription.warm_pool_size:4}")
+    private int warmPoolSize;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "video-subscription");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public VideoSubscriptionService(KurentoParticipantService participantService) {
+        this.participantService = participantService;
+    }
+
+    /**
+     * client 가 보낸 화면에 보이는 sender 목록으로 구독 갱신
+     */
+    public void subscribe(KurentoUserSession user, Collection<String> senders) {
+        // composite 방은 합쳐진 영상 하나만 받기 때문에 구독 관리가 필요없음
+        if (!enabled || user.isComposite()) {
+            return;
+        }
+
+        VideoSubscription subscription = user.getSubscription();
+        synchronized (subscription) {
+            if (subscription.isClosed()) {
+                return;
+            }
+            subscription.setVisible(senders);
+
+            // 다시 보이는 sender : 예약된 pause 취소, pause 된 endpoint 는 다시 연결
+            for (String senderId : senders) {
+                subscription.cancelPendingPause(senderId);
+                if (subscription.removePaused(senderId)) {
+                    KurentoUserSession sender = participantService.getParticipant(user.getRoomId(), senderId);
+                    if (sender != null && !user.resumeVideoFrom(sender)) {
+                        this.notifyReleased(user, senderId);
+                    }
+                }
+            }
+
+            // 보이지 않는 sender : hysteresis 후 pause
+            for (String senderId : user.getIncomingMedia().keySet()) {
+                if (subscription.isVisible(senderId) || subscription.isPaused(senderId)
+                        || subscription.hasPendingPause(senderId)) {
+                    continue;
+                }
+                subscription.putPendingPause(senderId,
+                        scheduler.schedule(() -> this.pause(user, senderId), hysteresisMs, TimeUnit.MILLISECONDS));
+            }
+        }
+    }
+
+    private void pause(KurentoUserSession user, String senderId) {
+        VideoSubscription subscription = user.getSubscription();
+        synchronized (subscription) {
+            subscription.removePendingPause(senderId);
+            if (subscription.isClosed() || subscription.isVisible(senderId)) {
+                return;
+            }
+
+            try {
+                KurentoUserSession sender = participantService.getParticipant(user.getRoomId(), senderId);
+                if (sender != null && user.getIncomingMedia().containsKey(senderId)) {
+                    user.pauseVideoFrom(sender);
+                    subscription.addPaused(senderId);
+                }
+
+                // warm pool 을 넘는 endpoint 는 release
+                List<String> evicted = subscription.evict(warmPoolSize, user.getIncomingMedia().keySet());
+                for (String evictedId : evicted) {
+                    KurentoUserSession evictedSender = participantService.getParticipant(user.getRoomId(), evictedId);
+                    if (evictedSender != null) {
+                        user.cancelVideoFrom(evictedSender);
+                    } else {
+                        user.cancelVideoFrom(evictedId);
+                    }
+                    this.notifyReleased(user, evictedId);
+                }
+            } catch (Exception e) {
+                log.warn("PARTICIPANT {}: could not pause video from {} ::: {}", user.getUserId(), senderId, e.getMessage());
+            }
+        }
+    }
+
+    private void notifyReleased(KurentoUserSession user, String senderId) {
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "videoReleased");
+        message.addProperty("name", senderId);
+        // 다시 구독하면 receiveVideoFrom 으로 새로 연결되기 때문에 밀려있으면 버려도 됨
+        user.sendNonCriticalMessage(message, "videoReleased:" + senderId);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,102 @@
+package webChat.service.redis;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import webChat.model.room.ChatRoom;
+import webChat.model.room.KurentoRoom;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * room hash 의 value 직렬화를 위한 serializer
+ * - JSON : 기존과 동일하게 GenericJackson2JsonRedisSerializer 사용 (@class 타입 정보 포함)
+ * - SMILE : chatroom 객체만 [magic, version, type] header + Smile binary 로 저장, 타입 정보는 header 의 type 으로 대체
+ * 읽을 때는 설정과 관계없이 header 로 형식을 판단하기 때문에 JSON / SMILE 로 저장된 값을 모두 읽을 수 있음
+ * => 설정 변경 후 기존 key 는 다음 update 시점에 새로운 형식으로 다시 저장됨
+ */
+public class ChatRoomRedisSerializer implements RedisSerializer<Object> {
+
+    public enum Format {
+        JSON, SMILE
+    }
+
+    // json 은 절대 0xCF 로 시작하지 않음
+    private static final byte MAGIC = (byte) 0xCF;
+    private static final byte VERSION = 1;
+    private static final byte TYPE_CHAT_ROOM = 0;
+    private static final byte TYPE_KURENTO_ROOM = 1;
+    private static final int HEADER_SIZE = 3;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer;
+    private final ObjectMapper smileMapper;
+    private final Format format;
+
+    public ChatRoomRedisSerializer(GenericJackson2JsonRedisSerializer jsonSerializer, Format format) {
+        this.jsonSerializer = jsonSerializer;
+        this.format = format;
+        this.smileMapper = SmileMapper.builder()
+                .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .build();
+    }
+
+    /**
+     * chatroom 이 binary 형식으로 저장되는지 여부
+     * binary 형식은 redisSearch 결과 필드로 바로 역직렬화 할 수 없음
+     */
+    public boolean isBinary() {
+        return Format.SMILE.equals(format);
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (this.isBinary() && value instanceof ChatRoom chatRoom) {
+            return this.serializeSmile(chatRoom);
+        }
+        return jsonSerializer.serialize(value);
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] == MAGIC) {
+            return this.deserializeSmile(bytes);
+        }
+        return jsonSerializer.deserialize(bytes);
+    }
+
+    private byte[] serializeSmile(ChatRoom chatRoom) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+        out.write(MAGIC);
+        out.write(VERSION);
+        out.write(chatRoom instanceof KurentoRoom ? TYPE_KURENTO_ROOM : TYPE_CHAT_ROOM);
+        try {
+            smileMapper.writeValue(out, chatRoom);
+        } catch (IOException e) {
+            throw new SerializationException("Could not write chatroom as smile", e);
+        }
+        return out.toByteArray();
+    }
+
+    private ChatRoom deserializeSmile(byte[] bytes) {
+        if (bytes.length < HEADER_SIZE || bytes[1] != VERSION) {
+            throw new SerializationException("Unsupported chatroom format version : " + (bytes.length > 1 ? bytes[1] : -1));
+        }
+        Class<? extends ChatRoom> type = bytes[2] == TYPE_KURENTO_ROOM ? KurentoRoom.class : ChatRoom.class;
+        try {
+            return smileMapper.readValue(bytes, HEADER_SIZE, bytes.length - HEADER_SIZE, type);
+        } catch (IOException e) {
+            throw new SerializationException("Could not read smile chatroom", e);
+        }
+    }
+}
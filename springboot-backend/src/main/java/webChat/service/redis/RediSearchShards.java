@@ -0,0 +1,31 @@
+package webChat.service.redis;
+
+import io.github.dengliming.redismodule.redisearch.RediSearch;
+import io.github.dengliming.redismodule.redisearch.client.RediSearchClient;
+
+import java.util.List;
+
+/**
+ * redisSearch 검색 대상 shard 목록
+ * - standalone : master 1개
+ * - cluster : redisSearch index 는 각 shard 의 key 만 색인하기 때문에 master node 마다 client 를 만들어 index 생성 및 검색
+ */
+public class RediSearchShards {
+
+    private final List<RediSearchClient> clients;
+
+    public RediSearchShards(List<RediSearchClient> clients) {
+        this.clients = List.copyOf(clients);
+    }
+
+    /**
+     * 여러 shard 에 나눠서 검색해야 하는지 여부
+     */
+    public boolean isSharded() {
+        return clients.size() > 1;
+    }
+
+    public List<RediSearch> getRediSearch(String indexName) {
+        return clients.stream().map(client -> client.getRediSearch(indexName)).toList();
+    }
+}
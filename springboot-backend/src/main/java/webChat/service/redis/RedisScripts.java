@@ -0,0 +1,129 @@
+package webChat.service.redis;
+
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+/**
+ * redis 에서 원자적으로 실행되어야 하는 Lua script 모음
+ * 모든 script 의 인자는 StringRedisSerializer 로 직렬화해서 넘긴다
+ */
+public final class RedisScripts {
+
+    private RedisScripts() {}
+
+    /**
+     * 방의 state, userCount, maxUserCnt 필드로 삭제 대상 여부를 판단해서 cleanup sorted set 을 갱신하는 함수
+     * 삭제 대상 : state 가 active 가 아니거나, userCount <= 0 || userCount > maxUserCnt
+     * 삭제 대상이 된 시간을 유지하기 위해 ZADD NX 사용
+     * cleanupKey 가 없으면(cluster 모드) sorted set 은 건드리지 않고 판단 결과만 반환
+     * return 1 : 삭제 대상, 0 : 삭제 대상 아님, -1 : 방 없음
+     */
+    private static final String REFRESH_CLEANUP_FUNCTION =
+            "local function refreshCleanup(roomKey, cleanupKey, roomId, now) " +
+            "local f = redis.call('HMGET', roomKey, 'state', 'userCount', 'maxUserCnt') " +
+            "if not f[1] then if cleanupKey then redis.call('ZREM', cleanupKey, roomId) end return -1 end " +
+            "local active = string.find(f[1], '\"ACTIVE\"', 1, true) ~= nil " +
+            "local count = tonumber(f[2] or '0') or 0 " +
+            "local max = tonumber(f[3] or '0') or 0 " +
+            "local candidate = (not active) or count <= 0 or count > max " +
+            "if cleanupKey then " +
+            "if candidate then redis.call('ZADD', cleanupKey, 'NX', now, roomId) " +
+            "else redis.call('ZREM', cleanupKey, roomId) end end " +
+            "if candidate then return 1 end return 0 end ";
+
+    /**
+     * roomName 선점
+     * KEYS[1] : roomName index key
+     * ARGV[1] : roomName, ARGV[2] : roomId
+     * return 1 : 선점 성공(이미 같은 방이 선점한 경우 포함), 0 : 다른 방이 사용중
+     */
+    public static final RedisScript<Long> RESERVE_ROOM_NAME = new DefaultRedisScript<>(
+            "local owner = redis.call('HGET', KEYS[1], ARGV[1]) " +
+            "if not owner then redis.call('HSET', KEYS[1], ARGV[1], ARGV[2]) return 1 end " +
+            "if owner == ARGV[2] then return 1 end " +
+            "return 0", Long.class);
+
+    /**
+     * roomName 변경 : 새로운 이름을 선점한 후 기존 이름을 해제
+     * KEYS[1] : roomName index key
+     * ARGV[1] : 기존 roomName, ARGV[2] : 새로운 roomName, ARGV[3] : roomId
+     * return 1 : 변경 성공, 0 : 새로운 이름을 다른 방이 사용중
+     */
+    public static final RedisScript<Long> RENAME_ROOM_NAME = new DefaultRedisScript<>(
+            "local owner = redis.call('HGET', KEYS[1], ARGV[2]) " +
+            "if owner and owner ~= ARGV[3] then return 0 end " +
+            "redis.call('HSET', KEYS[1], ARGV[2], ARGV[3]) " +
+            "if ARGV[1] ~= ARGV[2] and redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[3] then " +
+            "redis.call('HDEL', KEYS[1], ARGV[1]) end " +
+            "return 1", Long.class);
+
+    /**
+     * roomName 해제 : 해당 방이 선점한 이름인 경우에만 제거
+     * KEYS[1] : roomName index key
+     * ARGV[1] : roomName, ARGV[2] : roomId
+     */
+    public static final RedisScript<Long> RELEASE_ROOM_NAME = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], ARGV[1]) == ARGV[2] then " +
+            "return redis.call('HDEL', KEYS[1], ARGV[1]) end " +
+            "return 0", Long.class);
+
+    /**
+     * 방 인원수 원자적 증감
+     * userCount / maxUserCnt 필드가 없는 기존 방은 chatroom 필드의 json 에서 값을 가져와 필드를 만든다
+     * (binary 로 저장된 chatroom 은 json 으로 읽을 수 없으므로 0 으로 처리)
+     * KEYS[1] : roomId key, KEYS[2] : cleanup sorted set key (cluster 모드에서는 생략)
+     * ARGV[1] : 증감값, ARGV[2] : '1' 이면 maxUserCnt 초과 여부 확인, ARGV[3] : roomId, ARGV[4] : 현재 시간(ms)
+     * return 변경된 인원수, -1 : 정원 초과, -2 : 방 없음
+     */
+    public static final RedisScript<Long> ADJUST_USER_COUNT = new DefaultRedisScript<>(
+            REFRESH_CLEANUP_FUNCTION +
+            "if redis.call('HEXISTS', KEYS[1], 'chatroom') == 0 then return -2 end " +
+            "local count = redis.call('HGET', KEYS[1], 'userCount') " +
+            "local max = redis.call('HGET', KEYS[1], 'maxUserCnt') " +
+            "if (not count) or (not max) then " +
+            "local ok, room = pcall(cjson.decode, redis.call('HGET', KEYS[1], 'chatroom')) " +
+            "if not ok then room = {} end " +
+            "count = count or tostring(room['userCount'] or 0) " +
+            "max = max or tostring(room['maxUserCnt'] or 0) " +
+            "redis.call('HSET', KEYS[1], 'userCount', count, 'maxUserCnt', max) end " +
+            "local delta = tonumber(ARGV[1]) " +
+            "local current = tonumber(count) " +
+            "if ARGV[2] == '1' and current + delta > tonumber(max) then return -1 end " +
+            "if current + delta < 0 then delta = -current end " +
+            "local result = redis.call('HINCRBY', KEYS[1], 'userCount', delta) " +
+            "refreshCleanup(KEYS[1], KEYS[2], ARGV[3], ARGV[4]) " +
+            "return result", Long.class);
+
+    /**
+     * 방 정보 변경 후 cleanup sorted set 갱신
+     * KEYS[1] : roomId key, KEYS[2] : cleanup sorted set key (cluster 모드에서는 생략)
+     * ARGV[1] : roomId, ARGV[2] : 현재 시간(ms)
+     * return 1 : 삭제 대상, 0 : 삭제 대상 아님, -1 : 방 없음
+     */
+    public static final RedisScript<Long> REFRESH_CLEANUP_CANDIDATE = new DefaultRedisScript<>(
+            REFRESH_CLEANUP_FUNCTION +
+            "return refreshCleanup(KEYS[1], KEYS[2], ARGV[1], ARGV[2])", Long.class);
+
+    /**
+     * 필드 저장과 version 증가를 한번에 수행 => compareAndSet 중인 요청이 새로운 필드와 이전 version 을 함께 읽지 않도록 함
+     * KEYS[1] : roomId key
+     * ARGV[1] : version 필드, ARGV[2..] : 저장할 field, value 쌍
+     * return 증가된 version
+     */
+    public static final RedisScript<Long> SET_FIELDS_AND_INCREMENT_VERSION = new DefaultRedisScript<>(
+            "for i = 2, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "return redis.call('HINCRBY', KEYS[1], ARGV[1], 1)", Long.class);
+
+    /**
+     * version 이 일치하는 경우에만 필드를 저장하고 version 증가
+     * KEYS[1] : roomId key
+     * ARGV[1] : version 필드, ARGV[2] : 조회 시점의 version, ARGV[3..] : 저장할 field, value 쌍
+     * return 증가된 version, -1 : version 불일치, -2 : 방 없음
+     */
+    public static final RedisScript<Long> COMPARE_AND_SET_FIELDS = new DefaultRedisScript<>(
+            "if redis.call('HEXISTS', KEYS[1], 'chatroom') == 0 then return -2 end " +
+            "local current = tonumber(redis.call('HGET', KEYS[1], ARGV[1]) or '0') " +
+            "if current ~= tonumber(ARGV[2]) then return -1 end " +
+            "for i = 3, #ARGV, 2 do redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1]) end " +
+            "return redis.call('HINCRBY', KEYS[1], ARGV[1], 1)", Long.class);
+}
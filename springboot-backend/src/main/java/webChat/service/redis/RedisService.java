@@ -4,17 +4,26 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import io.github.dengliming.redismodule.redisearch.index.Document;
 import lombok.NonNull;
 import org.apache.coyote.BadRequestException;
+import webChat.model.game.GameSettingInfo;
 import webChat.model.redis.DataType;
 import webChat.model.redis.RoomSearchCriteria;
+import webChat.model.redis.VersionedData;
 import webChat.model.room.ChatRoom;
-import webChat.model.room.KurentoRoom;
+import webChat.model.room.RoomState;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public interface RedisService {
+
+    // admitUser 결과 : 정원 초과
+    long ROOM_FULL = -1L;
+    // admitUser 결과 : 방 없음
+    long ROOM_NOT_FOUND = -2L;
+
     <T> void setObject(@NonNull String key, T object);
 
     <T> void setObject(@NonNull String key, T object, long timeout, TimeUnit unit);
@@ -33,14 +42,18 @@ public interface RedisService {
 
     long getExpiredByTimeUnit(@NonNull String key, TimeUnit timeUnit);
 
-    void incrementUserCount(KurentoRoom kurentoRoom);
+    long incrementUserCount(String roomId);
+
+    long decrementUserCount(String roomId);
 
-    void decrementUserCount(KurentoRoom kurentoRoom);
+    long admitUser(String roomId);
+
+    void resetUserCount(String roomId);
 
 
     Set<String> getKeysByPattern(String pattern);
 
-    List<KurentoRoom> getChatRoomListForDelete(int searchCount) throws BadRequestException;
+    List<String> getChatRoomIdsForDelete(int offset, int count);
 
     void insertChatRoom(ChatRoom chatRoom);
 
@@ -48,11 +61,41 @@ public interface RedisService {
 
     Map<Object, Object> getAllChatRoomData(String roomId);
 
+    List<ChatRoom> getChatRoomList(Collection<String> roomIds);
+
     List<Document> searchRoomListByOptions(RoomSearchCriteria searchCriteria);
 
+    List<ChatRoom> searchChatRoomList(RoomSearchCriteria searchCriteria);
+
     boolean deleteAllChatRoomData(String str);
 
     void updateChatRoom(ChatRoom chatRoom);
 
+    void updateRoomState(String roomId, RoomState roomState);
+
+    GameSettingInfo getGameSettingInfo(String roomId, boolean withBeforeSubjects);
+
+    void updateGameBeforeSubjects(String roomId, Map<String, List<String>> beforeSubjects);
+
+    VersionedData<ChatRoom> getChatRoomForUpdate(String roomId);
+
+    boolean compareAndSetChatRoom(ChatRoom chatRoom, long expectedVersion);
+
+    VersionedData<GameSettingInfo> getGameSettingInfoForUpdate(String roomId);
+
+    boolean compareAndSetGameSettingInfo(String roomId, GameSettingInfo gameSettingInfo, long expectedVersion);
+
+    <T extends ChatRoom> T updateChatRoomWithRetry(String roomId, Class<T> clazz, RoomUpdater<T> updater) throws BadRequestException;
+
+    GameSettingInfo updateGameSettingInfoWithRetry(String roomId, RoomUpdater<GameSettingInfo> updater) throws BadRequestException;
+
     boolean checkRoomName(String roomName);
+
+    boolean reserveRoomName(String roomName, String roomId);
+
+    boolean renameRoomName(String roomId, String oldRoomName, String newRoomName);
+
+    void releaseRoomName(String roomName, String roomId);
+
+    void rebuildRoomNameIndex();
 }
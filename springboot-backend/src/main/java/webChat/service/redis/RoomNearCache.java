@@ -0,0 +1,192 @@
+package webChat.service.redis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.PatternTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * KurentoRoom 조회를 위한 in-process near cache
+ * - roomId key 기준으로 chatroom, userCount, state 필드의 직렬화된 값을 저장
+ *   => 호출하는 쪽에서 객체를 수정해도 cache 에는 영향이 없도록 역직렬화는 매번 수행
+ * - 크기 제한(LRU) 및 TTL 적용
+ * - 다른 backend 노드의 변경은 redis keyspace notification 으로 감지해서 제거
+ * - invalidation 직후 replica_lag_ms 동안은 master 에서 조회 => lag 이 있는 replica 의 값을 cache 하지 않음
+ * chatforyou.redis.near_cache.enabled 가 true 인 경우에만 동작
+ */
+@Component
+@Slf4j
+public class RoomNearCache {
+
+    private static final String KEYSPACE_PATTERN = "__keyspace@*__:roomId:*";
+    private static final String KEYSPACE_PREFIX_END = "__:";
+
+    private final RedisConnectionFactory connectionFactory;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${chatforyou.redis.near_cache.enabled:false}")
+    private boolean enabled;
+
+    @Value("${chatforyou.redis.near_cache.max_size:1000}")
+    private int maxSize;
+
+    @Value("${chatforyou.redis.near_cache.ttl_ms:5000}")
+    private long ttlMillis;
+
+    private Map<String, CachedRoom> cache;
+    private RedisMessageListenerContainer listenerContainer;
+
+    // invalidation 직후에는 replica 에 변경이 반영되지 않았을 수 있기 때문에 이 시간 동안은 master 에서 조회
+    @Value("${chatforyou.redis.near_cache.replica_lag_ms:1000}")
+    private long replicaLagMillis;
+
+    // key 별 마지막 invalidation : 조회 중에 같은 key 의 invalidation 이 있었다면 cache 에 저장하지 않음
+    // 다른 key 의 invalidation 은 영향 없음
+    // invalidation 마다 새로운 객체를 저장하고 조회 전 / 후의 객체가 같은지 비교
+    private final Map<String, Invalidation> invalidations = new ConcurrentHashMap<>();
+
+    private Counter hitCounter;
+    private Counter missCounter;
+    private Counter invalidationCounter;
+
+    public RoomNearCache(@Qualifier("masterRedisConnectionFactory") RedisConnectionFactory connectionFactory,
+                         MeterRegistry meterRegistry) {
+        this.connectionFactory = connectionFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    private void init() {
+        if (!enabled) {
+            return;
+        }
+
+        cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedRoom> eldest) {
+                return size() > maxSize;
+            }
+        });
+
+        hitCounter = Counter.builder("chatforyou_room_near_cache").tag("result", "hit").register(meterRegistry);
+        missCounter = Counter.builder("chatforyou_room_near_cache").tag("result", "miss").register(meterRegistry);
+        invalidationCounter = Counter.builder("chatforyou_room_near_cache_invalidation").register(meterRegistry);
+        Gauge.builder("chatforyou_room_near_cache_size", cache, Map::size).register(meterRegistry);
+
+        this.enableKeyspaceNotification();
+
+        listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener((message, pattern) -> {
+            String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+            this.invalidate(channel.substring(channel.indexOf(KEYSPACE_PREFIX_END) + KEYSPACE_PREFIX_END.length()));
+        }, new PatternTopic(KEYSPACE_PATTERN));
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+
+        log.info("##### Room near cache enabled : maxSize {}, ttl {} ms #####", maxSize, ttlMillis);
+    }
+
+    @PreDestroy
+    private void destroy() throws Exception {
+        if (listenerContainer != null) {
+            listenerContainer.destroy();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * cache 에서 가져오고 없으면 loader 로 가져와서 저장
+     *
+     * @param redisKey roomId key
+     * @param loader   redis 에서 직렬화된 값을 가져오는 함수, true 면 master 에서 조회
+     * @return 직렬화된 필드값 목록
+     */
+    public List<byte[]> get(String redisKey, Function<Boolean, List<byte[]>> loader) {
+        CachedRoom cachedRoom = cache.get(redisKey);
+        if (cachedRoom != null && cachedRoom.expireAt() > System.currentTimeMillis()) {
+            hitCounter.increment();
+            return cachedRoom.fields();
+        }
+
+        missCounter.increment();
+        Invalidation before = invalidations.get(redisKey);
+        boolean fromMaster = before != null && System.currentTimeMillis() - before.invalidatedAt() < replicaLagMillis;
+        List<byte[]> fields = loader.apply(fromMaster);
+        // 방이 없는 경우는 cache 하지 않음
+        if (fields != null && !fields.isEmpty() && fields.get(0) != null && invalidations.get(redisKey) == before) {
+            cache.put(redisKey, new CachedRoom(fields, System.currentTimeMillis() + ttlMillis));
+        }
+        return fields;
+    }
+
+    /**
+     * 방 정보가 변경된 경우 cache 에서 제거
+     */
+    public void invalidate(String redisKey) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        invalidations.put(redisKey, new Invalidation(now));
+        if (cache.remove(redisKey) != null) {
+            invalidationCounter.increment();
+        }
+        this.pruneInvalidations(now);
+    }
+
+    /**
+     * 오래된 invalidation 기록 제거
+     * 조회 중에 기록이 제거되면 조회 전과 달라지기 때문에 cache 에 저장하지 않음 => 안전한 쪽으로 동작
+     */
+    private void pruneInvalidations(long now) {
+        if (invalidations.size() <= maxSize) {
+            return;
+        }
+        long keepMillis = Math.max(ttlMillis, replicaLagMillis);
+        invalidations.values().removeIf(invalidation -> now - invalidation.invalidatedAt() > keepMillis);
+    }
+
+    /**
+     * keyspace notification 은 기본적으로 꺼져있기 때문에 hash, generic, expired 이벤트를 추가로 활성화
+     * managed redis 처럼 CONFIG 명령을 사용할 수 없는 경우 직접 설정 필요
+     */
+    private void enableKeyspaceNotification() {
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            Properties config = connection.serverCommands().getConfig("notify-keyspace-events");
+            String flags = config == null ? "" : config.getProperty("notify-keyspace-events", "");
+            StringBuilder newFlags = new StringBuilder(flags);
+            for (char flag : "Kghx".toCharArray()) {
+                if (flags.indexOf(flag) < 0 && !(flag != 'K' && flags.indexOf('A') >= 0)) {
+                    newFlags.append(flag);
+                }
+            }
+            if (!newFlags.toString().equals(flags)) {
+                connection.serverCommands().setConfig("notify-keyspace-events", newFlags.toString());
+            }
+        } catch (Exception e) {
+            log.error("#### Fail to enable keyspace notification, near cache relies on ttl only ::: {}", e.getMessage());
+        }
+    }
+
+    private record CachedRoom(List<byte[]> fields, long expireAt) {}
+
+    private record Invalidation(long invalidatedAt) {}
+}
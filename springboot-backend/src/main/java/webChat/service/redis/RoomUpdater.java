@@ -0,0 +1,12 @@
+package webChat.service.redis;
+
+import org.apache.coyote.BadRequestException;
+
+/**
+ * 재시도 가능한 방 정보 변경 로직
+ * 충돌 시 최신 값으로 다시 호출되기 때문에 redis 외부에 부수효과가 없어야 함
+ */
+@FunctionalInterface
+public interface RoomUpdater<T> {
+    void update(T target) throws BadRequestException;
+}
@@ -5,29 +5,50 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.dengliming.redismodule.redisearch.RediSearch;
-import io.github.dengliming.redismodule.redisearch.client.RediSearchClient;
 import io.github.dengliming.redismodule.redisearch.index.Document;
 import io.github.dengliming.redismodule.redisearch.search.SearchOptions;
 import io.github.dengliming.redismodule.redisearch.search.SortBy;
 import io.lettuce.core.RedisException;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.NonNull;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.coyote.BadRequestException;
 import org.jetbrains.annotations.NotNull;
 import org.redisson.api.SortOrder;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.ReturnType;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
+import webChat.controller.ExceptionController;
 import webChat.model.redis.DataType;
 import webChat.model.redis.RoomSearchCriteria;
+import webChat.model.redis.VersionedData;
+import webChat.model.game.GameSettingInfo;
 import webChat.model.room.ChatRoom;
 import webChat.model.room.KurentoRoom;
 import webChat.model.room.RoomState;
+import webChat.service.redis.ChatRoomRedisSerializer;
+import webChat.service.redis.RediSearchShards;
+import webChat.service.redis.RedisScripts;
 import webChat.service.redis.RedisService;
+import webChat.service.redis.RoomNearCache;
+import webChat.service.redis.RoomUpdater;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * redis 사용을 위한 서비스 클래스
@@ -41,17 +62,61 @@ public class RedisServiceImpl implements RedisService {
     private final RedisTemplate<String, Object> masterTemplate;
     private final RedisTemplate<String, Object> slaveTemplate;
     private final ObjectMapper objectMapper;
-    private final RediSearchClient rediSearchClient;
+    private final RediSearchShards rediSearchShards;
+    private final RoomNearCache roomNearCache;
+    private final MeterRegistry meterRegistry;
+    // sorted set, index 처럼 json 직렬화 없이 문자열 그대로 저장하는 데이터를 위한 template
+    private final StringRedisTemplate masterStringTemplate;
+    private final StringRedisTemplate slaveStringTemplate;
+
+    // cluster 모드에서는 한 방의 key 가 같은 slot 에 저장되도록 roomId 를 hash tag 로 감싼다
+    @Value("${chatforyou.redis.cluster.enabled:false}")
+    private boolean clusterEnabled;
+
+    // 삭제 대상이 된 후 실제 삭제까지 유예 시간
+    @Value("${chatforyou.room.cleanup.grace_ms:0}")
+    private long cleanupGraceMillis;
+
+    // compareAndSet 충돌 시 최대 시도 횟수
+    @Value("${chatforyou.room.cas.max_attempts:5}")
+    private int casMaxAttempts;
     private final long REDIS_TIMEOUT = 1L;
 
+    // roomName -> roomId 를 저장하는 roomName 중복 확인용 index
+    private static final String ROOM_NAME_INDEX_KEY = "roomName:index";
+    // 원자적으로 증감되는 방 인원수 필드
+    private static final String USER_COUNT_FIELD = "userCount";
+    private static final String MAX_USER_COUNT_FIELD = "maxUserCnt";
+    // 자주 변경되는 방 상태 및 게임 정보는 chatroom 필드와 분리해서 필드 단위로 저장
+    private static final String STATE_FIELD = "state";
+    private static final String GAME_SETTING_FIELD = "gameSetting";
+    private static final String GAME_BEFORE_SUBJECTS_FIELD = "gameBeforeSubjects";
+    // compareAndSet 을 위한 version 필드 : chatroom 필드 / 게임 정보 필드 별로 관리
+    private static final String CHATROOM_VERSION_FIELD = "chatroomVersion";
+    private static final String GAME_SETTING_VERSION_FIELD = "gameSettingVersion";
+    private static final long CAS_CONFLICT = -1L;
+    // 삭제 대상 방의 roomId 를 삭제 대상이 된 시간 순으로 저장하는 sorted set
+    private static final String CLEANUP_KEY = "room:cleanup";
+    // 방이 사용하는 모든 key 를 저장하는 set 의 prefix
+    private static final String ROOM_KEY_REGISTRY_PREFIX = "room:keys:";
+    // 방 정보 조회 시 가져오는 필드 : 게임 정보는 필요한 경우에만 getGameSettingInfo 로 조회
+    private static final List<String> ROOM_FIELDS = List.of(DataType.CHATROOM.getType(), USER_COUNT_FIELD, STATE_FIELD);
+    private static final StringRedisSerializer STRING_SERIALIZER = StringRedisSerializer.UTF_8;
+    private static final RedisSerializer<Long> LONG_SERIALIZER = new GenericToStringSerializer<>(Long.class);
+
     public RedisServiceImpl(
             @Qualifier("masterRedisTemplate") RedisTemplate<String, Object> masterTemplate,
             @Qualifier("slaveRedisTemplate") RedisTemplate<String, Object> slaveTemplate,
-            ObjectMapper objectMapper, RediSearchClient rediSearchClient) {
+            ObjectMapper objectMapper, RediSearchShards rediSearchShards, RoomNearCache roomNearCache,
+            MeterRegistry meterRegistry) {
         this.masterTemplate = masterTemplate;
         this.slaveTemplate = slaveTemplate;
         this.objectMapper = objectMapper;
-        this.rediSearchClient = rediSearchClient;
+        this.rediSearchShards = rediSearchShards;
+        this.roomNearCache = roomNearCache;
+        this.meterRegistry = meterRegistry;
+        this.masterStringTemplate = new StringRedisTemplate(masterTemplate.getConnectionFactory());
+        this.slaveStringTemplate = new StringRedisTemplate(slaveTemplate.getConnectionFactory());
     }
 
     /**
@@ -116,10 +181,11 @@ public class RedisServiceImpl implements RedisService {
 
     @Override
     public void setObjectOpsHash(@NonNull String roomId, DataType dataType, Object o) {
-        String redisKey = "roomId:" + roomId;
+        String redisKey = makeRedisKey(roomId);
 
         // Redis에 객체 저장
         masterTemplate.opsForHash().put(redisKey, dataType.getType(), o);
+        roomNearCache.invalidate(redisKey);
     }
 
     /**
@@ -167,26 +233,72 @@ public class RedisServiceImpl implements RedisService {
     }
 
     /**
-     * kurentoRoom 에서 유저 카운트를 증가시킨다
-     * @param kurentoRoom
-     * @return
+     * 방 인원수를 원자적으로 증가시킨다
+     * @param roomId
+     * @return 증가된 인원수, 방이 없으면 ROOM_NOT_FOUND
      */
     @Override
-    public void incrementUserCount(KurentoRoom kurentoRoom) {
-        kurentoRoom.setUserCount(kurentoRoom.getUserCount() + 1);
-        this.updateChatRoom(kurentoRoom);
+    public long incrementUserCount(String roomId) {
+        return this.adjustUserCount(roomId, 1, false);
     }
 
     /**
-     * kurentoRoom 에서 유저 카운트를 감소시킨다
+     * 방 인원수를 원자적으로 감소시킨다. 0 미만으로는 내려가지 않음
      *
-     * @param kurentoRoom
-     * @return
+     * @param roomId
+     * @return 감소된 인원수, 방이 없으면 ROOM_NOT_FOUND
      */
     @Override
-    public void decrementUserCount(KurentoRoom kurentoRoom) {
-        kurentoRoom.setUserCount(kurentoRoom.getUserCount() - 1);
-        this.updateChatRoom(kurentoRoom);
+    public long decrementUserCount(String roomId) {
+        return this.adjustUserCount(roomId, -1, false);
+    }
+
+    /**
+     * maxUserCnt 확인과 인원수 증가를 한번의 요청으로 처리
+     * 동시에 여러 유저가 입장해도 maxUserCnt 를 넘지 않는다
+     *
+     * @param roomId
+     * @return 증가된 인원수, 정원 초과 시 ROOM_FULL, 방이 없으면 ROOM_NOT_FOUND
+     */
+    @Override
+    public long admitUser(String roomId) {
+        return this.adjustUserCount(roomId, 1, true);
+    }
+
+    /**
+     * 방 인원수 초기화
+     */
+    @Override
+    public void resetUserCount(String roomId) {
+        masterTemplate.opsForHash().put(makeRedisKey(roomId), USER_COUNT_FIELD, 0);
+        this.refreshCleanupCandidate(roomId);
+        roomNearCache.invalidate(makeRedisKey(roomId));
+    }
+
+    private long adjustUserCount(String roomId, int delta, boolean checkCapacity) {
+        Long result = masterTemplate.execute(RedisScripts.ADJUST_USER_COUNT, STRING_SERIALIZER, LONG_SERIALIZER,
+                this.makeCleanupScriptKeys(roomId), String.valueOf(delta), checkCapacity ? "1" : "0",
+                cleanKey(roomId), String.valueOf(System.currentTimeMillis()));
+        if (clusterEnabled && result != null && result >= 0) {
+            this.refreshCleanupCandidate(roomId);
+        }
+        roomNearCache.invalidate(makeRedisKey(roomId));
+        return result == null ? ROOM_NOT_FOUND : result;
+    }
+
+    /**
+     * userCount, state 는 chatroom 필드와 별도로 변경되기 때문에 chatroom 객체에 최신 값을 반영
+     */
+    private void applyRoomFields(Object chatRoom, Object userCount, Object state) {
+        if (!(chatRoom instanceof ChatRoom room)) {
+            return;
+        }
+        if (userCount != null) {
+            room.setUserCount(Integer.parseInt(userCount.toString()));
+        }
+        if (state instanceof RoomState roomState) {
+            room.setRoomState(roomState);
+        }
     }
 
     /**
@@ -200,14 +312,8 @@ public class RedisServiceImpl implements RedisService {
         Set<String> keys = new HashSet<>();
 
         // SCAN 옵션 설정 :: 와일드카드 검색할때는 뒤에 * 도 함께 붙여주자
-        ScanOptions scanOptions = ScanOptions.scanOptions().match("*" + pattern + "*").count(100).build();
-
-        // Redis 커넥션에서 커서를 사용해 SCAN 명령 실행
-        try (Cursor<byte[]> cursor = slaveTemplate.getConnectionFactory().getConnection().scan(scanOptions)) {
-            while (cursor.hasNext()) {
-                // 커서가 반환하는 키를 Set에 추가
-                keys.add(new String(cursor.next(), StandardCharsets.UTF_8));
-            }
+        try {
+            this.scanKeys(slaveTemplate, "*" + pattern + "*", keys::add);
         } catch (Exception e) {
             throw new RuntimeException("Error occurred while scanning Redis keys", e);
         }
@@ -216,45 +322,76 @@ public class RedisServiceImpl implements RedisService {
     }
 
     /**
-     * 삭제가 필요한 chatroom 을 검색한다.
-     * 조건 : userCount <= 0 || userCount > maxUserCount && state == "active"
-     * TODO 추후 성능 향상을 위해 Lua script 방식으로 변경 고려 필요
+     * 삭제가 필요한 chatroom 의 roomId 를 가져온다.
+     * 조건 : userCount <= 0 || userCount > maxUserCount && state == "active" 또는 state != "active"
+     * 조건 판단은 방 정보가 변경될 때 redis 에서 수행되어 cleanup sorted set 에 저장되기 때문에
+     * 전체 방이 아닌 삭제 대상 방의 수 만큼만 조회한다
+     *
+     * @param offset cursor : 이전 조회에서 삭제하지 못하고 남은 방의 수
+     * @param count  가져올 방의 수
+     * 삭제는 master 에서 수행되기 때문에 대상 목록도 master 에서 조회
+     * => replica 지연으로 이미 삭제된 방이 다시 조회되면 cursor 가 어긋남
+     * @return 삭제 대상이 된 후 cleanupGraceMillis 가 지난 roomId 목록 (오래된 순)
      */
     @Override
-    public List<KurentoRoom> getChatRoomListForDelete(int searchCount) throws BadRequestException {
-        String pattern = "*roomId:" + "*";
-        List<KurentoRoom> roomList = new ArrayList<>();
-        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(searchCount).build();
-
-        try (Cursor<byte[]> cursor = slaveTemplate.getConnectionFactory().getConnection().scan(options)) {
-            while (cursor.hasNext()) {
-                String key = cleanKey(new String(cursor.next()));
-                KurentoRoom kurentoRoom = this.getRedisDataByDataType(key, DataType.CHATROOM, KurentoRoom.class);
+    public List<String> getChatRoomIdsForDelete(int offset, int count) {
+        Set<String> roomIds = masterStringTemplate.opsForZSet().rangeByScore(CLEANUP_KEY, Double.NEGATIVE_INFINITY,
+                System.currentTimeMillis() - cleanupGraceMillis, offset, count);
+        if (roomIds == null) {
+            return new ArrayList<>();
+        }
+        if (!clusterEnabled) {
+            return new ArrayList<>(roomIds);
+        }
 
-                if (kurentoRoom == null) {
-                    continue;
-                }
+        // cluster 모드에서는 sorted set 갱신이 방 정보 변경과 원자적이지 않기 때문에 삭제 전에 한번 더 확인
+        List<String> roomIdsForDelete = new ArrayList<>();
+        for (String roomId : roomIds) {
+            if (this.refreshCleanupCandidate(roomId) != 0L) {
+                roomIdsForDelete.add(roomId);
+            }
+        }
+        return roomIdsForDelete;
+    }
 
-                // State가 active인 것만 필터링
-                boolean isActiveState = RoomState.ACTIVE.equals(kurentoRoom.getRoomState());
-
-                // 방 active 여부 체크
-                if (isActiveState) {
-                    // 방 userCount 조건 확인
-                    boolean isDeletionCandidate = kurentoRoom.getUserCount() <= 0 ||
-                            kurentoRoom.getUserCount() > kurentoRoom.getMaxUserCnt();
-                    if(isDeletionCandidate) roomList.add(kurentoRoom);
-                } else { // inactive || crated 인 경우 제거
-                    roomList.add(kurentoRoom);
-                }
+    /**
+     * 방의 state, userCount, maxUserCnt 기준으로 cleanup sorted set 갱신
+     */
+    private long refreshCleanupCandidate(String roomId) {
+        long now = System.currentTimeMillis();
+        Long candidate = masterTemplate.execute(RedisScripts.REFRESH_CLEANUP_CANDIDATE, STRING_SERIALIZER, LONG_SERIALIZER,
+                this.makeCleanupScriptKeys(roomId), cleanKey(roomId), String.valueOf(now));
+        if (candidate == null) {
+            return 0L;
+        }
 
+        // cluster 모드에서는 room key 와 cleanup key 의 slot 이 달라 script 안에서 갱신할 수 없기 때문에 판단 결과로 직접 갱신
+        if (clusterEnabled) {
+            if (candidate == 1L) {
+                masterStringTemplate.opsForZSet().addIfAbsent(CLEANUP_KEY, cleanKey(roomId), now);
+            } else {
+                masterStringTemplate.opsForZSet().remove(CLEANUP_KEY, cleanKey(roomId));
             }
-        } catch (Exception e) {
-            log.error("Error scanning Redis keys: ", e);
-            throw new BadRequestException("Failed to get delete session list: " + e.getMessage());
         }
+        return candidate;
+    }
 
-        return roomList;
+    /**
+     * cleanup script 에 넘길 key 목록
+     * cluster 모드에서는 다른 slot 의 cleanup key 를 script 에서 사용할 수 없기 때문에 room key 만 넘긴다
+     */
+    private List<String> makeCleanupScriptKeys(String roomId) {
+        return clusterEnabled ? List.of(makeRedisKey(roomId)) : List.of(makeRedisKey(roomId), CLEANUP_KEY);
+    }
+
+    /**
+     * 기존에 저장된 방 정보로 cleanup sorted set 을 재구성
+     */
+    private void rebuildCleanupIndex() {
+        List<String> roomKeys = new ArrayList<>();
+        this.scanKeys(slaveTemplate, "roomId:*", roomKeys::add);
+        roomKeys.forEach(this::refreshCleanupCandidate);
+        log.info("##### cleanup index rebuilt : {} rooms checked #####", roomKeys.size());
     }
 
     /**
@@ -264,56 +401,384 @@ public class RedisServiceImpl implements RedisService {
      * @return 정리된 키
      */
     private String cleanKey(String key) {
-        return key.replace("\"", "").replace("roomId:", "");
+        return key.replace("\"", "").replace("roomId:", "").replace("{", "").replace("}", "");
     }
 
+    /**
+     * 방이 사용하는 모든 key 를 registry 에서 가져와 한번의 pipeline 으로 삭제
+     * - roomName index 해제, cleanup sorted set 제거, key UNLINK 를 같은 pipeline 에서 처리
+     * - redisSearch index 는 hash key 가 삭제되면 함께 제거됨
+     * - registry 가 없는 기존 방은 roomId hash key 만 삭제
+     * UNLINK 는 실제 메모리 해제를 background 에서 처리하기 때문에 redis 를 block 하지 않음
+     */
     @Override
     public boolean deleteAllChatRoomData(String str) {
-        String pattern = "*" + str + "*";
+        String roomId = cleanKey(str);
+        String redisKey = makeRedisKey(roomId);
+        String registryKey = makeRoomKeyRegistryKey(roomId);
         try {
-            // SCAN 명령어를 사용하여 키 검색 및 삭제
-            ScanOptions scanOptions = ScanOptions.scanOptions().match(pattern).count(100).build();
+            List<Object> roomData = masterTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                connection.hashCommands().hGet(STRING_SERIALIZER.serialize(redisKey), STRING_SERIALIZER.serialize("roomName"));
+                connection.setCommands().sMembers(STRING_SERIALIZER.serialize(registryKey));
+                return null;
+            }, null);
 
-            List<String> keysToDelete = new ArrayList<>();
-            try (Cursor<byte[]> cursor = slaveTemplate.execute(
-                    (RedisCallback<Cursor<byte[]>>) connection -> connection.scan(scanOptions))) {
+            Object roomName = roomData.get(0) == null ? null : masterTemplate.getHashValueSerializer().deserialize((byte[]) roomData.get(0));
+            Set<byte[]> roomKeys = new LinkedHashSet<>();
+            roomKeys.add(STRING_SERIALIZER.serialize(redisKey));
+            if (roomData.get(1) instanceof Collection<?> registeredKeys) {
+                registeredKeys.forEach(key -> roomKeys.add((byte[]) key));
+            }
+            roomKeys.add(STRING_SERIALIZER.serialize(registryKey));
 
-                while (cursor.hasNext()) {
-                    keysToDelete.add(new String(cursor.next(), StandardCharsets.UTF_8).replace("\"", ""));
+            byte[] releaseScript = STRING_SERIALIZER.serialize(RedisScripts.RELEASE_ROOM_NAME.getScriptAsString());
+            masterTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                if (roomName != null) {
+                    connection.scriptingCommands().eval(releaseScript, ReturnType.INTEGER, 1,
+                            STRING_SERIALIZER.serialize(ROOM_NAME_INDEX_KEY),
+                            STRING_SERIALIZER.serialize(roomName.toString()),
+                            STRING_SERIALIZER.serialize(roomId));
                 }
-            } catch (Exception e) {
-                log.error("Error occurred while scanning and deleting keys ::: {}", e.getMessage());
-                return false;
-            }
+                connection.zSetCommands().zRem(STRING_SERIALIZER.serialize(CLEANUP_KEY), STRING_SERIALIZER.serialize(roomId));
+                connection.keyCommands().unlink(roomKeys.toArray(new byte[0][]));
+                return null;
+            }, null);
 
-            if (!keysToDelete.isEmpty()) {
-                masterTemplate.delete(keysToDelete);
-            }
+            roomNearCache.invalidate(redisKey);
             return true;
-        } catch (RedisException e) {
-            log.error("UnExcepted Redis Exception ::: {}", Arrays.toString(e.getStackTrace()));
+        } catch (RedisException | DataAccessException e) {
+            log.error("UnExcepted Redis Exception ::: {}", e.getMessage());
             return false;
         }
     }
 
+    /**
+     * 방이 사용하는 key 를 registry 에 등록
+     * 방 삭제 시 registry 에 등록된 key 를 모두 삭제한다
+     */
+    private void registerRoomKeys(String roomId, String... keys) {
+        masterStringTemplate.opsForSet().add(makeRoomKeyRegistryKey(roomId), keys);
+    }
+
+    /**
+     * roomId:* 로 SCAN 하는 곳에서 잡히지 않도록 room: prefix 사용
+     */
+    private String makeRoomKeyRegistryKey(String roomId) {
+        return ROOM_KEY_REGISTRY_PREFIX + this.makeHashTag(roomId);
+    }
+
+    /**
+     * cluster 모드에서는 {roomId} hash tag 를 사용해 한 방의 key 가 모두 같은 slot 에 저장되도록 한다
+     * => 방 단위의 multi key 명령, Lua script 를 cluster 에서도 사용 가능
+     */
+    private String makeHashTag(String roomId) {
+        String id = cleanKey(roomId);
+        return clusterEnabled ? "{" + id + "}" : id;
+    }
+
     @Override
     public void updateChatRoom(ChatRoom chatRoom) {
-        String redisKey = "roomId:" + chatRoom.getRoomId();
-        masterTemplate.opsForHash().put(redisKey, DataType.CHATROOM.getType(), chatRoom);
-        masterTemplate.opsForHash().put(redisKey, "roomName", chatRoom.getRoomName());
-        masterTemplate.opsForHash().put(redisKey, "state", chatRoom.getRoomState());
+        String redisKey = makeRedisKey(chatRoom.getRoomId());
+        // userCount 는 adjustUserCount 로만 변경되기 때문에 여기서 덮어쓰지 않는다
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(DataType.CHATROOM.getType(), this.toRoomMetadata(chatRoom));
+        fields.put("roomName", chatRoom.getRoomName());
+        fields.put(STATE_FIELD, chatRoom.getRoomState());
+        fields.put(MAX_USER_COUNT_FIELD, chatRoom.getMaxUserCnt());
+        // compareAndSet 으로 변경 중인 다른 요청이 충돌을 감지할 수 있도록 저장과 함께 version 증가
+        this.setFieldsAndIncrementVersion(chatRoom.getRoomId(), CHATROOM_VERSION_FIELD, fields);
+        // 게임 정보가 chatroom 필드에만 있던 기존 방은 게임 정보를 별도 필드로 옮긴다
+        if (chatRoom instanceof KurentoRoom kurentoRoom && kurentoRoom.getGameSettingInfo() != null) {
+            masterTemplate.opsForHash().putIfAbsent(redisKey, GAME_SETTING_FIELD, this.toGameSetting(kurentoRoom.getGameSettingInfo()));
+            if (kurentoRoom.getGameSettingInfo().getBeforeSubjects() != null) {
+                masterTemplate.opsForHash().putIfAbsent(redisKey, GAME_BEFORE_SUBJECTS_FIELD, kurentoRoom.getGameSettingInfo().getBeforeSubjects());
+            }
+        }
+        this.refreshCleanupCandidate(chatRoom.getRoomId());
+        roomNearCache.invalidate(redisKey);
+    }
+
+    /**
+     * 방 상태만 변경
+     */
+    @Override
+    public void updateRoomState(String roomId, RoomState roomState) {
+        String redisKey = makeRedisKey(roomId);
+        masterTemplate.opsForHash().put(redisKey, STATE_FIELD, roomState);
+        this.refreshCleanupCandidate(roomId);
+        roomNearCache.invalidate(redisKey);
+    }
+
+    /**
+     * 게임 정보 조회
+     * beforeSubjects 는 주제를 가져올 때만 필요하기 때문에 withBeforeSubjects 가 true 인 경우에만 함께 조회
+     * 게임 정보가 별도 필드에 없는 기존 방은 chatroom 필드의 게임 정보를 사용
+     *
+     * @return 게임 정보, 방이나 게임 정보가 없으면 null
+     */
+    @Override
+    public GameSettingInfo getGameSettingInfo(String roomId, boolean withBeforeSubjects) {
+        String redisKey = makeRedisKey(roomId);
+        List<Object> values = slaveTemplate.opsForHash().multiGet(redisKey, List.<Object>of(GAME_SETTING_FIELD, GAME_BEFORE_SUBJECTS_FIELD));
+        if (values.get(0) instanceof GameSettingInfo gameSettingInfo) {
+            if (withBeforeSubjects && values.get(1) instanceof Map<?, ?> beforeSubjects) {
+                gameSettingInfo.setBeforeSubjects(this.toBeforeSubjects(beforeSubjects));
+            }
+            return gameSettingInfo;
+        }
+
+        Object chatRoom = slaveTemplate.opsForHash().get(redisKey, DataType.CHATROOM.getType());
+        return chatRoom instanceof KurentoRoom kurentoRoom ? kurentoRoom.getGameSettingInfo() : null;
+    }
+
+    /**
+     * compareAndSet 을 위해 master 에서 chatroom 과 version 을 함께 조회
+     * replica 는 복제 지연으로 오래된 version 을 반환할 수 있기 때문에 master 에서 조회
+     *
+     * @return chatroom 과 version, 방이 없으면 null
+     */
+    @Override
+    public VersionedData<ChatRoom> getChatRoomForUpdate(String roomId) {
+        List<Object> values = this.getFieldsFromMaster(roomId,
+                DataType.CHATROOM.getType(), USER_COUNT_FIELD, STATE_FIELD, CHATROOM_VERSION_FIELD);
+        if (!(values.get(0) instanceof ChatRoom chatRoom)) {
+            return null;
+        }
+        this.applyRoomFields(chatRoom, values.get(1), values.get(2));
+        return new VersionedData<>(chatRoom, this.toVersion(values.get(3)));
+    }
+
+    /**
+     * 조회한 이후 다른 곳에서 변경되지 않은 경우에만 chatroom 을 저장
+     * userCount, state 는 별도로 변경되기 때문에 저장하지 않음
+     *
+     * @return 저장 성공 여부, version 이 달라졌으면 false
+     */
+    @Override
+    public boolean compareAndSetChatRoom(ChatRoom chatRoom, long expectedVersion) {
+        long result = this.compareAndSetFields(chatRoom.getRoomId(), CHATROOM_VERSION_FIELD, expectedVersion, Map.of(
+                DataType.CHATROOM.getType(), this.toRoomMetadata(chatRoom),
+                "roomName", chatRoom.getRoomName(),
+                MAX_USER_COUNT_FIELD, chatRoom.getMaxUserCnt()));
+        if (result >= 0) {
+            this.refreshCleanupCandidate(chatRoom.getRoomId());
+        }
+        return this.recordCompareAndSet("chatroom", result);
+    }
+
+    /**
+     * compareAndSet 을 위해 master 에서 게임 정보와 version 을 함께 조회
+     * beforeSubjects 는 별도로 저장되기 때문에 포함하지 않음
+     *
+     * @return 게임 정보와 version, 방이나 게임 정보가 없으면 null
+     */
+    @Override
+    public VersionedData<GameSettingInfo> getGameSettingInfoForUpdate(String roomId) {
+        List<Object> values = this.getFieldsFromMaster(roomId, GAME_SETTING_FIELD, GAME_SETTING_VERSION_FIELD);
+        if (values.get(0) instanceof GameSettingInfo gameSettingInfo) {
+            return new VersionedData<>(gameSettingInfo, this.toVersion(values.get(1)));
+        }
+
+        // 게임 정보가 chatroom 필드에만 있는 기존 방
+        List<Object> chatRoom = this.getFieldsFromMaster(roomId, DataType.CHATROOM.getType());
+        if (chatRoom.get(0) instanceof KurentoRoom kurentoRoom && kurentoRoom.getGameSettingInfo() != null) {
+            return new VersionedData<>(kurentoRoom.getGameSettingInfo(), this.toVersion(values.get(1)));
+        }
+        return null;
+    }
+
+    @Override
+    public boolean compareAndSetGameSettingInfo(String roomId, GameSettingInfo gameSettingInfo, long expectedVersion) {
+        long result = this.compareAndSetFields(roomId, GAME_SETTING_VERSION_FIELD, expectedVersion,
+                Map.of(GAME_SETTING_FIELD, this.toGameSetting(gameSettingInfo)));
+        return this.recordCompareAndSet("gameSetting", result);
+    }
+
+    /**
+     * 최신 chatroom 을 가져와 updater 로 변경한 뒤 compareAndSet 으로 저장
+     * 다른 곳에서 먼저 변경한 경우 최신 값으로 다시 시도
+     *
+     * @return 저장된 chatroom, 방이 없으면 null
+     * @throws ExceptionController.RoomUpdateConflictException 최대 시도 횟수 안에 저장하지 못한 경우
+     */
+    @Override
+    public <T extends ChatRoom> T updateChatRoomWithRetry(String roomId, Class<T> clazz, RoomUpdater<T> updater) throws BadRequestException {
+        for (int attempt = 0; attempt < casMaxAttempts; attempt++) {
+            VersionedData<ChatRoom> versioned = this.getChatRoomForUpdate(roomId);
+            if (versioned == null) {
+                return null;
+            }
+            T chatRoom = clazz.cast(versioned.data());
+            updater.update(chatRoom);
+            if (this.compareAndSetChatRoom(chatRoom, versioned.version())) {
+                return chatRoom;
+            }
+            this.backoff("chatroom", attempt);
+        }
+        return this.failCompareAndSet("chatroom", roomId);
+    }
+
+    /**
+     * 최신 게임 정보를 가져와 updater 로 변경한 뒤 compareAndSet 으로 저장
+     *
+     * @return 저장된 게임 정보, 방이나 게임 정보가 없으면 null
+     * @throws ExceptionController.RoomUpdateConflictException 최대 시도 횟수 안에 저장하지 못한 경우
+     */
+    @Override
+    public GameSettingInfo updateGameSettingInfoWithRetry(String roomId, RoomUpdater<GameSettingInfo> updater) throws BadRequestException {
+        for (int attempt = 0; attempt < casMaxAttempts; attempt++) {
+            VersionedData<GameSettingInfo> versioned = this.getGameSettingInfoForUpdate(roomId);
+            if (versioned == null) {
+                return null;
+            }
+            updater.update(versioned.data());
+            if (this.compareAndSetGameSettingInfo(roomId, versioned.data(), versioned.version())) {
+                return versioned.data();
+            }
+            this.backoff("gameSetting", attempt);
+        }
+        return this.failCompareAndSet("gameSetting", roomId);
+    }
+
+    private List<Object> getFieldsFromMaster(String roomId, String... fields) {
+        byte[][] rawFields = Arrays.stream(fields).map(STRING_SERIALIZER::serialize).toArray(byte[][]::new);
+        List<byte[]> rawValues = masterTemplate.execute((RedisCallback<List<byte[]>>) connection ->
+                connection.hashCommands().hMGet(STRING_SERIALIZER.serialize(makeRedisKey(roomId)), rawFields));
+
+        RedisSerializer<?> hashValueSerializer = masterTemplate.getHashValueSerializer();
+        List<Object> values = new ArrayList<>(fields.length);
+        for (int i = 0; i < fields.length; i++) {
+            byte[] rawValue = rawValues != null && rawValues.size() > i ? rawValues.get(i) : null;
+            values.add(rawValue == null ? null : hashValueSerializer.deserialize(rawValue));
+        }
+        return values;
+    }
+
+    /**
+     * COMPARE_AND_SET_FIELDS 실행
+     * 값은 hash value serializer 로, 나머지는 문자열로 직렬화해야 하기 때문에 직렬화된 인자로 직접 실행
+     */
+    private long compareAndSetFields(String roomId, String versionField, long expectedVersion, Map<String, Object> fields) {
+        List<byte[]> keysAndArgs = new ArrayList<>();
+        keysAndArgs.add(STRING_SERIALIZER.serialize(makeRedisKey(roomId)));
+        keysAndArgs.add(STRING_SERIALIZER.serialize(versionField));
+        keysAndArgs.add(STRING_SERIALIZER.serialize(String.valueOf(expectedVersion)));
+        this.addFieldArgs(keysAndArgs, fields);
+
+        Long result = this.evalWithFields(RedisScripts.COMPARE_AND_SET_FIELDS, keysAndArgs);
+        roomNearCache.invalidate(makeRedisKey(roomId));
+        return result == null ? ROOM_NOT_FOUND : result;
+    }
+
+    /**
+     * SET_FIELDS_AND_INCREMENT_VERSION 실행 : 필드 저장과 version 증가를 원자적으로 수행
+     */
+    private void setFieldsAndIncrementVersion(String roomId, String versionField, Map<String, Object> fields) {
+        List<byte[]> keysAndArgs = new ArrayList<>();
+        keysAndArgs.add(STRING_SERIALIZER.serialize(makeRedisKey(roomId)));
+        keysAndArgs.add(STRING_SERIALIZER.serialize(versionField));
+        this.addFieldArgs(keysAndArgs, fields);
+        this.evalWithFields(RedisScripts.SET_FIELDS_AND_INCREMENT_VERSION, keysAndArgs);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addFieldArgs(List<byte[]> keysAndArgs, Map<String, Object> fields) {
+        RedisSerializer<Object> hashValueSerializer = (RedisSerializer<Object>) masterTemplate.getHashValueSerializer();
+        fields.forEach((field, value) -> {
+            keysAndArgs.add(STRING_SERIALIZER.serialize(field));
+            keysAndArgs.add(hashValueSerializer.serialize(value));
+        });
+    }
+
+    private Long evalWithFields(RedisScript<Long> redisScript, List<byte[]> keysAndArgs) {
+        byte[] script = STRING_SERIALIZER.serialize(redisScript.getScriptAsString());
+        return masterTemplate.execute((RedisCallback<Long>) connection -> connection.scriptingCommands()
+                .eval(script, ReturnType.INTEGER, 1, keysAndArgs.toArray(new byte[0][])));
+    }
+
+    private long toVersion(Object version) {
+        return version == null ? 0L : Long.parseLong(version.toString());
+    }
+
+    /**
+     * compareAndSet 결과를 metric 으로 기록
+     * chatforyou_room_cas{target, result=success|conflict|not_found}
+     */
+    private boolean recordCompareAndSet(String target, long result) {
+        String resultTag = result >= 0 ? "success" : result == CAS_CONFLICT ? "conflict" : "not_found";
+        meterRegistry.counter("chatforyou_room_cas", "target", target, "result", resultTag).increment();
+        return result >= 0;
+    }
+
+    /**
+     * 충돌 시 동시에 다시 시도해서 다시 충돌하지 않도록 시도 횟수에 비례한 임의의 시간만큼 대기
+     */
+    private void backoff(String target, int attempt) throws BadRequestException {
+        meterRegistry.counter("chatforyou_room_cas_retry", "target", target).increment();
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(1, 5L * (attempt + 1) + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExceptionController.RoomUpdateConflictException("Interrupted while retrying room update");
+        }
+    }
+
+    private <T> T failCompareAndSet(String target, String roomId) throws BadRequestException {
+        meterRegistry.counter("chatforyou_room_cas_exhausted", "target", target).increment();
+        throw new ExceptionController.RoomUpdateConflictException("Fail to update " + target + " of room " + roomId);
+    }
+
+    @Override
+    public void updateGameBeforeSubjects(String roomId, Map<String, List<String>> beforeSubjects) {
+        masterTemplate.opsForHash().put(makeRedisKey(roomId), GAME_BEFORE_SUBJECTS_FIELD, beforeSubjects);
+    }
+
+    /**
+     * chatroom 필드에는 자주 변경되지 않는 방 정보만 저장하기 위해 게임 정보를 제외한 복사본을 만든다
+     */
+    private ChatRoom toRoomMetadata(ChatRoom chatRoom) {
+        if (!(chatRoom instanceof KurentoRoom kurentoRoom) || kurentoRoom.getGameSettingInfo() == null) {
+            return chatRoom;
+        }
+        KurentoRoom metadata = new KurentoRoom();
+        BeanUtils.copyProperties(kurentoRoom, metadata, "gameSettingInfo");
+        return metadata;
+    }
+
+    private GameSettingInfo toGameSetting(GameSettingInfo gameSettingInfo) {
+        GameSettingInfo gameSetting = new GameSettingInfo();
+        BeanUtils.copyProperties(gameSettingInfo, gameSetting, "beforeSubjects");
+        return gameSetting;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, List<String>> toBeforeSubjects(Map<?, ?> beforeSubjects) {
+        return new HashMap<>((Map<String, List<String>>) beforeSubjects);
     }
 
     @Override
     public void insertChatRoom(ChatRoom chatRoom) {
-        String redisKey = "roomId:" + chatRoom.getRoomId();
+        String redisKey = makeRedisKey(chatRoom.getRoomId());
         // 채팅방 객체 저장
-        masterTemplate.opsForHash().put(redisKey, DataType.CHATROOM.getType(), chatRoom);
-        masterTemplate.opsForHash().put(redisKey, "roomId", chatRoom.getRoomId());
-        masterTemplate.opsForHash().put(redisKey, "creator", chatRoom.getCreator());
-        masterTemplate.opsForHash().put(redisKey, "roomName", chatRoom.getRoomName());
-        masterTemplate.opsForHash().put(redisKey, "createDate", chatRoom.getCreateDate());
-        masterTemplate.opsForHash().put(redisKey, "state", chatRoom.getRoomState());
+        Map<String, Object> fields = new HashMap<>();
+        fields.put(DataType.CHATROOM.getType(), this.toRoomMetadata(chatRoom));
+        fields.put("roomId", chatRoom.getRoomId());
+        fields.put("creator", chatRoom.getCreator());
+        fields.put("roomName", chatRoom.getRoomName());
+        fields.put("createDate", chatRoom.getCreateDate());
+        fields.put(STATE_FIELD, chatRoom.getRoomState());
+        fields.put(USER_COUNT_FIELD, chatRoom.getUserCount());
+        fields.put(MAX_USER_COUNT_FIELD, chatRoom.getMaxUserCnt());
+        if (chatRoom instanceof KurentoRoom kurentoRoom && kurentoRoom.getGameSettingInfo() != null) {
+            fields.put(GAME_SETTING_FIELD, this.toGameSetting(kurentoRoom.getGameSettingInfo()));
+            if (kurentoRoom.getGameSettingInfo().getBeforeSubjects() != null) {
+                fields.put(GAME_BEFORE_SUBJECTS_FIELD, kurentoRoom.getGameSettingInfo().getBeforeSubjects());
+            }
+        }
+        masterTemplate.opsForHash().putAll(redisKey, fields);
+        this.registerRoomKeys(chatRoom.getRoomId(), redisKey);
+        this.refreshCleanupCandidate(chatRoom.getRoomId());
+        roomNearCache.invalidate(redisKey);
     }
 
     @Override
@@ -326,7 +791,9 @@ public class RedisServiceImpl implements RedisService {
         }
         switch (dataType) {
             case CHATROOM:
-                return clazz.cast(slaveTemplate.opsForHash().get(redisKey, DataType.CHATROOM.getType()));
+                List<Object> values = this.getChatRoomFields(redisKey);
+                this.applyRoomFields(values.get(0), values.get(1), values.get(2));
+                return clazz.cast(values.get(0));
                 // TODO 아래는 로그인 기능 추가 후 사용 여부 확인
 //            case USER_LIST:
 //                String userListKey = redisKey + ":userList";
@@ -342,21 +809,129 @@ public class RedisServiceImpl implements RedisService {
         }
     }
 
+    /**
+     * chatroom, userCount, state 필드 조회
+     * near cache 가 활성화 되어있으면 cache 를 먼저 확인
+     */
+    private List<Object> getChatRoomFields(String redisKey) {
+        List<byte[]> rawFields = roomNearCache.isEnabled()
+                ? roomNearCache.get(redisKey, fromMaster -> this.getRawChatRoomFields(redisKey, fromMaster))
+                : this.getRawChatRoomFields(redisKey, false);
+
+        RedisSerializer<?> hashValueSerializer = slaveTemplate.getHashValueSerializer();
+        List<Object> values = new ArrayList<>(ROOM_FIELDS.size());
+        for (int i = 0; i < ROOM_FIELDS.size(); i++) {
+            byte[] rawField = rawFields != null && rawFields.size() > i ? rawFields.get(i) : null;
+            values.add(rawField == null ? null : hashValueSerializer.deserialize(rawField));
+        }
+        return values;
+    }
+
+    private List<byte[]> getRawChatRoomFields(String redisKey, boolean fromMaster) {
+        byte[][] fields = ROOM_FIELDS.stream().map(STRING_SERIALIZER::serialize).toArray(byte[][]::new);
+        RedisTemplate<String, Object> template = fromMaster ? masterTemplate : slaveTemplate;
+        return template.execute((RedisCallback<List<byte[]>>) connection -> connection.hashCommands().hMGet(
+                STRING_SERIALIZER.serialize(redisKey), fields));
+    }
+
     @NotNull
     private String makeRedisKey(String roomId) {
-        return roomId.contains("roomId:") ? roomId : "roomId:" + roomId;
+        return "roomId:" + this.makeHashTag(roomId);
     }
 
     @Override
     public Map<Object, Object> getAllChatRoomData(String roomId) {
         String redisKey = this.makeRedisKey(roomId);
-        return slaveTemplate.opsForHash().entries(redisKey);
+        Map<Object, Object> entries = slaveTemplate.opsForHash().entries(redisKey);
+        this.applyRoomFields(entries.get(DataType.CHATROOM.getType()), entries.get(USER_COUNT_FIELD), entries.get(STATE_FIELD));
+        return entries;
+    }
+
+    /**
+     * 여러 방의 정보를 pipeline 으로 한번에 가져온다
+     * roomId 순서를 유지하며 존재하지 않는 방은 제외
+     *
+     * @param roomIds 가져올 방 roomId 목록
+     * @return chatroom 목록
+     */
+    @Override
+    public List<ChatRoom> getChatRoomList(Collection<String> roomIds) {
+        List<ChatRoom> chatRoomList = new ArrayList<>();
+        if (CollectionUtils.isEmpty(roomIds)) {
+            return chatRoomList;
+        }
+
+        List<String> redisKeys = roomIds.stream().map(this::makeRedisKey).toList();
+        List<Object> results = slaveTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(@NotNull RedisOperations<K, V> operations) {
+                for (String redisKey : redisKeys) {
+                    operations.opsForHash().multiGet((K) redisKey, List.<Object>copyOf(ROOM_FIELDS));
+                }
+                return null;
+            }
+        });
+
+        for (Object result : results) {
+            if (!(result instanceof List<?> values) || values.isEmpty() || !(values.get(0) instanceof ChatRoom chatRoom)) {
+                continue;
+            }
+            this.applyRoomFields(chatRoom, values.size() > 1 ? values.get(1) : null, values.size() > 2 ? values.get(2) : null);
+            chatRoomList.add(chatRoom);
+        }
+        return chatRoomList;
+    }
+
+    /**
+     * 검색 조건에 맞는 방 목록을 가져온다
+     * withRoomData 가 true 면 검색 결과에 포함된 chatroom 필드를 바로 사용하고
+     * 아니면 검색된 roomId 로 getChatRoomList 를 통해 한번에 가져온다
+     */
+    @Override
+    public List<ChatRoom> searchChatRoomList(RoomSearchCriteria searchCriteria) {
+        List<Document> documents = this.searchRoomListByOptions(searchCriteria);
+
+        // binary 로 저장된 chatroom 은 redisSearch 결과 문자열로 복원할 수 없기 때문에 pipeline 으로 조회
+        boolean binaryChatRoom = slaveTemplate.getHashValueSerializer() instanceof ChatRoomRedisSerializer serializer
+                && serializer.isBinary();
+        if (!searchCriteria.isWithRoomData() || binaryChatRoom) {
+            List<String> roomIds = documents.stream()
+                    .map(document -> document.getFields().get("roomId"))
+                    .filter(Objects::nonNull)
+                    .map(roomId -> roomId.toString().replace("\"", ""))
+                    .toList();
+            return this.getChatRoomList(roomIds);
+        }
+
+        List<ChatRoom> chatRoomList = new ArrayList<>();
+        RedisSerializer<?> hashValueSerializer = slaveTemplate.getHashValueSerializer();
+        for (Document document : documents) {
+            Object chatRoom = deserializeField(hashValueSerializer, document.getFields().get(DataType.CHATROOM.getType()));
+            if (chatRoom instanceof ChatRoom) {
+                this.applyRoomFields(chatRoom, deserializeField(hashValueSerializer, document.getFields().get(USER_COUNT_FIELD)),
+                        deserializeField(hashValueSerializer, document.getFields().get(STATE_FIELD)));
+                chatRoomList.add((ChatRoom) chatRoom);
+            }
+        }
+        return chatRoomList;
+    }
+
+    /**
+     * redisSearch 결과 필드는 저장된 json 문자열 그대로 넘어오기 때문에 hash value serializer 로 역직렬화
+     */
+    private Object deserializeField(RedisSerializer<?> serializer, Object field) {
+        if (field == null) {
+            return null;
+        }
+        byte[] bytes = field instanceof byte[] ? (byte[]) field : field.toString().getBytes(StandardCharsets.UTF_8);
+        return serializer.deserialize(bytes);
     }
 
     @Override
     public List<Document> searchRoomListByOptions(RoomSearchCriteria searchCriteria) {
         // searchType 에 맞춰 indexName 을 가져옴
-        RediSearch rediSearch = rediSearchClient.getRediSearch(searchCriteria.getRedisIndex().getType());
+        List<RediSearch> rediSearchList = rediSearchShards.getRediSearch(searchCriteria.getRedisIndex().getType());
 
         // Redis 검색 결과에서 openvidu 필드의 JSON 문자열 가져오기
 //        int pageNumber = 0;  // 원하는 페이지 번호
@@ -392,9 +967,13 @@ public class RedisServiceImpl implements RedisService {
                     queryBuilder.append(")");
                 }
 
+                // shard 가 여러개면 각 shard 에서 앞 페이지까지 모두 가져와 합친 후 페이지를 자름
+                int offset = searchCriteria.getPageNum() * searchCriteria.getPageSize();
                 searchOptions = new SearchOptions()
-                        .page(searchCriteria.getPageNum() * searchCriteria.getPageSize(), searchCriteria.getPageSize())  // 페이지 설정
-                        .returnFields("roomId")  // roomId 필드만 반환
+                        .page(rediSearchShards.isSharded() ? 0 : offset, rediSearchShards.isSharded() ? offset + searchCriteria.getPageSize() : searchCriteria.getPageSize())  // 페이지 설정
+                        .returnFields(searchCriteria.isWithRoomData()
+                                ? new String[]{"roomId", "createDate", DataType.CHATROOM.getType(), USER_COUNT_FIELD, STATE_FIELD}
+                                : new String[]{"roomId", "createDate"})  // 기본은 roomId 필드만 반환, createDate 는 shard 결과 병합용
                         .sort(new SortBy("createDate", SortOrder.DESC));  // createDate 기준 내림차순 정렬
                 break;
 
@@ -413,38 +992,159 @@ public class RedisServiceImpl implements RedisService {
 
         // 조건이 없으면 모든 결과
         String finalQuery = !queryBuilder.isEmpty() ? queryBuilder.toString() : "*";
-        List<Document> documents = rediSearch.search(
-                finalQuery,
-                searchOptions
-        ).getDocuments();
+        SearchOptions finalSearchOptions = searchOptions;
+        if (!rediSearchShards.isSharded()) {
+            return rediSearchList.get(0).search(finalQuery, finalSearchOptions).getDocuments();
+        }
+
+        // cluster 모드 : shard 마다 검색 후 createDate 내림차순으로 병합
+        // 검색은 blocking I/O 이기 때문에 common ForkJoinPool 을 쓰는 parallelStream 은 사용하지 않음
+        return rediSearchList.stream()
+                .flatMap(rediSearch -> rediSearch.search(finalQuery, finalSearchOptions).getDocuments().stream())
+                .sorted(Comparator.comparingLong(this::getCreateDate).reversed())
+                .skip((long) searchCriteria.getPageNum() * searchCriteria.getPageSize())
+                .limit(searchCriteria.getPageSize())
+                .toList();
+    }
 
-        return documents;
+    private long getCreateDate(Document document) {
+        Object createDate = document.getFields().get("createDate");
+        try {
+            return createDate == null ? 0L : Long.parseLong(createDate.toString().replace("\"", ""));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
     }
 
-    // TODO roomId:* 는 성능상 안좋을 수 있음으로 추후 roomName 만을 갖는 set 을 만들어 확인하는 것으로 수정필요!
+    /**
+     * roomName index 를 통해 roomName 중복 여부 확인
+     *
+     * @param roomName 확인할 방 이름
+     * @return 이미 사용중인 이름이면 true
+     */
     @Override
     public boolean checkRoomName(String roomName) {
         if (roomName == null || roomName.trim().isEmpty()) {
             return false; // 유효하지 않은 입력
         }
 
-        Set<String> keys = slaveTemplate.keys("roomId:*");
-        if (keys == null || keys.isEmpty()) {
-            return false;
+        return slaveTemplate.opsForHash().hasKey(ROOM_NAME_INDEX_KEY, roomName);
+    }
+
+    /**
+     * roomName 을 원자적으로 선점한다.
+     * 동시에 같은 이름으로 방을 만들어도 하나의 방만 성공한다
+     *
+     * @return 선점 성공 시 true, 다른 방이 사용중이면 false
+     */
+    @Override
+    public boolean reserveRoomName(String roomName, String roomId) {
+        Long result = masterTemplate.execute(RedisScripts.RESERVE_ROOM_NAME, STRING_SERIALIZER, LONG_SERIALIZER,
+                List.of(ROOM_NAME_INDEX_KEY), roomName, roomId);
+        return Long.valueOf(1L).equals(result);
+    }
+
+    /**
+     * 방 이름 변경 시 새로운 이름 선점 및 기존 이름 해제를 원자적으로 수행
+     *
+     * @return 변경 성공 시 true, 새로운 이름을 다른 방이 사용중이면 false
+     */
+    @Override
+    public boolean renameRoomName(String roomId, String oldRoomName, String newRoomName) {
+        Long result = masterTemplate.execute(RedisScripts.RENAME_ROOM_NAME, STRING_SERIALIZER, LONG_SERIALIZER,
+                List.of(ROOM_NAME_INDEX_KEY), Objects.toString(oldRoomName, ""), newRoomName, roomId);
+        return Long.valueOf(1L).equals(result);
+    }
+
+    /**
+     * 해당 방이 선점한 roomName 해제
+     */
+    @Override
+    public void releaseRoomName(String roomName, String roomId) {
+        if (roomName == null) {
+            return;
+        }
+        masterTemplate.execute(RedisScripts.RELEASE_ROOM_NAME, STRING_SERIALIZER, LONG_SERIALIZER,
+                List.of(ROOM_NAME_INDEX_KEY), roomName, roomId);
+    }
+
+    /**
+     * 기존에 저장된 방 정보로 roomName index 를 재구성한다.
+     * 임시 key 에 index 를 만든 후 rename 으로 교체하기 때문에 재구성 중에도 기존 index 는 계속 사용 가능
+     */
+    @Override
+    public void rebuildRoomNameIndex() {
+        Map<String, String> roomNames = new HashMap<>();
+        this.scanKeys(slaveTemplate, "roomId:*", key -> {
+            Object roomName = slaveTemplate.opsForHash().get(key, "roomName");
+            if (roomName != null) {
+                roomNames.putIfAbsent(roomName.toString(), cleanKey(key));
+            }
+        });
+
+        if (roomNames.isEmpty()) {
+            masterTemplate.delete(ROOM_NAME_INDEX_KEY);
+            return;
         }
 
-        return keys.stream()
-                .map(key -> {
-                    try {
-                        return slaveTemplate.opsForHash().get(key, "roomName");
-                    } catch (Exception e) {
-                        // 로깅 처리
-                        return null;
+        // RENAME 은 같은 slot 의 key 끼리만 가능하기 때문에 index key 를 hash tag 로 사용
+        String rebuildKey = "{" + ROOM_NAME_INDEX_KEY + "}:rebuild";
+        masterTemplate.execute((RedisCallback<Void>) connection -> {
+            Map<byte[], byte[]> entries = new HashMap<>();
+            roomNames.forEach((roomName, roomId) ->
+                    entries.put(STRING_SERIALIZER.serialize(roomName), STRING_SERIALIZER.serialize(roomId)));
+            connection.keyCommands().del(STRING_SERIALIZER.serialize(rebuildKey));
+            connection.hashCommands().hMSet(STRING_SERIALIZER.serialize(rebuildKey), entries);
+            connection.keyCommands().rename(STRING_SERIALIZER.serialize(rebuildKey), STRING_SERIALIZER.serialize(ROOM_NAME_INDEX_KEY));
+            return null;
+        });
+        log.info("##### roomName index rebuilt : {} rooms #####", roomNames.size());
+    }
+
+    /**
+     * pattern 에 맞는 key 를 SCAN 으로 가져온다
+     * cluster 모드에서는 전체 node 를 한번에 SCAN 할 수 없기 때문에 master node 마다 SCAN
+     */
+    private void scanKeys(RedisTemplate<String, Object> template, String pattern, Consumer<String> consumer) {
+        ScanOptions scanOptions = ScanOptions.scanOptions().match(pattern).count(100).build();
+        if (!clusterEnabled) {
+            try (Cursor<String> cursor = template.scan(scanOptions)) {
+                while (cursor.hasNext()) {
+                    consumer.accept(cursor.next());
+                }
+            }
+            return;
+        }
+
+        try (RedisClusterConnection connection = template.getConnectionFactory().getClusterConnection()) {
+            for (RedisClusterNode node : connection.clusterGetNodes()) {
+                if (!node.isMaster()) {
+                    continue;
+                }
+                try (Cursor<byte[]> cursor = connection.scan(node, scanOptions)) {
+                    while (cursor.hasNext()) {
+                        consumer.accept(STRING_SERIALIZER.deserialize(cursor.next()));
                     }
-                })
-                .filter(Objects::nonNull)
-                .map(Object::toString)
-                .anyMatch(roomName::equals);
+                }
+            }
+        }
+    }
+
+    /**
+     * 서버 시작 시 roomName index, cleanup index 가 없으면 기존 방 데이터로 재구성
+     */
+    @PostConstruct
+    private void initRoomIndex() {
+        try {
+            if (!Boolean.TRUE.equals(slaveTemplate.hasKey(ROOM_NAME_INDEX_KEY))) {
+                this.rebuildRoomNameIndex();
+            }
+            if (!Boolean.TRUE.equals(slaveTemplate.hasKey(CLEANUP_KEY))) {
+                this.rebuildCleanupIndex();
+            }
+        } catch (Exception e) {
+            log.error("#### Fail to rebuild room index ::: {}", e.getMessage());
+        }
     }
 
 }
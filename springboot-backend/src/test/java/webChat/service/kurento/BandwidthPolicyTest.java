@@ -0,0 +1,80 @@
+package webChat.service.kurento;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class BandwidthPolicyTest {
+
+    private BandwidthPolicy policy;
+
+    @BeforeEach
+    void setUp() {
+        policy = new BandwidthPolicy(mock(KurentoParticipantService.class));
+        ReflectionTestUtils.setField(policy, "enabled", true);
+        ReflectionTestUtils.setField(policy, "clientDownlinkKbps", 2500);
+        ReflectionTestUtils.setField(policy, "roomEgressKbps", 20000);
+        ReflectionTestUtils.setField(policy, "maxStreamKbps", 1500);
+        ReflectionTestUtils.setField(policy, "minStreamKbps", 100);
+        ReflectionTestUtils.setField(policy, "preferredCodec", "H264");
+    }
+
+    @Test
+    @DisplayName("mesh 방은 인원이 늘어날수록 영상 하나의 대역폭이 줄고 min ~ max 사이로 제한")
+    void meshLimits() {
+        assertEquals(1500, policy.limitsFor(2, false).downlinkMaxKbps());
+        // 2500 / 4
+        assertEquals(625, policy.limitsFor(5, false).downlinkMaxKbps());
+        // 방 전체 송신량 제한 : 20000 / (10 * 9)
+        assertEquals(222, policy.limitsFor(10, false).downlinkMaxKbps());
+        assertEquals(100, policy.limitsFor(40, false).downlinkMaxKbps());
+    }
+
+    @Test
+    @DisplayName("composite 방은 합쳐진 영상 하나를 받고 uplink 만 인원 수로 나눔")
+    void compositeLimits() {
+        BandwidthPolicy.Limits limits = policy.limitsFor(10, true);
+        assertEquals(1500, limits.downlinkMaxKbps());
+        assertEquals(250, limits.uplinkMaxKbps());
+    }
+
+    @Test
+    @DisplayName("10% 미만의 변화는 다시 적용하지 않음")
+    void significantChange() {
+        BandwidthPolicy.Limits limits = new BandwidthPolicy.Limits(1000, 1000, 100);
+        assertTrue(limits.differsSignificantly(null));
+        assertFalse(new BandwidthPolicy.Limits(950, 950, 100).differsSignificantly(limits));
+        assertTrue(new BandwidthPolicy.Limits(800, 800, 100).differsSignificantly(limits));
+    }
+
+    @Test
+    @DisplayName("preferred codec 과 rtx payload 를 video m-line 앞으로 이동")
+    void preferCodec() {
+        String offer = String.join("\r\n",
+                "v=0",
+                "m=audio 9 UDP/TLS/RTP/SAVPF 111",
+                "a=rtpmap:111 opus/48000/2",
+                "m=video 9 UDP/TLS/RTP/SAVPF 96 97 102 103",
+                "a=rtpmap:96 VP8/90000",
+                "a=rtpmap:97 rtx/90000",
+                "a=fmtp:97 apt=96",
+                "a=rtpmap:102 H264/90000",
+                "a=rtpmap:103 rtx/90000",
+                "a=fmtp:103 apt=102",
+                "");
+
+        String munged = policy.preferCodec(offer);
+        assertTrue(munged.contains("\r\nm=video 9 UDP/TLS/RTP/SAVPF 102 103 96 97\r\n"));
+        assertTrue(munged.contains("m=audio 9 UDP/TLS/RTP/SAVPF 111\r\n"));
+
+        ReflectionTestUtils.setField(policy, "preferredCodec", "AV1");
+        assertEquals(offer, policy.preferCodec(offer));
+    }
+}
@@ -0,0 +1,100 @@
+package webChat.service.kurento;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.RTCInboundRTPStreamStats;
+import org.kurento.client.Stats;
+import org.kurento.client.WebRtcEndpoint;
+import org.springframework.test.util.ReflectionTestUtils;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class EndpointStatsCollectorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private EndpointStatsCollector collector;
+    private WebRtcEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        collector = new EndpointStatsCollector(mock(MediaPipelineManager.class),
+                mock(KurentoParticipantService.class), meterRegistry);
+        ReflectionTestUtils.invokeMethod(collector, "init");
+
+        endpoint = mock(WebRtcEndpoint.class);
+        when(endpoint.getId()).thenReturn("endpoint-1");
+    }
+
+    @Test
+    @DisplayName("방 인원 수를 고정된 구간으로 변환")
+    void roomSizeBucket() {
+        assertEquals("1-2", EndpointStatsCollector.roomSizeBucket(1));
+        assertEquals("1-2", EndpointStatsCollector.roomSizeBucket(2));
+        assertEquals("3-4", EndpointStatsCollector.roomSizeBucket(3));
+        assertEquals("5-8", EndpointStatsCollector.roomSizeBucket(8));
+        assertEquals("9-16", EndpointStatsCollector.roomSizeBucket(16));
+        assertEquals("17+", EndpointStatsCollector.roomSizeBucket(17));
+    }
+
+    @Test
+    @DisplayName("bitrate / 손실률은 이전 수집과의 차이로 계산하고 meter 는 init 에서 한번만 등록")
+    void recordDelta() {
+        // metric 마다 room_size 5 구간 * direction 2 개
+        assertEquals(10, meterRegistry.find("chatforyou_kurento_endpoint_bitrate_kbps").summaries().size());
+
+        EndpointStatsCollector.Target target =
+                new EndpointStatsCollector.Target("room-1", 3, endpoint, EndpointStatsCollector.Direction.UPLINK);
+
+        // 첫 수집은 누적값만 저장
+        collector.record(target, this.inbound(1_000, 90, 10), 0);
+        assertEquals(0, this.summary("chatforyou_kurento_endpoint_bitrate_kbps").count());
+        assertEquals(0, this.summary("chatforyou_kurento_endpoint_packet_loss_ratio").count());
+
+        // 1초 동안 125,000 byte, 패킷 100 개 중 10 개 손실
+        collector.record(target, this.inbound(126_000, 180, 20), 1_000_000_000L);
+        assertEquals(1000, this.summary("chatforyou_kurento_endpoint_bitrate_kbps").totalAmount(), 1e-6);
+        assertEquals(0.1, this.summary("chatforyou_kurento_endpoint_packet_loss_ratio").totalAmount(), 1e-6);
+        assertEquals(2, this.summary("chatforyou_kurento_endpoint_jitter_ms").count());
+        assertEquals(10, meterRegistry.find("chatforyou_kurento_endpoint_bitrate_kbps").summaries().size());
+    }
+
+    @Test
+    @DisplayName("방 품질은 EWMA 로 갱신하고 값이 없는 항목은 이전 값을 유지")
+    void roomStatsEwma() {
+        EndpointStatsCollector.RoomStats roomStats = new EndpointStatsCollector.RoomStats("room-1");
+        roomStats.update(3, 0.1, 100, -1, -1, -1);
+        roomStats.update(4, 0.2, -1, -1, -1, -1);
+
+        EndpointStatsCollector.RoomQuality quality = roomStats.snapshot();
+        assertEquals(4, quality.participants());
+        assertEquals(0.13, quality.packetLossRatio(), 1e-9);
+        assertEquals(100, quality.rttMs(), 1e-9);
+        assertEquals(-1, quality.jitterMs());
+        // 손실률 13% = 13, rtt 100ms = 2
+        assertEquals(15, quality.score(), 1e-9);
+    }
+
+    private Map<String, Stats> inbound(long bytes, long packetsReceived, long packetsLost) {
+        RTCInboundRTPStreamStats inbound = mock(RTCInboundRTPStreamStats.class);
+        when(inbound.getBytesReceived()).thenReturn(bytes);
+        when(inbound.getPacketsReceived()).thenReturn(packetsReceived);
+        when(inbound.getPacketsLost()).thenReturn(packetsLost);
+        return Map.of("inbound", inbound);
+    }
+
+    private DistributionSummary summary(String name) {
+        return meterRegistry.get(name)
+                .tag("room_size", "3-4")
+                .tag("direction", "uplink")
+                .summary();
+    }
+}
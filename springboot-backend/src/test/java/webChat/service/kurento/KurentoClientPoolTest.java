@@ -0,0 +1,160 @@
+package webChat.service.kurento;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.KurentoClient;
+import org.kurento.client.KurentoConnectionListener;
+import org.springframework.test.util.ReflectionTestUtils;
+import webChat.controller.ExceptionController;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class KurentoClientPoolTest {
+
+    private final Map<String, Integer> participantCounts = new HashMap<>();
+    private final Map<String, KurentoConnectionListener> listeners = new HashMap<>();
+    // 재연결 대기 후 실행할 failover : 테스트에서 직접 실행
+    private final List<Runnable> scheduledFailovers = new ArrayList<>();
+    private KurentoClientPool pool;
+
+    @BeforeEach
+    void setUp() {
+        KurentoParticipantService participantService = mock(KurentoParticipantService.class);
+        when(participantService.getParticipantCount(anyString()))
+                .thenAnswer(invocation -> participantCounts.getOrDefault(invocation.getArgument(0, String.class), 0));
+
+        pool = new KurentoClientPool(participantService, KurentoClientPool.PlacementStrategy.ENDPOINTS);
+        ScheduledExecutorService graceScheduler = mock(ScheduledExecutorService.class);
+        when(graceScheduler.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenAnswer(invocation -> {
+            scheduledFailovers.add(invocation.getArgument(0));
+            return mock(ScheduledFuture.class);
+        });
+        ReflectionTestUtils.setField(pool, "graceScheduler", graceScheduler);
+        for (String url : List.of("ws://kms-a:8888/kurento", "ws://kms-b:8888/kurento")) {
+            // 실제 KMS 에 연결하지 않는 stub KurentoClient
+            pool.connect(url, listener -> {
+                listeners.put(url, listener);
+                return mock(KurentoClient.class);
+            });
+        }
+    }
+
+    @Test
+    @DisplayName("새로운 방은 endpoint 수가 가장 적은 서버에 배치")
+    void placeOnLeastLoadedServer() {
+        KurentoMediaServer first = pool.place("room-1");
+        participantCounts.put("room-1", 4);   // 16 endpoints
+
+        KurentoMediaServer second = pool.place("room-2");
+        assertNotEquals(first.getId(), second.getId());
+
+        participantCounts.put("room-2", 2);   // 4 endpoints
+        assertEquals(second.getId(), pool.place("room-3").getId());
+
+        // 이미 배치된 방은 같은 서버 유지
+        assertEquals(first.getId(), pool.place("room-1").getId());
+    }
+
+    @Test
+    @DisplayName("drain 중인 서버에는 새로운 방을 배치하지 않고 기존 방은 유지")
+    void drain() {
+        KurentoMediaServer first = pool.place("room-1");
+        pool.drain(first.getId(), true);
+
+        for (int i = 2; i < 6; i++) {
+            assertNotEquals(first.getId(), pool.place("room-" + i).getId());
+        }
+        assertEquals(first.getId(), pool.place("room-1").getId());
+        assertEquals(KurentoMediaServer.State.DRAINING, first.getState());
+
+        pool.drain(first.getId(), false);
+        assertEquals(KurentoMediaServer.State.ACTIVE, first.getState());
+        assertThrows(ExceptionController.ResourceNotFoundException.class, () -> pool.drain("kms-99", true));
+    }
+
+    @Test
+    @DisplayName("재연결 대기 시간 안에 재연결되지 않으면 배치된 방을 listener 에게 알리고 다른 서버에 다시 배치")
+    void failover() {
+        KurentoMediaServer first = pool.place("room-1");
+        List<String> lostRooms = new ArrayList<>();
+        pool.addServerDownListener((server, rooms) -> lostRooms.addAll(rooms));
+
+        listeners.get(first.getUrl()).disconnected();
+
+        // 재연결을 기다리는 동안 기존 방은 유지하고 새로운 방은 배치하지 않음
+        assertEquals(KurentoMediaServer.State.DISCONNECTED, first.getState());
+        assertEquals(first.getId(), pool.getPlacement("room-1").getId());
+        assertNotEquals(first.getId(), pool.place("room-2").getId());
+        assertTrue(lostRooms.isEmpty());
+
+        scheduledFailovers.forEach(Runnable::run);
+
+        assertEquals(KurentoMediaServer.State.DOWN, first.getState());
+        assertEquals(List.of("room-1"), lostRooms);
+        assertNull(pool.getPlacement("room-1"));
+        assertNotEquals(first.getId(), pool.place("room-1").getId());
+
+        // 재연결되면 다시 배치 대상
+        listeners.get(first.getUrl()).reconnected(false);
+        assertEquals(KurentoMediaServer.State.ACTIVE, first.getState());
+    }
+
+    @Test
+    @DisplayName("같은 서버에 재연결되면 failover 하지 않고 배치 유지")
+    void reconnectWithinGrace() {
+        KurentoMediaServer first = pool.place("room-1");
+        List<String> lostRooms = new ArrayList<>();
+        pool.addServerDownListener((server, rooms) -> lostRooms.addAll(rooms));
+
+        listeners.get(first.getUrl()).disconnected();
+        listeners.get(first.getUrl()).reconnected(true);
+
+        assertEquals(KurentoMediaServer.State.ACTIVE, first.getState());
+        assertEquals(first.getId(), pool.getPlacement("room-1").getId());
+        assertTrue(lostRooms.isEmpty());
+    }
+
+    @Test
+    @DisplayName("다른 서버(KMS 재시작)에 재연결되면 pipeline 이 사라졌기 때문에 바로 failover")
+    void reconnectToRestartedServer() {
+        KurentoMediaServer first = pool.place("room-1");
+        List<String> lostRooms = new ArrayList<>();
+        pool.addServerDownListener((server, rooms) -> lostRooms.addAll(rooms));
+
+        listeners.get(first.getUrl()).disconnected();
+        listeners.get(first.getUrl()).reconnected(false);
+
+        assertEquals(List.of("room-1"), lostRooms);
+        assertNull(pool.getPlacement("room-1"));
+        assertEquals(KurentoMediaServer.State.ACTIVE, first.getState());
+    }
+
+    @Test
+    @DisplayName("모든 서버의 연결이 끊기면 배치 실패")
+    void noAvailableServer() {
+        Collection<KurentoConnectionListener> all = listeners.values();
+        all.forEach(KurentoConnectionListener::disconnected);
+
+        assertThrows(ExceptionController.InternalServerError.class, () -> pool.place("room-1"));
+    }
+}
@@ -0,0 +1,184 @@
+package webChat.service.kurento;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.kurento.client.Continuation;
+import org.kurento.client.KurentoClient;
+import org.kurento.client.MediaPipeline;
+import org.springframework.test.util.ReflectionTestUtils;
+import webChat.controller.ExceptionController;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MediaPipelineManagerTest {
+
+    private KurentoClientPool kurentoClientPool;
+    private MediaPipelinePool mediaPipelinePool;
+    private KurentoMediaServer server;
+    private MediaPipelineManager manager;
+
+    @BeforeEach
+    void setUp() {
+        kurentoClientPool = mock(KurentoClientPool.class);
+        mediaPipelinePool = mock(MediaPipelinePool.class);
+        server = new KurentoMediaServer("kms-0", "ws://kms-0:8888/kurento", mock(KurentoClient.class));
+        when(kurentoClientPool.place("room-1")).thenReturn(server);
+
+        manager = new MediaPipelineManager(kurentoClientPool, mediaPipelinePool,
+                mock(KurentoParticipantService.class), new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(manager, "teardownParallelism", 2);
+        ReflectionTestUtils.invokeMethod(manager, "init");
+    }
+
+    @Test
+    @DisplayName("pipeline 생성은 compute 밖에서 진행하고 동시에 입장한 참여자는 같은 pipeline 을 기다림")
+    void createOutsideCompute() throws Exception {
+        MediaPipeline pipeline = mock(MediaPipeline.class);
+        CountDownLatch creating = new CountDownLatch(1);
+        CountDownLatch created = new CountDownLatch(1);
+        when(mediaPipelinePool.acquire(server)).thenAnswer(invocation -> {
+            creating.countDown();
+            created.await(5, TimeUnit.SECONDS);
+            return pipeline;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<MediaPipelineManager.Lease> first = executor.submit(() -> manager.acquire("room-1"));
+            assertTrue(creating.await(5, TimeUnit.SECONDS));
+
+            // 생성 중에도 같은 방의 compute 가 기다리지 않음
+            assertNull(manager.getPipeline("room-1"));
+            manager.release("room-1", mock(MediaPipeline.class));
+            Future<MediaPipelineManager.Lease> second = executor.submit(() -> manager.acquire("room-1"));
+            assertFalse(second.isDone());
+
+            created.countDown();
+            assertSame(pipeline, first.get(5, TimeUnit.SECONDS).pipeline());
+            assertSame(pipeline, second.get(5, TimeUnit.SECONDS).pipeline());
+            assertSame(server, first.get().server());
+            verify(mediaPipelinePool, times(1)).acquire(server);
+            assertEquals(2, this.participants("room-1"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("생성에 실패하면 예외를 그대로 전달하고 다음 입장 시 다시 생성")
+    void createFailure() {
+        MediaPipeline pipeline = mock(MediaPipeline.class);
+        when(mediaPipelinePool.acquire(server))
+                .thenThrow(new ExceptionController.InternalServerError("kms error"))
+                .thenReturn(pipeline);
+
+        assertThrows(ExceptionController.InternalServerError.class, () -> manager.acquire("room-1"));
+        assertNull(manager.getPipeline("room-1"));
+        assertSame(pipeline, manager.acquire("room-1").pipeline());
+    }
+
+    @Test
+    @DisplayName("교체된 pipeline 을 사용하던 참여자의 release 는 새로운 pipeline 의 참여자 수를 바꾸지 않음")
+    void releaseStalePipeline() {
+        MediaPipeline stale = mock(MediaPipeline.class);
+        MediaPipeline replacement = mock(MediaPipeline.class);
+        when(mediaPipelinePool.acquire(server)).thenReturn(stale, replacement);
+
+        assertSame(stale, manager.acquire("room-1").pipeline());
+        // reap 등에서 release 된 pipeline => 다음 입장 시 교체
+        ReflectionTestUtils.setField(this.roomPipeline("room-1"), "released", true);
+        assertSame(replacement, manager.acquire("room-1").pipeline());
+        assertNotSame(stale, manager.getPipeline("room-1"));
+
+        manager.release("room-1", stale);
+        assertEquals(1, this.participants("room-1"));
+
+        manager.release("room-1", replacement);
+        assertEquals(0, this.participants("room-1"));
+    }
+
+    @Test
+    @DisplayName("여러 방 삭제 시 호출한 스레드는 기다리지 않고 release 는 teardown.parallelism 개씩 진행")
+    @SuppressWarnings("unchecked")
+    void destroyAllLimitsParallelism() {
+        List<Continuation<Void>> inFlight = new ArrayList<>();
+        List<String> roomIds = List.of("room-1", "room-2", "room-3");
+        for (String roomId : roomIds) {
+            MediaPipeline pipeline = mock(MediaPipeline.class);
+            doAnswer(invocation -> inFlight.add(invocation.getArgument(0)))
+                    .when(pipeline).release(any(Continuation.class));
+            when(kurentoClientPool.place(roomId)).thenReturn(server);
+            when(mediaPipelinePool.acquire(server)).thenReturn(pipeline);
+            manager.acquire(roomId);
+        }
+
+        CompletableFuture<Void> releases = manager.destroyAll(roomIds);
+        assertTrue(manager.getRoomIds().isEmpty());
+        assertEquals(2, inFlight.size());
+
+        // 앞의 release 가 끝나면 다음 release 요청
+        inFlight.get(0).onSuccess(null);
+        assertEquals(3, inFlight.size());
+        assertFalse(releases.isDone());
+
+        // 실패한 release 도 완료로 처리
+        inFlight.get(1).onError(new IllegalStateException("kms error"));
+        inFlight.get(2).onSuccess(null);
+        assertTrue(releases.isDone());
+    }
+
+    @Test
+    @DisplayName("방 삭제로 제거된 pipeline 은 media lost listener 를 실행하지 않음")
+    void destroyIsNotMediaLoss() {
+        when(mediaPipelinePool.acquire(server)).thenReturn(mock(MediaPipeline.class));
+        List<String> released = new ArrayList<>();
+        List<String> lost = new ArrayList<>();
+        manager.addReleaseListener(released::add);
+        manager.addMediaLostListener(lost::add);
+
+        manager.acquire("room-1");
+        manager.destroy("room-1");
+        assertEquals(List.of("room-1"), released);
+        assertTrue(lost.isEmpty());
+
+        // KMS 에서 사라진 pipeline 을 교체하는 경우는 복구 대상
+        manager.acquire("room-1");
+        ReflectionTestUtils.setField(this.roomPipeline("room-1"), "released", true);
+        manager.acquire("room-1");
+        assertEquals(List.of("room-1"), lost);
+    }
+
+    private Object roomPipeline(String roomId) {
+        Map<?, ?> pipelines = (Map<?, ?>) ReflectionTestUtils.getField(manager, "pipelines");
+        return pipelines.get(roomId);
+    }
+
+    private int participants(String roomId) {
+        return (int) ReflectionTestUtils.getField(this.roomPipeline(roomId), "participants");
+    }
+}
@@ -0,0 +1,165 @@
+package webChat.service.kurento;
+
+import com.google.gson.JsonObject;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import webChat.repository.participant.KurentoParticipantRepository;
+import webChat.service.chatroom.participant.KurentoParticipantService;
+import webChat.service.chatroom.participant.impl.KurentoParticipantServiceImpl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@Slf4j
+class SessionOutboxBroadcastTest {
+
+    private static final int ITERATIONS = 2_000;
+
+    private static final String ROOM_ID = "room-1";
+
+    private SessionOutboxManager outboxManager;
+    private KurentoParticipantRepository participantRepository;
+    private KurentoParticipantService participantService;
+
+    @BeforeEach
+    void setUp() {
+        participantRepository = new KurentoParticipantRepository();
+        participantService = new KurentoParticipantServiceImpl(participantRepository);
+        outboxManager = new SessionOutboxManager(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outboxManager, "capacity", 1_000_000);
+        ReflectionTestUtils.setField(outboxManager, "overflowPolicy", "drop_non_critical");
+        ReflectionTestUtils.setField(outboxManager, "workerThreads", 2);
+        ReflectionTestUtils.invokeMethod(outboxManager, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(outboxManager, "destroy");
+    }
+
+    @Test
+    @DisplayName("broadcast 시 제외한 유저를 뺀 모든 수신자의 큐가 하나의 frame 을 공유")
+    void broadcastSharesFrame() {
+        // 큐를 비우지 않는 executor 로 큐에 남은 frame 을 그대로 확인
+        List<SessionOutbox> outboxes = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            SessionOutbox outbox = new SessionOutbox(this.makeSession(), 16, SessionOutbox.OverflowPolicy.DROP_NON_CRITICAL,
+                    runnable -> {}, outboxManager, 0, null);
+            this.addParticipant("user-" + i, outbox);
+            outboxes.add(outbox);
+        }
+
+        List<String> unNotified = participantService.broadcast(ROOM_ID, this.makeMessage(), "user-0");
+
+        assertTrue(unNotified.isEmpty());
+        assertTrue(this.queuedFrames(outboxes.get(0)).isEmpty());
+        TextMessage shared = this.queuedFrames(outboxes.get(1)).get(0);
+        for (SessionOutbox outbox : outboxes.subList(1, outboxes.size())) {
+            List<TextMessage> frames = this.queuedFrames(outbox);
+            assertEquals(1, frames.size());
+            assertSame(shared, frames.get(0));
+        }
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("broadcast : 수신자마다 직렬화 vs 한번 직렬화한 frame 공유 allocation 비교")
+    void broadcastAllocationBenchmark() {
+        for (int roomSize : new int[]{2, 5, 10, 25, 50}) {
+            participantRepository.removeRoom(ROOM_ID);
+            for (int i = 0; i < roomSize; i++) {
+                this.addParticipant("user-" + i, outboxManager.getOutbox(this.makeSession()));
+            }
+            JsonObject message = this.makeMessage();
+
+            // warm up
+            this.sendPerRecipient(message);
+            participantService.broadcast(ROOM_ID, message);
+
+            long start = AllocationMeter.allocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                this.sendPerRecipient(message);
+            }
+            long perRecipient = (AllocationMeter.allocatedBytes() - start) / ITERATIONS;
+
+            start = AllocationMeter.allocatedBytes();
+            for (int i = 0; i < ITERATIONS; i++) {
+                participantService.broadcast(ROOM_ID, message);
+            }
+            long broadcast = (AllocationMeter.allocatedBytes() - start) / ITERATIONS;
+
+            log.info("roomSize={} bytes/broadcast : perRecipient={} shared frame={}", roomSize, perRecipient, broadcast);
+            if (roomSize >= 10) {
+                assertTrue(broadcast < perRecipient);
+            }
+        }
+    }
+
+    /**
+     * 비교 대상 : 수신자마다 sendMessage(JsonObject) 로 직렬화
+     */
+    private void sendPerRecipient(JsonObject message) {
+        for (KurentoUserSession participant : participantService.getParticipantList(ROOM_ID)) {
+            participant.sendMessage(message);
+        }
+    }
+
+    /**
+     * KMS 없이 송신 큐만 연결한 참여자 : sendMessage 는 실제 KurentoUserSession 처럼 송신 큐에 넣음
+     */
+    private void addParticipant(String userId, SessionOutbox outbox) {
+        KurentoUserSession participant = mock(KurentoUserSession.class, withSettings().stubOnly());
+        WebSocketSession session = this.makeSession();
+        when(participant.getUserId()).thenReturn(userId);
+        when(participant.getSession()).thenReturn(session);
+        when(participant.sendMessage(any(TextMessage.class)))
+                .thenAnswer(invocation -> outbox.offer(invocation.getArgument(0, TextMessage.class)));
+        doAnswer(invocation -> outbox.offer(invocation.getArgument(0, JsonObject.class).toString()))
+                .when(participant).sendMessage(any(JsonObject.class));
+        participantService.addParticipant(ROOM_ID, participant);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TextMessage> queuedFrames(SessionOutbox outbox) {
+        Collection<Object> queue = (Collection<Object>) ReflectionTestUtils.getField(outbox, "queue");
+        return queue.stream()
+                .map(message -> (TextMessage) ReflectionTestUtils.invokeMethod(message, "frame"))
+                .toList();
+    }
+
+    private WebSocketSession makeSession() {
+        WebSocketSession session = mock(WebSocketSession.class, withSettings().stubOnly());
+        when(session.getId()).thenReturn(UUID.randomUUID().toString());
+        return session;
+    }
+
+    private JsonObject makeMessage() {
+        JsonObject participant = new JsonObject();
+        participant.addProperty("userId", UUID.randomUUID().toString());
+        participant.addProperty("nickName", "benchmark-user");
+
+        JsonObject message = new JsonObject();
+        message.addProperty("id", "newParticipantArrived");
+        message.add("data", participant);
+        return message;
+    }
+}
@@ -0,0 +1,132 @@
+package webChat.service.kurento;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionOutboxIceBatchTest {
+
+    private static final long ICE_BATCH_MS = 50L;
+
+    private SessionOutboxManager outboxManager;
+    private final List<String> sent = new ArrayList<>();
+    // batch window 가 지나면 실행할 flush : 시간을 기다리지 않고 테스트에서 직접 실행
+    private final List<Runnable> scheduledFlushes = new ArrayList<>();
+    private ScheduledExecutorService batchScheduler;
+
+    @BeforeEach
+    void setUp() {
+        outboxManager = new SessionOutboxManager(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outboxManager, "workerThreads", 1);
+        ReflectionTestUtils.invokeMethod(outboxManager, "init");
+
+        batchScheduler = mock(ScheduledExecutorService.class);
+        when(batchScheduler.schedule(any(Runnable.class), eq(ICE_BATCH_MS), eq(TimeUnit.MILLISECONDS)))
+                .thenAnswer(invocation -> {
+                    scheduledFlushes.add(invocation.getArgument(0));
+                    return mock(ScheduledFuture.class);
+                });
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(outboxManager, "destroy");
+    }
+
+    @Test
+    @DisplayName("window 안에 찾은 candidate 는 중복을 제거하고 하나의 iceCandidates 메시지로 전송")
+    void batchCandidates() throws Exception {
+        // 호출한 스레드에서 바로 전송하는 executor
+        SessionOutbox outbox = this.makeOutbox(256, Runnable::run);
+
+        for (int i = 0; i < 5; i++) {
+            outbox.offerIceCandidate("user-" + (i % 2), this.makeCandidate(i));
+        }
+        outbox.offerIceCandidate("user-0", this.makeCandidate(0));
+
+        // window 가 지나기 전에는 전송하지 않고 flush 는 한번만 예약
+        assertTrue(sent.isEmpty());
+        assertEquals(1, scheduledFlushes.size());
+
+        scheduledFlushes.forEach(Runnable::run);
+
+        assertEquals(1, sent.size());
+        JsonObject message = JsonParser.parseString(sent.get(0)).getAsJsonObject();
+        assertEquals("iceCandidates", message.get("id").getAsString());
+        assertEquals(5, message.getAsJsonArray("candidates").size());
+        assertEquals("user-1", message.getAsJsonArray("candidates").get(1).getAsJsonObject().get("name").getAsString());
+    }
+
+    @Test
+    @DisplayName("큐가 가득 차도 iceCandidates 는 버리지 않고 중요하지 않은 메시지를 버려서 공간 확보")
+    void batchIsNeverDropped() throws Exception {
+        // 큐를 비우지 않는 executor : 큐에 쌓인 메시지를 그대로 확인
+        SessionOutbox outbox = this.makeOutbox(2, runnable -> {});
+        outbox.offer("critical");
+        outbox.offerNonCritical(new TextMessage("overlay"), "textOverlayResponse");
+
+        for (int i = 0; i < 3; i++) {
+            outbox.offerIceCandidate("user-1", this.makeCandidate(i));
+        }
+        scheduledFlushes.forEach(Runnable::run);
+
+        List<String> queued = this.queuedPayloads(outbox);
+        assertEquals(2, queued.size());
+        assertEquals("critical", queued.get(0));
+        JsonObject batch = JsonParser.parseString(queued.get(1)).getAsJsonObject();
+        assertEquals("iceCandidates", batch.get("id").getAsString());
+        assertEquals(3, batch.getAsJsonArray("candidates").size());
+    }
+
+    private SessionOutbox makeOutbox(int capacity, Executor executor) throws Exception {
+        return new SessionOutbox(this.makeSession(), capacity, SessionOutbox.OverflowPolicy.DROP_NON_CRITICAL,
+                executor, outboxManager, ICE_BATCH_MS, batchScheduler);
+    }
+
+    private WebSocketSession makeSession() throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        doAnswer(invocation -> sent.add(((TextMessage) invocation.getArgument(0)).getPayload()))
+                .when(session).sendMessage(any());
+        return session;
+    }
+
+    private JsonObject makeCandidate(int index) {
+        JsonObject candidate = new JsonObject();
+        candidate.addProperty("candidate", "candidate:" + index + " 1 UDP 2122252543 192.168.0.10 5432" + index + " typ host");
+        candidate.addProperty("sdpMid", "0");
+        candidate.addProperty("sdpMLineIndex", 0);
+        return candidate;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> queuedPayloads(SessionOutbox outbox) {
+        Collection<Object> queue = (Collection<Object>) ReflectionTestUtils.getField(outbox, "queue");
+        return queue.stream()
+                .map(message -> ((TextMessage) ReflectionTestUtils.invokeMethod(message, "frame")).getPayload())
+                .toList();
+    }
+}
@@ -0,0 +1,85 @@
+package webChat.service.kurento;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SessionOutboxOverflowTest {
+
+    private SessionOutboxManager outboxManager;
+    private ScheduledExecutorService batchScheduler;
+    private SessionOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        outboxManager = new SessionOutboxManager(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(outboxManager, "workerThreads", 1);
+        ReflectionTestUtils.invokeMethod(outboxManager, "init");
+
+        batchScheduler = Executors.newSingleThreadScheduledExecutor();
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn("session-1");
+        // 큐를 비우지 않는 executor : 큐에 쌓인 메시지를 그대로 확인
+        outbox = new SessionOutbox(session, 2, SessionOutbox.OverflowPolicy.DROP_NON_CRITICAL,
+                runnable -> {}, outboxManager, 0, batchScheduler);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchScheduler.shutdownNow();
+        ReflectionTestUtils.invokeMethod(outboxManager, "destroy");
+    }
+
+    @Test
+    @DisplayName("같은 key 의 중요하지 않은 메시지는 최신 메시지로 대체")
+    void coalesceNonCritical() {
+        outbox.offer("critical-1");
+        outbox.offerNonCritical(new TextMessage("released-1"), "videoReleased:user-1");
+        outbox.offerNonCritical(new TextMessage("released-2"), "videoReleased:user-1");
+
+        assertEquals(List.of("critical-1", "released-2"), this.queuedPayloads());
+    }
+
+    @Test
+    @DisplayName("큐가 가득 차면 중요하지 않은 메시지만 버리고, 버릴 메시지가 없으면 연결 종료")
+    void dropNonCriticalBeforeDisconnect() {
+        outbox.offer("critical-1");
+        outbox.offerNonCritical(new TextMessage("overlay"), "textOverlayResponse");
+
+        // 중요한 메시지를 위해 중요하지 않은 메시지를 버림
+        assertTrue(outbox.offer("critical-2"));
+        assertEquals(List.of("critical-1", "critical-2"), this.queuedPayloads());
+
+        // 중요하지 않은 메시지는 큐가 가득 차면 버려지고 연결은 유지
+        assertFalse(outbox.offerNonCritical(new TextMessage("overlay"), "textOverlayResponse"));
+
+        // 버릴 메시지가 없으면 연결 종료
+        assertFalse(outbox.offer("critical-3"));
+        assertFalse(outbox.offer("critical-4"));
+        assertTrue(this.queuedPayloads().isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> queuedPayloads() {
+        Collection<Object> queue = (Collection<Object>) ReflectionTestUtils.getField(outbox, "queue");
+        return queue.stream()
+                .map(message -> ((TextMessage) ReflectionTestUtils.invokeMethod(message, "frame")).getPayload())
+                .toList();
+    }
+}
@@ -0,0 +1,139 @@
+package webChat.service.kurento;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import webChat.model.signaling.SignalingMessage;
+import webChat.model.signaling.SignalingType;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+class SignalingCodecTest {
+
+    private static final int ITERATIONS = 200_000;
+
+    private static final String ICE_CANDIDATE = "{\"id\":\"onIceCandidate\",\"roomId\":\"room-1\"," +
+            "\"candidate\":{\"candidate\":\"candidate:1 1 UDP 2122252543 192.168.0.10 54321 typ host\"," +
+            "\"sdpMid\":\"0\",\"sdpMLineIndex\":0,\"usernameFragment\":\"abcd\"}," +
+            "\"name\":\"user-1\",\"nickName\":\"nick\"}";
+
+    private static final List<String> PAYLOADS = List.of(
+            ICE_CANDIDATE,
+            "{\"id\":\"joinRoom\",\"nickName\":\"nick\",\"userId\":\"user-1\",\"roomId\":\"room-1\"}",
+            "{\"id\":\"receiveVideoFrom\",\"roomId\":\"room-1\",\"sender\":\"user-2\",\"nickName\":\"nick\"," +
+                    "\"sdpOffer\":\"v=0\\r\\no=- 0 0 IN IP4 127.0.0.1\\r\\ns=-\\r\\n\"}",
+            "{\"id\":\"textOverlay\",\"roomId\":\"room-1\",\"text\":\"안녕하세요\"}",
+            "{\"id\":\"leaveRoom\"}");
+
+    private static final Gson gson = new Gson();
+
+    @Test
+    @DisplayName("필드 순서와 상관없이 type 별 record 로 변환")
+    void decode() {
+        SignalingMessage.OnIceCandidate ice = assertInstanceOf(SignalingMessage.OnIceCandidate.class,
+                SignalingCodec.decode(ICE_CANDIDATE));
+        assertEquals("user-1", ice.name());
+        assertEquals("0", ice.sdpMid());
+        assertEquals(0, ice.sdpMLineIndex());
+
+        SignalingMessage.JoinRoom join = assertInstanceOf(SignalingMessage.JoinRoom.class,
+                SignalingCodec.decode("{\"roomId\":\"room-1\",\"nickName\":\"nick\",\"userId\":\"user-1\",\"id\":\"joinRoom\"}"));
+        assertEquals("room-1", join.roomId());
+        assertEquals("user-1", join.userId());
+
+        SignalingMessage.SubscribeVideo subscribe = assertInstanceOf(SignalingMessage.SubscribeVideo.class,
+                SignalingCodec.decode("{\"id\":\"subscribeVideo\",\"roomId\":\"room-1\",\"senders\":[\"user-2\",null,\"user-3\"]}"));
+        assertEquals(List.of("user-2", "user-3"), subscribe.senders());
+
+        assertNull(SignalingCodec.decode("{\"id\":\"unknown\"}"));
+        assertNull(SignalingCodec.decode("{\"roomId\":\"room-1\"}"));
+        assertThrows(JsonParseException.class, () -> SignalingCodec.decode("{\"id\":\"joinRoom\",\"roomId\":\"room-1\"}"));
+        assertThrows(JsonParseException.class, () -> SignalingCodec.decode("not json"));
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("parse + dispatch : JsonObject tree + 문자열 switch vs streaming codec + dispatch table 비교")
+    void parseAndDispatchBenchmark() {
+        Map<SignalingType, Consumer<SignalingMessage>> dispatchTable = new EnumMap<>(SignalingType.class);
+        long[] sink = new long[1];
+        for (SignalingType type : SignalingType.values()) {
+            dispatchTable.put(type, message -> sink[0] += message.hashCode());
+        }
+
+        // warm up
+        for (int i = 0; i < ITERATIONS; i++) {
+            String payload = PAYLOADS.get(i % PAYLOADS.size());
+            this.legacyDispatch(payload, sink);
+            SignalingMessage message = SignalingCodec.decode(payload);
+            dispatchTable.get(message.type()).accept(message);
+        }
+
+        for (String payload : PAYLOADS) {
+            Runnable legacy = () -> this.legacyDispatch(payload, sink);
+            Runnable codec = () -> {
+                SignalingMessage message = SignalingCodec.decode(payload);
+                dispatchTable.get(message.type()).accept(message);
+            };
+
+            long[] legacyResult = this.measure(legacy);
+            long[] codecResult = this.measure(codec);
+            log.info("{} : legacy {} ns/op {} B/op, codec {} ns/op {} B/op", SignalingCodec.decode(payload).type(),
+                    legacyResult[0], legacyResult[1], codecResult[0], codecResult[1]);
+            // streaming codec 은 JsonObject tree 를 만들지 않기 때문에 메시지마다 할당이 적어야 함
+            assertTrue(codecResult[1] < legacyResult[1], payload);
+        }
+        log.debug("sink {}", sink[0]);
+    }
+
+    /**
+     * 기존 KurentoHandler.handleTextMessage 의 parse + dispatch
+     */
+    private void legacyDispatch(String payload, long[] sink) {
+        JsonObject jsonMessage = gson.fromJson(payload, JsonObject.class);
+        String roomId = jsonMessage.has("roomId") ? jsonMessage.get("roomId").getAsString() : "";
+        switch (jsonMessage.get("id").getAsString()) {
+            case "joinRoom" -> sink[0] += (roomId + jsonMessage.get("userId").getAsString()
+                    + jsonMessage.get("nickName").getAsString()).length();
+            case "receiveVideoFrom" -> sink[0] += (jsonMessage.get("sender").getAsString()
+                    + jsonMessage.get("sdpOffer").getAsString()).length();
+            case "onIceCandidate" -> {
+                JsonObject candidate = jsonMessage.get("candidate").getAsJsonObject();
+                sink[0] += candidate.get("candidate").getAsString().length()
+                        + candidate.get("sdpMid").getAsString().length()
+                        + candidate.get("sdpMLineIndex").getAsInt()
+                        + jsonMessage.get("name").getAsString().length();
+            }
+            case "textOverlay" -> sink[0] += (jsonMessage.has("text") ? jsonMessage.get("text").getAsString() : "").length();
+            default -> sink[0]++;
+        }
+    }
+
+    /**
+     * @return [ns/op, allocated bytes/op]
+     */
+    private long[] measure(Runnable runnable) {
+        long allocated = AllocationMeter.allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            runnable.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        allocated = AllocationMeter.allocatedBytes() - allocated;
+        return new long[]{elapsed / ITERATIONS, allocated / ITERATIONS};
+    }
+}
@@ -0,0 +1,131 @@
+package webChat.service.redis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import webChat.model.chat.ChatType;
+import webChat.model.game.CatchMindUserDto;
+import webChat.model.game.GameSettingInfo;
+import webChat.model.room.KurentoRoom;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+class ChatRoomRedisSerializerTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final ChatRoomRedisSerializer json = new ChatRoomRedisSerializer(jsonSerializer, ChatRoomRedisSerializer.Format.JSON);
+    private final ChatRoomRedisSerializer smile = new ChatRoomRedisSerializer(jsonSerializer, ChatRoomRedisSerializer.Format.SMILE);
+
+    @Test
+    @DisplayName("smile 형식으로 저장한 방 정보 복원")
+    void smileRoundTrip() {
+        KurentoRoom room = createRoom();
+
+        KurentoRoom restored = (KurentoRoom) smile.deserialize(smile.serialize(room));
+
+        assertEquals(room.getRoomId(), restored.getRoomId());
+        assertEquals(room.getRoomName(), restored.getRoomName());
+        assertEquals(room.getMaxUserCnt(), restored.getMaxUserCnt());
+        assertEquals(room.getRoomState(), restored.getRoomState());
+        assertEquals(room.getGameSettingInfo().getBeforeSubjects(), restored.getGameSettingInfo().getBeforeSubjects());
+        assertEquals(room.getGameSettingInfo().getGameUserList().size(), restored.getGameSettingInfo().getGameUserList().size());
+    }
+
+    @Test
+    @DisplayName("smile 설정에서도 기존 json 값을 읽을 수 있음")
+    void dualRead() {
+        KurentoRoom room = createRoom();
+
+        KurentoRoom fromJson = (KurentoRoom) smile.deserialize(json.serialize(room));
+        KurentoRoom fromSmile = (KurentoRoom) json.deserialize(smile.serialize(room));
+
+        assertEquals(room.getRoomId(), fromJson.getRoomId());
+        assertEquals(room.getRoomId(), fromSmile.getRoomId());
+        // chatroom 이 아닌 값은 smile 설정에서도 json 으로 저장
+        assertEquals("roomName", new String(smile.serialize("roomName")).replace("\"", ""));
+    }
+
+    @Test
+    @DisplayName("smile 형식이 json 보다 작게 저장")
+    void smileIsSmaller() {
+        KurentoRoom room = createRoom();
+
+        assertTrue(smile.serialize(room).length < json.serialize(room).length);
+    }
+
+    @Test
+    @Tag("benchmark")
+    @DisplayName("json vs smile : bytes per room, ser/deser ns/op 비교")
+    void compareFormats() {
+        KurentoRoom room = createRoom();
+
+        byte[] jsonBytes = json.serialize(room);
+        byte[] smileBytes = smile.serialize(room);
+
+        log.info("bytes per room :: json {}, smile {}", jsonBytes.length, smileBytes.length);
+        log.info("json  :: ser {} ns/op, deser {} ns/op", measureSerialize(json, room), measureDeserialize(json, jsonBytes));
+        log.info("smile :: ser {} ns/op, deser {} ns/op", measureSerialize(smile, room), measureDeserialize(smile, smileBytes));
+    }
+
+    private long measureSerialize(ChatRoomRedisSerializer serializer, KurentoRoom room) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.serialize(room);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.serialize(room);
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private long measureDeserialize(ChatRoomRedisSerializer serializer, byte[] bytes) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.deserialize(bytes);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            serializer.deserialize(bytes);
+        }
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private KurentoRoom createRoom() {
+        KurentoRoom room = new KurentoRoom(UUID.randomUUID().toString(), "serializer test room", "tester",
+                "1234", true, 3, 6, ChatType.RTC);
+
+        GameSettingInfo gameSettingInfo = new GameSettingInfo();
+        gameSettingInfo.setRoomId(room.getRoomId());
+        gameSettingInfo.setTotalGameRound(3);
+        gameSettingInfo.setGameRound(1);
+
+        List<CatchMindUserDto> gameUserList = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            gameUserList.add(new CatchMindUserDto(i * 10, i, false));
+        }
+        gameSettingInfo.setGameUserList(gameUserList);
+        gameSettingInfo.setSubjects(List.of("호랑이", "고양이", "강아지", "토끼", "여우"));
+
+        Map<String, List<String>> beforeSubjects = new HashMap<>();
+        for (String title : List.of("동물", "식물", "애니메이션", "게임", "영화")) {
+            List<String> subjects = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                subjects.add(title + " 주제 " + i);
+            }
+            beforeSubjects.put(title, subjects);
+        }
+        gameSettingInfo.setBeforeSubjects(beforeSubjects);
+        room.setGameSettingInfo(gameSettingInfo);
+        return room;
+    }
+}
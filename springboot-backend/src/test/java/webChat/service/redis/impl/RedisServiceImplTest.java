@@ -1,15 +1,80 @@
 package webChat.service.redis.impl;
 
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import webChat.model.chat.ChatType;
+import webChat.model.room.ChatRoom;
+import webChat.model.room.KurentoRoom;
 import webChat.service.chatroom.ChatRoomService;
 import webChat.service.redis.RedisService;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// live redis 가 필요한 성능 측정 => ./gradlew benchmark 로 실행
+@Tag("benchmark")
 @SpringBootTest
+@Slf4j
 class RedisServiceImplTest {
     @Autowired
     private ChatRoomService roomService;
 
     @Autowired
     private RedisService redisService;
-}
\ No newline at end of file
+
+    private static final int ITERATIONS = 20;
+
+    @Test
+    @DisplayName("방 목록 조회 : 방마다 조회 vs pipeline 조회 latency 비교")
+    void getChatRoomListBenchmark() {
+        for (int pageSize : new int[]{20, 100, 1000}) {
+            List<String> roomIds = new ArrayList<>();
+            try {
+                for (int i = 0; i < pageSize; i++) {
+                    KurentoRoom room = new KurentoRoom(UUID.randomUUID().toString(), "bench-" + UUID.randomUUID(),
+                            "bench", "", false, 0, 4, ChatType.RTC);
+                    redisService.insertChatRoom(room);
+                    roomIds.add(room.getRoomId());
+                }
+
+                // warm up
+                assertEquals(pageSize, getOneByOne(roomIds).size());
+                assertEquals(pageSize, redisService.getChatRoomList(roomIds).size());
+
+                long oneByOne = 0L;
+                long pipelined = 0L;
+                for (int i = 0; i < ITERATIONS; i++) {
+                    long start = System.nanoTime();
+                    getOneByOne(roomIds);
+                    oneByOne += System.nanoTime() - start;
+
+                    start = System.nanoTime();
+                    redisService.getChatRoomList(roomIds);
+                    pipelined += System.nanoTime() - start;
+                }
+
+                log.info("pageSize {} :: one by one {} us/op, pipelined {} us/op", pageSize,
+                        oneByOne / ITERATIONS / 1_000, pipelined / ITERATIONS / 1_000);
+            } finally {
+                roomIds.forEach(redisService::deleteAllChatRoomData);
+            }
+        }
+    }
+
+    private List<ChatRoom> getOneByOne(List<String> roomIds) {
+        List<ChatRoom> chatRoomList = new ArrayList<>();
+        for (String roomId : roomIds) {
+            Map<Object, Object> allChatRoomData = redisService.getAllChatRoomData(roomId);
+            chatRoomList.add((ChatRoom) allChatRoomData.get("chatroom"));
+        }
+        return chatRoomList;
+    }
+}